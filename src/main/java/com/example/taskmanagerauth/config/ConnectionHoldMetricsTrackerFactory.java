@@ -0,0 +1,110 @@
+package com.example.taskmanagerauth.config;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hikari metrics that also time how long each pooled connection was held, tagged with the endpoint that held it.
+ * Hikari reports the usage on the thread that returns the connection, which is the request thread, so the
+ * endpoint is read from the current request. The standard hikaricp.* metrics are still recorded.
+ */
+public class ConnectionHoldMetricsTrackerFactory implements MetricsTrackerFactory {
+
+    public static final String HOLD_METRIC = "db.connection.hold";
+
+    // Handler not resolved yet, e.g. a connection used by a filter
+    static final String UNKNOWN_URI = "UNKNOWN";
+
+    // Not on a request thread, e.g. a scheduled job
+    static final String NO_URI = "none";
+
+    private final MicrometerMetricsTrackerFactory delegate;
+    private final MeterRegistry meterRegistry;
+
+    public ConnectionHoldMetricsTrackerFactory(MeterRegistry meterRegistry) {
+        this.delegate = new MicrometerMetricsTrackerFactory(meterRegistry);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        return new ConnectionHoldMetricsTracker(poolName, delegate.create(poolName, poolStats));
+    }
+
+    /**
+     * The endpoint handling the current request
+     * @return (String) The matched handler pattern, such as /auth/login
+     */
+    public static String currentUri() {
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+
+        if (attributes == null) {
+            return NO_URI;
+        }
+
+        Object pattern = attributes.getAttribute(
+                HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST
+        );
+
+        return pattern != null ? pattern.toString() : UNKNOWN_URI;
+
+    }
+
+    private class ConnectionHoldMetricsTracker implements IMetricsTracker {
+
+        private final String poolName;
+        private final IMetricsTracker delegate;
+
+        private ConnectionHoldMetricsTracker(String poolName, IMetricsTracker delegate) {
+            this.poolName = poolName;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+            delegate.recordConnectionCreatedMillis(connectionCreatedMillis);
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            delegate.recordConnectionAcquiredNanos(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+
+            delegate.recordConnectionUsageMillis(elapsedBorrowedMillis);
+
+            Timer.builder(HOLD_METRIC)
+                    .description("Time a pooled connection was held, by the endpoint holding it")
+                    .tag("pool", poolName)
+                    .tag("uri", currentUri())
+                    .register(meterRegistry)
+                    .record(elapsedBorrowedMillis, TimeUnit.MILLISECONDS);
+
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            delegate.recordConnectionTimeout();
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.example.taskmanagerauth.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class DataSourceMetricsConfig {
+
+    /**
+     * Installs ConnectionHoldMetricsTrackerFactory on every Hikari pool, including the primary and replica pools
+     * of DataSourceRoutingConfig, before the pool is started. Boot leaves pools that already have a factory alone.
+     */
+    @Bean
+    public static BeanPostProcessor connectionHoldMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource
+                        && dataSource.getMetricsTrackerFactory() == null
+                        && dataSource.getMetricRegistry() == null) {
+                    dataSource.setMetricsTrackerFactory(new ConnectionHoldMetricsTrackerFactory(meterRegistry.getObject()));
+                }
+                return bean;
+            }
+        };
+    }
+
+}
@@ -2,22 +2,62 @@ package com.example.taskmanagerauth.config;
 
 import com.example.taskmanagerauth.service.DefaultPasswordEncodingService;
 import com.example.taskmanagerauth.service.PasswordEncodingService;
+import com.example.taskmanagerauth.service.PasswordHashCalibrator;
+import com.example.taskmanagerauth.service.PasswordHashingExecutor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
+import java.util.Map;
+
 @Configuration
 public class EncodingConfig {
 
+    /**
+     * Hashes new passwords with password-hashing.algorithm and stores them with an {id} prefix.
+     * Hashes without a prefix were written before the prefix existed and are checked as BCrypt;
+     * they, and any hash weaker than the current settings, are reported by upgradeEncoding.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${password-hashing.algorithm:bcrypt}") String algorithm,
+            @Value("${password-hashing.bcrypt.strength:0}") int strength,
+            @Value("${password-hashing.bcrypt.min-strength:10}") int minStrength,
+            @Value("${password-hashing.bcrypt.max-strength:14}") int maxStrength,
+            @Value("${password-hashing.target-latency:80ms}") Duration targetLatency
+    ) {
+
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(
+                strength > 0 ? strength : PasswordHashCalibrator.calibrateBcryptStrength(targetLatency, minStrength, maxStrength, 5)
+        );
+
+        Map<String, PasswordEncoder> encoders = Map.of(
+                "bcrypt", bcrypt,
+                "argon2", Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8()
+        );
+
+        if (!encoders.containsKey(algorithm)) {
+            throw new IllegalStateException("Unknown password-hashing.algorithm: " + algorithm);
+        }
+
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(algorithm, encoders);
+        passwordEncoder.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        return passwordEncoder;
+
     }
 
     @Bean
-    public PasswordEncodingService passwordEncoderService() {
-        return new DefaultPasswordEncodingService(passwordEncoder());
+    public PasswordEncodingService passwordEncoderService(
+            PasswordEncoder passwordEncoder,
+            PasswordHashingExecutor passwordHashingExecutor
+    ) {
+        return new DefaultPasswordEncodingService(passwordEncoder, passwordHashingExecutor);
     }
 
 }
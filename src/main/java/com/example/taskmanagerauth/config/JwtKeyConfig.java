@@ -0,0 +1,121 @@
+package com.example.taskmanagerauth.config;
+
+import com.example.taskmanagerauth.service.JwtKey;
+import com.example.taskmanagerauth.service.JwtKeyRing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.security.KeyPair;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class JwtKeyConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeyConfig.class);
+
+    /**
+     * Keys for access tokens. In "hmac" mode tokens are signed with the shared jwt.secret;
+     * in "ec" mode they are signed with ES256, so other services can verify them with the published JWKS.
+     * A generated EC key pair is only accepted with jwt.ec.generate-dev-keys, as its tokens die with the instance.
+     */
+    @Bean
+    public JwtKeyRing accessKeyRing(
+            @Value("${jwt.signing-mode:hmac}") String signingMode,
+            @Value("${jwt.secret:}") String secret,
+            @Value("${jwt.previous-secrets:}") List<String> previousSecrets,
+            @Value("${jwt.ec.public-key:}") String publicKey,
+            @Value("${jwt.ec.private-key:}") String privateKey,
+            @Value("${jwt.ec.previous-public-keys:}") List<String> previousPublicKeys,
+            @Value("${jwt.ec.generate-dev-keys:false}") boolean generateDevKeys
+    ) {
+        return createAccessKeyRing(signingMode, secret, previousSecrets, publicKey, privateKey, previousPublicKeys, generateDevKeys);
+    }
+
+    /**
+     * Build the access token keys from their settings, at startup and whenever JwtKeyReloader reads new ones.
+     * Static, as calling the bean method through this class's proxy would only return the existing ring.
+     */
+    public static JwtKeyRing createAccessKeyRing(
+            String signingMode,
+            String secret,
+            List<String> previousSecrets,
+            String publicKey,
+            String privateKey,
+            List<String> previousPublicKeys,
+            boolean generateDevKeys
+    ) {
+
+        if ("hmac".equalsIgnoreCase(signingMode)) {
+            return new JwtKeyRing(secret, previousSecrets);
+        }
+
+        if (!"ec".equalsIgnoreCase(signingMode)) {
+            throw new IllegalStateException("Unknown jwt.signing-mode: " + signingMode);
+        }
+
+        JwtKey primary;
+
+        if (publicKey.isBlank()) {
+
+            if (!generateDevKeys) {
+                throw new IllegalStateException(
+                        "jwt.ec.public-key and jwt.ec.private-key are required in ec mode, unless jwt.ec.generate-dev-keys is set for development."
+                );
+            }
+
+            logger.warn("No jwt.ec keys configured, generating a key pair. Tokens will not survive a restart or verify on other instances.");
+
+            KeyPair keyPair = JwtKey.generateEcKeyPair();
+            primary = JwtKey.ec((ECPublicKey) keyPair.getPublic(), (ECPrivateKey) keyPair.getPrivate());
+
+        } else {
+
+            if (privateKey.isBlank()) {
+                throw new IllegalStateException("jwt.ec.private-key is required to sign with jwt.ec.public-key.");
+            }
+
+            primary = JwtKey.ec(publicKey, privateKey);
+
+        }
+
+        List<JwtKey> previous = new ArrayList<>();
+
+        for (String previousPublicKey : previousPublicKeys) {
+            if (!previousPublicKey.isBlank()) {
+                previous.add(JwtKey.ec(previousPublicKey, null));
+            }
+        }
+
+        // Access tokens signed with the shared secrets before switching modes stay valid until they expire
+        for (String hmacSecret : previousSecrets) {
+            if (!hmacSecret.isBlank()) {
+                previous.add(JwtKey.hmac(hmacSecret));
+            }
+        }
+
+        if (!secret.isBlank()) {
+            previous.add(JwtKey.hmac(secret));
+        }
+
+        return new JwtKeyRing(primary, previous);
+
+    }
+
+    /**
+     * Keys for 2FA tokens, which are only ever checked by this service
+     */
+    @Bean
+    public JwtKeyRing mfaKeyRing(
+            @Value("${jwt.mfa}") String secret2FA,
+            @Value("${jwt.previous-mfa:}") List<String> previousSecrets2FA
+    ) {
+        return new JwtKeyRing(secret2FA, previousSecrets2FA);
+    }
+
+}
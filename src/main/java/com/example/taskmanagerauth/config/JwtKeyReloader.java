@@ -0,0 +1,188 @@
+package com.example.taskmanagerauth.config;
+
+import com.example.taskmanagerauth.service.JwtKeyRing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rotates the signing keys without a restart. When jwt.keys-directory is set, it holds one file per key setting,
+ * named after its property (e.g. "jwt.secret", "jwt.previous-secrets"), as a mounted secret would. Files override
+ * the configured values, are read at startup and again every jwt.keys-check-interval, and a key ring is only
+ * rebuilt when one of its settings changed. Settings that fail to build keep the current keys in use.
+ */
+@Component
+public class JwtKeyReloader {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeyReloader.class);
+
+    private static final List<String> ACCESS_SETTINGS = List.of(
+            "jwt.signing-mode",
+            "jwt.secret",
+            "jwt.previous-secrets",
+            "jwt.ec.public-key",
+            "jwt.ec.private-key",
+            "jwt.ec.previous-public-keys",
+            "jwt.ec.generate-dev-keys"
+    );
+
+    private static final List<String> MFA_SETTINGS = List.of(
+            "jwt.mfa",
+            "jwt.previous-mfa"
+    );
+
+    private final Path directory;
+    private final Environment environment;
+    private final JwtKeyRing accessKeyRing;
+    private final JwtKeyRing mfaKeyRing;
+
+    // The settings each ring was last built from
+    private Map<String, String> accessSettings;
+    private Map<String, String> mfaSettings;
+
+    @Autowired
+    public JwtKeyReloader(
+            @Value("${jwt.keys-directory:}") String directory,
+            Environment environment,
+            @Qualifier("accessKeyRing") JwtKeyRing accessKeyRing,
+            @Qualifier("mfaKeyRing") JwtKeyRing mfaKeyRing
+    ) {
+
+        this.directory = directory.isBlank() ? null : Path.of(directory);
+        this.environment = environment;
+        this.accessKeyRing = accessKeyRing;
+        this.mfaKeyRing = mfaKeyRing;
+
+        // The rings were built from the configured values, without the files
+        this.accessSettings = configured(ACCESS_SETTINGS);
+        this.mfaSettings = configured(MFA_SETTINGS);
+
+        // Keys in the files are in force before the first request; invalid ones fail startup like invalid properties
+        if (this.directory != null) {
+            reload();
+        }
+
+    }
+
+    @Scheduled(
+            initialDelayString = "${jwt.keys-check-interval:1m}",
+            fixedDelayString = "${jwt.keys-check-interval:1m}"
+    )
+    public void scheduledCheck() {
+        if (directory != null) {
+            check();
+        }
+    }
+
+    /**
+     * Read the key files again and rebuild the key rings whose settings changed
+     * @return (boolean) Whether any keys were replaced
+     */
+    public synchronized boolean check() {
+
+        try {
+            return reload();
+        } catch (RuntimeException exception) {
+            logger.error("Failed to reload the JWT keys, keeping the current ones: {}", exception.getMessage());
+            return false;
+        }
+
+    }
+
+    private boolean reload() {
+
+        Map<String, String> access = read(ACCESS_SETTINGS);
+        Map<String, String> mfa = read(MFA_SETTINGS);
+        boolean reloaded = false;
+
+        if (!access.equals(accessSettings)) {
+
+            // Remembered first, so settings that fail to build are reported once rather than on every check
+            accessSettings = access;
+
+            accessKeyRing.reload(JwtKeyConfig.createAccessKeyRing(
+                    access.get("jwt.signing-mode"),
+                    access.get("jwt.secret"),
+                    list(access.get("jwt.previous-secrets")),
+                    access.get("jwt.ec.public-key"),
+                    access.get("jwt.ec.private-key"),
+                    list(access.get("jwt.ec.previous-public-keys")),
+                    Boolean.parseBoolean(access.get("jwt.ec.generate-dev-keys"))
+            ));
+
+            logger.info("Reloaded access token keys, now signing with {}", accessKeyRing.getPrimaryKeyId());
+            reloaded = true;
+
+        }
+
+        if (!mfa.equals(mfaSettings)) {
+
+            mfaSettings = mfa;
+            mfaKeyRing.reload(mfa.get("jwt.mfa"), list(mfa.get("jwt.previous-mfa")));
+
+            logger.info("Reloaded 2FA token keys, now signing with {}", mfaKeyRing.getPrimaryKeyId());
+            reloaded = true;
+
+        }
+
+        return reloaded;
+
+    }
+
+    private Map<String, String> configured(List<String> names) {
+        Map<String, String> settings = new LinkedHashMap<>();
+        names.forEach(name -> settings.put(name, environment.getProperty(name, defaultValue(name))));
+        return settings;
+    }
+
+    private Map<String, String> read(List<String> names) {
+
+        Map<String, String> settings = configured(names);
+
+        for (String name : names) {
+
+            Path file = directory.resolve(name);
+
+            if (Files.isRegularFile(file)) {
+                try {
+                    settings.put(name, Files.readString(file, StandardCharsets.UTF_8).strip());
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+            }
+
+        }
+
+        return settings;
+
+    }
+
+    // The defaults JwtKeyConfig's @Value annotations fall back to
+    private static String defaultValue(String name) {
+        return switch (name) {
+            case "jwt.signing-mode" -> "hmac";
+            case "jwt.ec.generate-dev-keys" -> "false";
+            default -> "";
+        };
+    }
+
+    private static List<String> list(String value) {
+        return Arrays.stream(value.split(",")).map(String::strip).filter(item -> !item.isEmpty()).toList();
+    }
+
+}
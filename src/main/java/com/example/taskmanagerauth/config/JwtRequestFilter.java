@@ -1,11 +1,14 @@
 package com.example.taskmanagerauth.config;
 
 
+import com.example.taskmanagerauth.dto.token.TokenType;
+import com.example.taskmanagerauth.dto.token.VerifiedToken;
 import com.example.taskmanagerauth.exception.handler.FilterExceptionManager;
 import com.example.taskmanagerauth.exception.server.InvalidJwtException;
-import com.example.taskmanagerauth.exception.server.JwtNotProvidedException;
+import com.example.taskmanagerauth.service.LastAccessTracker;
 import com.example.taskmanagerauth.service.UserService;
 import com.example.taskmanagerauth.service.JwtService;
+import com.example.taskmanagerauth.util.CookieHeader;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -13,6 +16,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -21,7 +25,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Arrays;
+import java.util.Enumeration;
 import java.util.List;
 
 @Component
@@ -30,11 +34,10 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     @Autowired
     public JwtRequestFilter(
             UserService userService,
-            JwtService jwtService
+            JwtService jwtService,
+            LastAccessTracker lastAccessTracker
     ) {
-        this.userService = userService;
-        this.jwtService = jwtService;
-        this.exceptionManager = new FilterExceptionManager();
+        this(userService, jwtService, lastAccessTracker, new FilterExceptionManager());
     }
 
     private static final Logger logger = LoggerFactory.getLogger(JwtRequestFilter.class);
@@ -43,17 +46,30 @@ public class JwtRequestFilter extends OncePerRequestFilter {
             UserService userService,
             JwtService jwtService,
             FilterExceptionManager filterExceptionManager
+    ) {
+        this(userService, jwtService, LastAccessTracker.disabled(), filterExceptionManager);
+    }
+
+    public JwtRequestFilter(
+            UserService userService,
+            JwtService jwtService,
+            LastAccessTracker lastAccessTracker,
+            FilterExceptionManager filterExceptionManager
     ) {
         this.userService = userService;
         this.jwtService = jwtService;
+        this.lastAccessTracker = lastAccessTracker;
         this.exceptionManager = filterExceptionManager;
     }
 
     private final UserService userService;
     private final JwtService jwtService;
+    private final LastAccessTracker lastAccessTracker;
 
     private final FilterExceptionManager exceptionManager;
 
+    private final RouteTable routes = RouteTable.fromSecurityConfig();
+
     @Override
     protected void doFilterInternal(
             HttpServletRequest request,
@@ -61,38 +77,25 @@ public class JwtRequestFilter extends OncePerRequestFilter {
             FilterChain filterChain
     ) throws ServletException, IOException {
 
-        if (isPermitAllPath(request.getServletPath())) {
-            doFilter(request, response, filterChain);
+        RouteTable.Route route = routes.classify(request.getServletPath());
+
+        if (route == RouteTable.Route.PUBLIC) {
+            filterChain.doFilter(request, response);
             return;
         }
 
-        String cookie_name;
+        TokenType tokenType = route == RouteTable.Route.MFA ? TokenType.MFA : TokenType.ACCESS;
+        String cookieHeader = request.getHeader(HttpHeaders.COOKIE);
 
-        if (isMfaPath(request.getServletPath())) {
-            cookie_name = "mfa_access_token";
-        } else {
-            cookie_name = "taskmanager_access_token";
-        }
-
-        if (request.getCookies() == null || request.getCookies().length == 0) {
-            exceptionManager.handleJwtNotProvidedException(
-                    new JwtNotProvidedException("No tokens were provided."),
-                    response
-            );
+        if (cookieHeader == null || cookieHeader.isBlank()) {
+            exceptionManager.handleNoTokens(response);
             return;
         }
 
-        String access_token;
+        String access_token = findCookie(request, cookieHeader, tokenType.getCookieName());
 
-        try {
-            access_token = Arrays.stream(request.getCookies())
-                    .filter(cookie -> cookie.getName().equals(cookie_name))
-                    .toList().getFirst().getValue();
-        } catch (Exception exception) {
-            exceptionManager.handleJwtNotProvidedException(
-                    new JwtNotProvidedException("Access token not provided."),
-                    response
-            );
+        if (access_token == null) {
+            exceptionManager.handleAccessTokenNotProvided(response);
             return;
         }
 
@@ -100,44 +103,32 @@ public class JwtRequestFilter extends OncePerRequestFilter {
             logger.debug("Access token: {}", access_token);
         }
 
-        List<String> authorities = null;
-        String username = null;
+        VerifiedToken verifiedToken;
 
         try {
 
-            if (cookie_name.equals("taskmanager_access_token") && jwtService.validateToken(access_token) ||
-                    cookie_name.equals("mfa_access_token") && jwtService.validate2faToken(access_token)) {
-
-                authorities = jwtService.extractAuthorities(access_token);
-                username = jwtService.extractUser(access_token);
-
-                if (logger.isDebugEnabled()) {
-                    logger.debug("Username: {}, Authorities: {}", username, authorities);
-                }
+            verifiedToken = jwtService.verify(access_token, tokenType);
 
-            }
+        } catch (InvalidJwtException exception) {
 
-        } catch (IndexOutOfBoundsException exception) {
-
-            exceptionManager.handleJwtNotProvidedException(
-                    new JwtNotProvidedException("Access token is not valid."),
-                    response
-            );
+            exceptionManager.handleInvalidAccessToken(response);
 
             return;
 
-        } catch (InvalidJwtException exception) {
+        }
 
-            exceptionManager.handleInvalidJwtException(
-                    new InvalidJwtException("Access token is invalid or expired."),
-                    response
-            );
+        String username = verifiedToken.subject();
+        List<String> authorities = verifiedToken.authorities();
 
-            return;
+        if (logger.isDebugEnabled()) {
+            logger.debug("Username: {}, Authorities: {}", username, authorities);
+        }
 
+        if (tokenType == TokenType.ACCESS) {
+            lastAccessTracker.record(username);
         }
 
-        if (username != null && authorities != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
 
             UserDetails userDetails = userService.loadUserByJWT(username, authorities);
 
@@ -170,12 +161,33 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
     }
 
-    private boolean isPermitAllPath(String servletPath) {
-        return SecurityConfig.permitAllPaths.contains(servletPath);
-    }
+    /**
+     * Find a cookie in the Cookie header. Clients send one header, but HTTP/2 allows one per cookie, so the other
+     * headers are only looked at when the first lacks the cookie.
+     * @param request The request
+     * @param firstHeader The request's first Cookie header
+     * @param name The cookie name
+     * @return (String) The cookie's value, or null if the request does not have it
+     */
+    private static String findCookie(HttpServletRequest request, String firstHeader, String name) {
+
+        String value = CookieHeader.value(firstHeader, name);
+
+        if (value != null) {
+            return value;
+        }
+
+        Enumeration<String> headers = request.getHeaders(HttpHeaders.COOKIE);
+
+        while (headers != null && headers.hasMoreElements()) {
+            value = CookieHeader.value(headers.nextElement(), name);
+            if (value != null) {
+                return value;
+            }
+        }
+
+        return null;
 
-    private boolean isMfaPath(String servletPath) {
-        return SecurityConfig.mfaPath.contains(servletPath);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package com.example.taskmanagerauth.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Sends connections of read-only transactions to the replica and everything else to the primary.
+ * Falls back to the primary while the replica lags or is down, and when it fails to hand out a connection.
+ * Must be wrapped in a LazyConnectionDataSourceProxy, so the connection is only picked once the transaction's
+ * read-only flag is known.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    private enum Target { PRIMARY, REPLICA }
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaLagMonitor monitor;
+
+    private final Counter primaryConnections;
+    private final Counter replicaConnections;
+    private final Counter fallbacks;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor monitor, MeterRegistry meterRegistry) {
+
+        this.primary = primary;
+        this.replica = replica;
+        this.monitor = monitor;
+
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+
+        this.primaryConnections = Counter.builder("datasource.routing.connections")
+                .description("Connections handed out by the routing data source")
+                .tag("target", "primary")
+                .register(meterRegistry);
+        this.replicaConnections = Counter.builder("datasource.routing.connections")
+                .description("Connections handed out by the routing data source")
+                .tag("target", "replica")
+                .register(meterRegistry);
+        this.fallbacks = Counter.builder("datasource.routing.fallbacks")
+                .description("Read-only connections taken from the primary because the replica failed to provide one")
+                .register(meterRegistry);
+
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && monitor.isReplicaUsable()
+                ? Target.REPLICA
+                : Target.PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+
+        if (determineCurrentLookupKey() == Target.PRIMARY) {
+            primaryConnections.increment();
+            return primary.getConnection();
+        }
+
+        try {
+            Connection connection = replica.getConnection();
+            replicaConnections.increment();
+            return connection;
+        } catch (SQLException | RuntimeException exception) {
+            monitor.markUnusable(exception.getMessage());
+            fallbacks.increment();
+            primaryConnections.increment();
+            return primary.getConnection();
+        }
+
+    }
+
+}
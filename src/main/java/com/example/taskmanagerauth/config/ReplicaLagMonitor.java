@@ -0,0 +1,104 @@
+package com.example.taskmanagerauth.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Decides whether the replica may serve reads. The primary's heartbeat row is stamped on every check and read back
+ * from the replica; the replica is only used while that heartbeat is at most max-lag old and the replica answers.
+ * The replica is considered unusable until the first check succeeds.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private static final String WRITE_HEARTBEAT = "UPDATE replication_heartbeat SET beat = ? WHERE id = 1";
+    private static final String READ_HEARTBEAT = "SELECT beat FROM replication_heartbeat WHERE id = 1";
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final Duration maxLag;
+
+    private volatile boolean usable = false;
+    private volatile Duration lag = null;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, Duration maxLag, MeterRegistry meterRegistry) {
+
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.maxLag = maxLag;
+
+        Gauge.builder("datasource.replica.lag", this, monitor -> monitor.lag == null ? Double.NaN : monitor.lag.toMillis() / 1000.0)
+                .description("Age of the primary heartbeat as last seen on the replica")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("datasource.replica.usable", this, monitor -> monitor.usable ? 1 : 0)
+                .description("Whether read-only transactions are currently sent to the replica")
+                .register(meterRegistry);
+
+    }
+
+    @Scheduled(
+            initialDelayString = "${datasource-routing.check-interval:1s}",
+            fixedDelayString = "${datasource-routing.check-interval:1s}"
+    )
+    public void check() {
+
+        try {
+            primary.update(WRITE_HEARTBEAT, Timestamp.valueOf(LocalDateTime.now()));
+        } catch (RuntimeException exception) {
+            // Without a fresh heartbeat the lag reads high and routes reads to the primary, which is the safe side
+            logger.warn("Failed to write the replication heartbeat: {}", exception.getMessage());
+        }
+
+        try {
+
+            Timestamp beat = replica.queryForObject(READ_HEARTBEAT, Timestamp.class);
+
+            // Heartbeats from other instances count too, so clock skew between instances shows up as lag
+            lag = beat == null ? null : Duration.between(beat.toLocalDateTime(), LocalDateTime.now());
+            update(lag != null && lag.compareTo(maxLag) <= 0, lag == null ? "no heartbeat" : "lag of " + lag.toMillis() + "ms");
+
+        } catch (RuntimeException exception) {
+            lag = null;
+            update(false, exception.getMessage());
+        }
+
+    }
+
+    /**
+     * Stop using the replica until the next successful check, e.g. after it refused a connection
+     * @param reason Why the replica is unusable, for the log
+     */
+    public void markUnusable(String reason) {
+        update(false, reason);
+    }
+
+    private void update(boolean nowUsable, String reason) {
+
+        if (usable != nowUsable) {
+            if (nowUsable) {
+                logger.info("Routing read-only transactions to the replica ({})", reason);
+            } else {
+                logger.warn("Routing read-only transactions to the primary: {}", reason);
+            }
+        }
+
+        usable = nowUsable;
+
+    }
+
+    public boolean isReplicaUsable() {
+        return usable;
+    }
+
+}
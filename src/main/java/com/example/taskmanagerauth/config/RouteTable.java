@@ -0,0 +1,57 @@
+package com.example.taskmanagerauth.config;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Which token, if any, a servlet path requires. Built once from SecurityConfig's path lists and looked up by exact
+ * match on every request; paths that are not listed require an access token.
+ */
+public final class RouteTable {
+
+    public enum Route {
+        PUBLIC,
+        MFA,
+        ACCESS
+    }
+
+    private final Map<String, Route> routes;
+
+    public RouteTable(Collection<String> publicPaths, Collection<String> mfaPaths) {
+
+        Map<String, Route> routes = new HashMap<>();
+
+        mfaPaths.forEach(path -> routes.put(path, Route.MFA));
+
+        // A path that is both stays public, as it was when the lists were checked in turn
+        publicPaths.forEach(path -> routes.put(path, Route.PUBLIC));
+
+        this.routes = Map.copyOf(routes);
+
+    }
+
+    /**
+     * The table for the paths configured in SecurityConfig
+     * @return (RouteTable) The route table
+     */
+    public static RouteTable fromSecurityConfig() {
+
+        Collection<String> publicPaths = new ArrayList<>(SecurityConfig.permitAllPaths);
+        publicPaths.addAll(SecurityConfig.publicGetPaths);
+
+        return new RouteTable(publicPaths, SecurityConfig.mfaPath);
+
+    }
+
+    /**
+     * Classify a request
+     * @param servletPath The request's servlet path
+     * @return (Route) The route, ACCESS for any path that is not listed
+     */
+    public Route classify(String servletPath) {
+        return servletPath == null ? Route.ACCESS : routes.getOrDefault(servletPath, Route.ACCESS);
+    }
+
+}
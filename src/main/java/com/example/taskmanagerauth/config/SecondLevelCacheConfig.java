@@ -0,0 +1,54 @@
+package com.example.taskmanagerauth.config;
+
+import com.github.benmanes.caffeine.jcache.CacheManagerImpl;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.Properties;
+
+@Configuration
+public class SecondLevelCacheConfig {
+
+    /**
+     * Hands Hibernate a cache manager of its own rather than the provider's, which every session factory in the JVM
+     * naming the same configuration shares. Test contexts on different databases then keep separate regions under
+     * the names hibernate-jcache.conf configures. Hibernate closes the manager along with the session factory.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheManagerCustomizer(
+            @Value("${spring.jpa.properties.hibernate.javax.cache.provider}") String provider,
+            @Value("${spring.jpa.properties.hibernate.javax.cache.uri}") String uri
+    ) {
+        return properties -> {
+
+            CachingProvider cachingProvider = Caching.getCachingProvider(provider);
+
+            properties.put(ConfigSettings.CACHE_MANAGER, new CacheManagerImpl(
+                    cachingProvider,
+                    false,
+                    resolve(uri),
+                    cachingProvider.getDefaultClassLoader(),
+                    new Properties()
+            ));
+
+        };
+    }
+
+    private static URI resolve(String uri) {
+        try {
+            return new ClassPathResource(uri).getURI();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+}
@@ -33,7 +33,12 @@ public class SecurityConfig {
 
     public static List<String> permitAllPaths = List.of(
             "/auth/register",
-            "/auth/login"
+            "/auth/login",
+            "/auth/refresh"
+    );
+
+    public static List<String> publicGetPaths = List.of(
+            "/auth/.well-known/jwks.json"
     );
 
     public static List<String> mfaPath = List.of(
@@ -48,6 +53,7 @@ public class SecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(HttpMethod.POST, permitAllPaths.toArray(new String[0])).permitAll()
+                        .requestMatchers(HttpMethod.GET, publicGetPaths.toArray(new String[0])).permitAll()
                         .anyRequest().authenticated()
                 );
         http.authenticationProvider(daoAuthenticationProvider());
@@ -0,0 +1,47 @@
+package com.example.taskmanagerauth.controller;
+
+import com.example.taskmanagerauth.service.JwtService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+public class JwksController {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwksController.class);
+
+    @Autowired
+    private JwtService jwtService;
+
+    // Keep this well below how long a retired key stays accepted, so consumers pick up rotations in time
+    @Value("${jwt.jwks.max-age:5m}")
+    private Duration maxAge;
+
+    /**
+     * Publish the public keys that verify access tokens, in the standard JWKS format rather than an ApiResponse
+     * so that JWT libraries can consume it directly. Empty in HMAC mode.
+     */
+    @GetMapping("/auth/.well-known/jwks.json")
+    public ResponseEntity<Map<String, List<Map<String, Object>>>> jwks() {
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Serving the JSON Web Key Set.");
+        }
+
+        return ResponseEntity.status(HttpStatus.OK)
+                .cacheControl(CacheControl.maxAge(maxAge).cachePublic())
+                .body(Map.of("keys", jwtService.getAccessKeys().getPublicJwks()));
+
+    }
+
+}
@@ -7,10 +7,14 @@ import com.example.taskmanagerauth.dto.responses.LoginResult;
 import com.example.taskmanagerauth.dto.responses.MfaRequired;
 import com.example.taskmanagerauth.dto.responses.Success;
 import com.example.taskmanagerauth.dto.responses.TotpRequired;
+import com.example.taskmanagerauth.dto.token.RotatedRefreshToken;
 import com.example.taskmanagerauth.entity.User;
+import com.example.taskmanagerauth.service.LoginRateLimiter;
 import com.example.taskmanagerauth.service.MfaService;
+import com.example.taskmanagerauth.service.RefreshTokenService;
 import com.example.taskmanagerauth.service.UserService;
 import com.example.taskmanagerauth.service.JwtService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,6 +22,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.CookieValue;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -37,6 +42,12 @@ public class UserController {
     @Autowired
     private MfaService mfaService;
 
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
     @GetMapping("/auth/validate")
     public ResponseEntity<ApiResponse<Void>> validate() {
 
@@ -67,9 +78,10 @@ public class UserController {
 
         logger.info("POST HTTP request received at /api/auth/register");
 
-        User user = userService.createDatabaseUser(registerRequest.getUsername(), registerRequest.getPassword());
+        // Spares the password hash when the username filter knows the name may be taken; ux_users_username decides
+        userService.checkUsernameAvailable(registerRequest.getUsername());
 
-        userService.checkIfUserExists(user);
+        User user = userService.createDatabaseUser(registerRequest.getUsername(), registerRequest.getPassword());
         mfaService.instantiateMfaForUser(user);
         userService.saveUser(user);
 
@@ -86,6 +98,7 @@ public class UserController {
     @PostMapping("/auth/login")
     public ResponseEntity<ApiResponse<Void>> login(
             @RequestBody LoginRequest loginRequest,
+            HttpServletRequest httpServletRequest,
             HttpServletResponse httpServletResponse
     ) {
 
@@ -95,6 +108,9 @@ public class UserController {
 
         logger.info("POST HTTP request received at /api/auth/login");
 
+        // Before any query or hashing, so throttled attempts cost next to nothing
+        loginRateLimiter.acquire(httpServletRequest.getRemoteAddr(), loginRequest.getUsername());
+
         // Process user
         LoginResult result = userService.login(loginRequest);
 
@@ -105,6 +121,11 @@ public class UserController {
                                 success.userDetails()
                         )
                 );
+                httpServletResponse.addCookie(
+                        refreshTokenService.generateRefreshCookie(
+                                refreshTokenService.issue(Long.parseLong(success.userDetails().getUsername()))
+                        )
+                );
                 yield ResponseEntity.status(HttpStatus.OK).body(
                         ApiResponse.of(
                                 HttpStatus.OK.value(),
@@ -146,4 +167,32 @@ public class UserController {
 
     }
 
+    @PostMapping("/auth/refresh")
+    public ResponseEntity<ApiResponse<Void>> refresh(
+            @CookieValue(name = RefreshTokenService.REFRESH_COOKIE_NAME, required = false) String refreshToken,
+            HttpServletResponse httpServletResponse
+    ) {
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Attempting to refresh the access token...");
+        }
+
+        logger.info("POST HTTP request received at /api/auth/refresh");
+
+        RotatedRefreshToken rotated = refreshTokenService.rotate(refreshToken);
+        UserDetails userDetails = userService.createUserDetails(rotated.user());
+
+        httpServletResponse.addCookie(jwtService.generateJwtCookie(userDetails));
+        httpServletResponse.addCookie(refreshTokenService.generateRefreshCookie(rotated.token()));
+
+        ApiResponse<Void> response = ApiResponse.of(
+                HttpStatus.OK.value(),
+                "Success",
+                null
+        );
+
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+
+    }
+
 }
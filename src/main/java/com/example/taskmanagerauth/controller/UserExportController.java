@@ -0,0 +1,53 @@
+package com.example.taskmanagerauth.controller;
+
+import com.example.taskmanagerauth.service.RoleRegistry;
+import com.example.taskmanagerauth.service.UserExportService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+@RestController
+public class UserExportController {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserExportController.class);
+
+    @Autowired
+    private UserExportService userExportService;
+
+    /**
+     * Stream every user as NDJSON. The body is written straight to the response without a content length,
+     * so it is sent chunked as the users are read.
+     */
+    @PreAuthorize("hasAuthority('" + RoleRegistry.ADMIN + "')")
+    @GetMapping("/auth/admin/users/export")
+    public void exportUsers(HttpServletResponse response) throws IOException {
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Attempting to export users...");
+        }
+
+        logger.info("GET HTTP request received at /api/auth/admin/users/export");
+
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(
+                HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename("users.ndjson").build().toString()
+        );
+
+        userExportService.exportUsers(response.getOutputStream());
+
+    }
+
+}
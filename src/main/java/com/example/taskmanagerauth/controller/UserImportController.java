@@ -0,0 +1,64 @@
+package com.example.taskmanagerauth.controller;
+
+import com.example.taskmanagerauth.dto.imports.UserImportFormat;
+import com.example.taskmanagerauth.dto.imports.UserImportReport;
+import com.example.taskmanagerauth.dto.impl.ApiResponse;
+import com.example.taskmanagerauth.service.RoleRegistry;
+import com.example.taskmanagerauth.service.UserImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+@RestController
+public class UserImportController {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserImportController.class);
+
+    @Autowired
+    private UserImportService userImportService;
+
+    /**
+     * Create users from a CSV or NDJSON upload. The body is streamed straight from the request,
+     * so the size of the upload is not bounded by memory.
+     */
+    @PreAuthorize("hasAuthority('" + RoleRegistry.ADMIN + "')")
+    @PostMapping(value = "/auth/admin/users/import", consumes = { "text/csv", "application/x-ndjson" })
+    public ResponseEntity<ApiResponse<UserImportReport>> importUsers(HttpServletRequest request) throws IOException {
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Attempting to import users...");
+        }
+
+        logger.info("POST HTTP request received at /api/auth/admin/users/import");
+
+        Charset charset = request.getCharacterEncoding() == null
+                ? StandardCharsets.UTF_8
+                : Charset.forName(request.getCharacterEncoding());
+
+        UserImportReport report = userImportService.importUsers(
+                new InputStreamReader(request.getInputStream(), charset),
+                UserImportFormat.fromContentType(request.getContentType())
+        );
+
+        ApiResponse<UserImportReport> response = ApiResponse.of(
+                HttpStatus.OK.value(),
+                "Success",
+                report
+        );
+
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.example.taskmanagerauth.dto.credentials;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Read-only view of what a login needs from a user, loaded without hydrating the User entity
+ * @param id The user id
+ * @param password The encoded password
+ * @param roles The names of the user's roles
+ * @param mfaEnabled Whether the user completed the MFA setup
+ * @param mfaSecretKey The encrypted TOTP secret, may be null if no mfa row exists
+ */
+public record UserCredentials(Long id, String password, List<String> roles, boolean mfaEnabled, String mfaSecretKey) {
+
+    public UserCredentials {
+        roles = List.copyOf(roles);
+    }
+
+    /**
+     * Fold the rows of the credentials query, one per role, into a single view
+     * @param rows The rows of one user
+     * @return (UserCredentials) The credentials, or null if there are no rows
+     */
+    public static UserCredentials of(List<UserCredentialsRow> rows) {
+
+        if (rows.isEmpty()) {
+            return null;
+        }
+
+        UserCredentialsRow first = rows.getFirst();
+
+        return new UserCredentials(
+                first.id(),
+                first.password(),
+                rows.stream().map(UserCredentialsRow::role).filter(Objects::nonNull).distinct().toList(),
+                Boolean.TRUE.equals(first.mfaEnabled()),
+                first.mfaSecretKey()
+        );
+
+    }
+
+    public UserCredentials withPassword(String password) {
+        return new UserCredentials(id, password, roles, mfaEnabled, mfaSecretKey);
+    }
+
+}
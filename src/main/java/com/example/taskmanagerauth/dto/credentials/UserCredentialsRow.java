@@ -0,0 +1,11 @@
+package com.example.taskmanagerauth.dto.credentials;
+
+/**
+ * One row of the credentials query: the user joined with one of its roles and its mfa row
+ * @param id The user id
+ * @param password The encoded password
+ * @param role A role name, null if the user has no roles
+ * @param mfaEnabled Whether MFA is enabled, null if no mfa row exists
+ * @param mfaSecretKey The encrypted TOTP secret, null if no mfa row exists
+ */
+public record UserCredentialsRow(Long id, String password, String role, Boolean mfaEnabled, String mfaSecretKey) {}
@@ -0,0 +1,55 @@
+package com.example.taskmanagerauth.dto.exports;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A user as written by the export, one per line
+ * @param id The user id
+ * @param username The username
+ * @param password The encoded password
+ * @param lastAccessedAt When the user was last active, may be null
+ * @param roles The names of the user's roles
+ * @param mfaEnabled Whether the user completed the MFA setup, null if no mfa row exists
+ * @param mfaSecretKey The encrypted TOTP secret, null if no mfa row exists
+ */
+public record UserExport(
+        Long id,
+        String username,
+        String password,
+        LocalDateTime lastAccessedAt,
+        List<String> roles,
+        Boolean mfaEnabled,
+        String mfaSecretKey
+) {
+
+    /**
+     * Fold the rows of one user, one per role, into a single export
+     * @param rows The rows of one user, not empty
+     * @return (UserExport) The user
+     */
+    public static UserExport of(List<UserExportRow> rows) {
+
+        UserExportRow first = rows.getFirst();
+        List<String> roles = new ArrayList<>(rows.size());
+
+        for (UserExportRow row : rows) {
+            if (row.role() != null && !roles.contains(row.role())) {
+                roles.add(row.role());
+            }
+        }
+
+        return new UserExport(
+                first.id(),
+                first.username(),
+                first.password(),
+                first.lastAccessedAt(),
+                List.copyOf(roles),
+                first.mfaEnabled(),
+                first.mfaSecretKey()
+        );
+
+    }
+
+}
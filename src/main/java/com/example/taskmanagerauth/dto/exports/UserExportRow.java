@@ -0,0 +1,23 @@
+package com.example.taskmanagerauth.dto.exports;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of the export query: a user joined with one of its roles and its mfa row
+ * @param id The user id
+ * @param username The username
+ * @param password The encoded password
+ * @param lastAccessedAt When the user was last active, may be null
+ * @param role A role name, null if the user has no roles
+ * @param mfaEnabled Whether MFA is enabled, null if no mfa row exists
+ * @param mfaSecretKey The encrypted TOTP secret, null if no mfa row exists
+ */
+public record UserExportRow(
+        Long id,
+        String username,
+        String password,
+        LocalDateTime lastAccessedAt,
+        String role,
+        Boolean mfaEnabled,
+        String mfaSecretKey
+) {}
@@ -1,5 +1,7 @@
 package com.example.taskmanagerauth.dto.impl;
 
+import com.example.taskmanagerauth.util.CachedTimestamp;
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonFormat;
 
 import java.time.LocalDateTime;
@@ -16,17 +18,22 @@ public class ApiResponse<T> {
 
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    @JsonCreator
     public ApiResponse(int status, String message, T data, LocalDateTime timestamp) {
+        this(status, message, data, timestamp.format(FORMATTER));
+    }
+
+    private ApiResponse(int status, String message, T data, String timestamp) {
         this.status = status;
         this.message = message;
         this.data = data;
-        this.timestamp = timestamp.format(FORMATTER);
+        this.timestamp = timestamp;
     }
 
     // Factories
 
     public static <T> ApiResponse<T> of(int status, String message, T data) {
-        return new ApiResponse<>(status, message, data, LocalDateTime.now());
+        return new ApiResponse<>(status, message, data, CachedTimestamp.system().text());
     }
 
     public static <T> ApiResponse<T> of(int status, String message, T data, LocalDateTime timestamp) {
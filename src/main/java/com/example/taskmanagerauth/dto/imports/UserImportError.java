@@ -0,0 +1,9 @@
+package com.example.taskmanagerauth.dto.imports;
+
+/**
+ * A user that was not imported
+ * @param line The line of the import file holding the user
+ * @param username The username, null if the line could not be parsed
+ * @param reason Why the user was not imported
+ */
+public record UserImportError(long line, String username, String reason) {}
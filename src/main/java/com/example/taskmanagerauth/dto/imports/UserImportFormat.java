@@ -0,0 +1,45 @@
+package com.example.taskmanagerauth.dto.imports;
+
+import org.springframework.http.MediaType;
+
+/**
+ * The file formats accepted by the bulk import, one user per line
+ */
+public enum UserImportFormat {
+
+    /** username,password with an optional header line; fields may be double-quoted */
+    CSV("text/csv"),
+
+    /** {"username": "...", "password": "..."} */
+    NDJSON("application/x-ndjson");
+
+    private final String mediaType;
+
+    UserImportFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * @param contentType The Content-Type of the upload
+     * @return (UserImportFormat) The matching format
+     * @throws IllegalArgumentException If no format matches
+     */
+    public static UserImportFormat fromContentType(String contentType) {
+
+        MediaType type = MediaType.parseMediaType(contentType);
+
+        for (UserImportFormat format : values()) {
+            if (type.isCompatibleWith(MediaType.parseMediaType(format.mediaType))) {
+                return format;
+            }
+        }
+
+        throw new IllegalArgumentException("Unsupported import format: " + contentType);
+
+    }
+
+}
@@ -0,0 +1,11 @@
+package com.example.taskmanagerauth.dto.imports;
+
+import java.util.List;
+
+/**
+ * The outcome of a bulk import
+ * @param imported The number of users created
+ * @param failed The number of users that were not created
+ * @param errors Why users were not created, in file order; capped, so it may hold fewer entries than failed
+ */
+public record UserImportReport(long imported, long failed, List<UserImportError> errors) {}
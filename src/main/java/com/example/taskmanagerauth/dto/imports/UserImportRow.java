@@ -0,0 +1,20 @@
+package com.example.taskmanagerauth.dto.imports;
+
+/**
+ * One user read from an import file
+ * @param line The line of the file the user was read from, starting at 1
+ * @param username The username, may be null if the line could not be parsed
+ * @param password The raw password, may be null if the line could not be parsed
+ * @param error Why the line could not be parsed, null if it was
+ */
+public record UserImportRow(long line, String username, String password, String error) {
+
+    public static UserImportRow of(long line, String username, String password) {
+        return new UserImportRow(line, username, password, null);
+    }
+
+    public static UserImportRow invalid(long line, String error) {
+        return new UserImportRow(line, null, null, error);
+    }
+
+}
@@ -0,0 +1,10 @@
+package com.example.taskmanagerauth.dto.responses;
+
+/**
+ * Outcome of checking a login's one time password, other than a wrong one, which is an error
+ */
+public enum TotpCheck {
+    PASSED,
+    MFA_NOT_ENABLED,
+    TOTP_NOT_PROVIDED
+}
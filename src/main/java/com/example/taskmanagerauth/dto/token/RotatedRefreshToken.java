@@ -0,0 +1,10 @@
+package com.example.taskmanagerauth.dto.token;
+
+import com.example.taskmanagerauth.entity.User;
+
+/**
+ * The result of a successful refresh
+ * @param user The owner of the refresh token
+ * @param token The raw refresh token replacing the one that was presented
+ */
+public record RotatedRefreshToken(User user, String token) {}
@@ -0,0 +1,18 @@
+package com.example.taskmanagerauth.dto.token;
+
+public enum TokenType {
+
+    ACCESS("taskmanager_access_token"),
+    MFA("mfa_access_token");
+
+    private final String cookieName;
+
+    TokenType(String cookieName) {
+        this.cookieName = cookieName;
+    }
+
+    public String getCookieName() {
+        return cookieName;
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.example.taskmanagerauth.dto.token;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The claims of a token whose signature and expiry have been checked
+ * @param subject The user id the token was issued to
+ * @param authorities The authorities granted to the user
+ * @param expiresAt When the token stops being valid
+ * @param type Whether this is an access or a 2FA token
+ */
+public record VerifiedToken(String subject, List<String> authorities, Instant expiresAt, TokenType type) {
+
+    public VerifiedToken {
+        authorities = List.copyOf(authorities);
+    }
+
+}
@@ -2,16 +2,21 @@ package com.example.taskmanagerauth.entity;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "mfa")
 @Table(name = "mfa")
 public class Mfa {
 
+    // Shares the user's id, so User.mfa is resolved by primary key and can be served from the second-level cache
     @Id
-    @SequenceGenerator(name = "mfa_seq", sequenceName = "mfa_seq", allocationSize = 1)
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "mfa_seq")
+    @Column(name = "user_id")
     private Long id;
 
+    @MapsId
     @OneToOne
     @JoinColumn(name = "user_id", referencedColumnName = "id")
     @JsonBackReference
@@ -0,0 +1,120 @@
+package com.example.taskmanagerauth.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(
+        name = "refresh_tokens",
+        indexes = {
+                @Index(name = "ux_refresh_tokens_token_hash", columnList = "tokenHash", unique = true),
+                @Index(name = "ix_refresh_tokens_family_id", columnList = "familyId"),
+                @Index(name = "ix_refresh_tokens_expires_at", columnList = "expiresAt")
+        }
+)
+public class RefreshToken {
+
+    @Id
+    @SequenceGenerator(name = "refresh_token_seq", sequenceName = "refresh_token_seq", allocationSize = 50)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "refresh_token_seq")
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", referencedColumnName = "id", nullable = false)
+    private User user;
+
+    // SHA-256 of the token; the raw token only ever lives in the client's cookie
+    @Column(name = "tokenHash", nullable = false, length = 64)
+    private String tokenHash;
+
+    // Every token rotated from the same login shares a family, so a replayed token can revoke all of them
+    @Column(name = "familyId", nullable = false, length = 36)
+    private String familyId;
+
+    @Column(name = "expiresAt", nullable = false)
+    private Instant expiresAt;
+
+    @Column(name = "used", nullable = false)
+    private Boolean used;
+
+    @Column(name = "revoked", nullable = false)
+    private Boolean revoked;
+
+    public RefreshToken() {}
+
+    public RefreshToken(Long id, User user, String tokenHash, String familyId, Instant expiresAt, Boolean used, Boolean revoked) {
+        this.id = id;
+        this.user = user;
+        this.tokenHash = tokenHash;
+        this.familyId = familyId;
+        this.expiresAt = expiresAt;
+        this.used = used;
+        this.revoked = revoked;
+    }
+
+    // Factory
+
+    public static RefreshToken of(User user, String tokenHash, String familyId, Instant expiresAt) {
+        return new RefreshToken(null, user, tokenHash, familyId, expiresAt, false, false);
+    }
+
+    // Getters & Setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public String getTokenHash() {
+        return tokenHash;
+    }
+
+    public void setTokenHash(String tokenHash) {
+        this.tokenHash = tokenHash;
+    }
+
+    public String getFamilyId() {
+        return familyId;
+    }
+
+    public void setFamilyId(String familyId) {
+        this.familyId = familyId;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public Boolean getUsed() {
+        return used;
+    }
+
+    public void setUsed(Boolean used) {
+        this.used = used;
+    }
+
+    public Boolean getRevoked() {
+        return revoked;
+    }
+
+    public void setRevoked(Boolean revoked) {
+        this.revoked = revoked;
+    }
+
+}
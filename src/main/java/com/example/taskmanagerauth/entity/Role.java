@@ -1,13 +1,20 @@
 package com.example.taskmanagerauth.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
-@Table(name = "roles")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "roles")
+@Table(
+        name = "roles",
+        indexes = @Index(name = "ux_roles_name", columnList = "name", unique = true)
+)
 public class Role {
 
     @Id
-    @SequenceGenerator(name = "role_seq", sequenceName = "role_seq", allocationSize = 1)
+    @SequenceGenerator(name = "role_seq", sequenceName = "role_seq", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "role_seq")
     Long id;
 
@@ -20,6 +27,11 @@ public class Role {
         this.name = name;
     }
 
+    public Role(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
     public static Role of(String name) {
         return new Role(name);
     }
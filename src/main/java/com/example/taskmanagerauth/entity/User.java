@@ -2,34 +2,49 @@ package com.example.taskmanagerauth.entity;
 
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.time.LocalDateTime;
 import java.util.Set;
 
 @Entity
-@Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@NaturalIdCache(region = "users-natural-id")
+@Table(
+        name = "users",
+        indexes = @Index(name = "ux_users_username", columnList = "username", unique = true)
+)
 public class User {
 
     @Id
-    @SequenceGenerator(name = "user_seq", sequenceName = "user_seq", allocationSize = 1)
+    @SequenceGenerator(name = "user_seq", sequenceName = "user_seq", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_seq")
     private Long id;
 
+    // Written by LastAccessTracker only, so a cached copy of the user can never save a stale value over it
     @Temporal(TemporalType.TIMESTAMP)
-    @Column(name = "lastAccessedAt")
+    @Column(name = "lastAccessedAt", updatable = false)
     private LocalDateTime lastAccessedAt;
 
+    @NaturalId
     @Column(name = "username", nullable = false)
     private String username;
 
     @Column(name = "password", nullable = false)
     private String password;
 
-    @ManyToMany(fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+    // Roles are shared rows, attached through RoleRegistry; never cascade to them
+    @ManyToMany(fetch = FetchType.EAGER)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user-roles")
     @JoinTable(
             name = "user_roles",
             joinColumns = @JoinColumn(name = "user_id"),
-            inverseJoinColumns = @JoinColumn(name = "role_id")
+            inverseJoinColumns = @JoinColumn(name = "role_id"),
+            indexes = @Index(name = "ix_user_roles_user_id", columnList = "user_id")
     )
     private Set<Role> roles;
 
@@ -52,8 +67,8 @@ public class User {
         this.roles = roles;
     }
 
-    public static User of(String username, String password) {
-        return new User(null, username, password, Set.of(Role.of("USER")));
+    public static User of(String username, String password, Set<Role> roles) {
+        return new User(null, username, password, roles);
     }
 
     public Long getId() {
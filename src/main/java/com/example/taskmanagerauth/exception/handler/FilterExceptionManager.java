@@ -1,105 +1,107 @@
 package com.example.taskmanagerauth.exception.handler;
 
-import com.example.taskmanagerauth.dto.impl.ApiResponse;
-import com.example.taskmanagerauth.exception.server.ExpiredJwtException;
-import com.example.taskmanagerauth.exception.server.InvalidCredentialsException;
-import com.example.taskmanagerauth.exception.server.InvalidJwtException;
-import com.example.taskmanagerauth.exception.server.JwtNotProvidedException;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.taskmanagerauth.util.CachedTimestamp;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 public class FilterExceptionManager {
 
-    private static final ObjectMapper mapper = new ObjectMapper();
     private static final Logger logger = LoggerFactory.getLogger(FilterExceptionManager.class);
 
-    private void writeToResponse(HttpServletResponse response, ApiResponse<String> apiResponse) {
+    private static final String JWT_NOT_PROVIDED = "Bad Request: Please provide your access token for authentication.";
+    private static final String INVALID_JWT = "Bad Request: Your access token is invalid.";
 
-        response.setStatus(apiResponse.getStatus());
-        response.setContentType("application/json");
+    /**
+     * An ApiResponse body with a fixed status, message and data, serialized once up to the timestamp
+     */
+    private record PreparedResponse(int status, byte[] head) {
 
-        try {
-            response.getWriter().write(mapper.writeValueAsString(apiResponse));
-        } catch (JsonProcessingException jsonProcessingException) {
-            logger.error("JsonProcessingException error: {}", jsonProcessingException.getMessage());
-        } catch (IOException ioException) {
-            logger.error("IOException error: {}", ioException.getMessage());
-        }
+        private static final byte[] TAIL = "\"}".getBytes(StandardCharsets.UTF_8);
 
-    }
+        static PreparedResponse of(int status, String message, String data) {
 
-    public void handleInvalidCredentialsException(
-            InvalidCredentialsException exception,
-            HttpServletResponse response
-    ) {
+            JsonStringEncoder encoder = JsonStringEncoder.getInstance();
 
-        String message = "Bad Request: Please provide valid credentials.";
+            String head = "{\"status\":" + status
+                    + ",\"message\":\"" + new String(encoder.quoteAsString(message))
+                    + "\",\"data\":\"" + new String(encoder.quoteAsString(data))
+                    + "\",\"timestamp\":\"";
 
-        ApiResponse<String> apiResponse = ApiResponse.of(
-                HttpStatus.BAD_REQUEST.value(),
-                message,
-                exception.getMessage()
-        );
+            return new PreparedResponse(status, head.getBytes(StandardCharsets.UTF_8));
 
-        writeToResponse(response, apiResponse);
+        }
 
     }
 
-    public void handleJwtNotProvidedException(
-            JwtNotProvidedException exception,
-            HttpServletResponse response
-    ) {
-
-        String message = "Bad Request: Please provide your access token for authentication.";
-
-        ApiResponse<String> apiResponse = ApiResponse.of(
-                HttpStatus.BAD_REQUEST.value(),
-                message,
-                exception.getMessage()
-        );
-
-        writeToResponse(response, apiResponse);
+    // The rejections JwtRequestFilter makes on every bad request, which never vary but for the time
+    private static final PreparedResponse NO_TOKENS = PreparedResponse.of(
+            HttpStatus.BAD_REQUEST.value(), JWT_NOT_PROVIDED, "No tokens were provided."
+    );
+    private static final PreparedResponse ACCESS_TOKEN_NOT_PROVIDED = PreparedResponse.of(
+            HttpStatus.BAD_REQUEST.value(), JWT_NOT_PROVIDED, "Access token not provided."
+    );
+    private static final PreparedResponse INVALID_ACCESS_TOKEN = PreparedResponse.of(
+            HttpStatus.BAD_REQUEST.value(), INVALID_JWT, "Access token is invalid or expired."
+    );
+
+    private final CachedTimestamp timestamp;
+
+    public FilterExceptionManager() {
+        this(CachedTimestamp.system());
+    }
 
+    public FilterExceptionManager(CachedTimestamp timestamp) {
+        this.timestamp = timestamp;
     }
 
-    public void handleInvalidJwtException(
-            InvalidJwtException exception,
-            HttpServletResponse response
-    ) {
+    private void writeToResponse(HttpServletResponse response, PreparedResponse prepared) {
 
-        String message = "Bad Request: Your access token is invalid.";
+        byte[] time = timestamp.bytes();
 
-        ApiResponse<String> apiResponse = ApiResponse.of(
-                HttpStatus.BAD_REQUEST.value(),
-                message,
-                exception.getMessage()
-        );
+        response.setStatus(prepared.status());
+        response.setContentType("application/json");
+        response.setContentLength(prepared.head().length + time.length + PreparedResponse.TAIL.length);
 
-        writeToResponse(response, apiResponse);
+        try {
+            ServletOutputStream output = response.getOutputStream();
+            output.write(prepared.head());
+            output.write(time);
+            output.write(PreparedResponse.TAIL);
+        } catch (IOException ioException) {
+            logger.error("IOException error: {}", ioException.getMessage());
+        }
 
     }
 
-    public void handleExpiredJwtException(
-            ExpiredJwtException exception,
-            HttpServletResponse response
-    ) {
-
-        String message = "Bad Request: Your access token is expired.";
-
-        ApiResponse<String> apiResponse = ApiResponse.of(
-                460, // Custom code for an expired access token
-                message,
-                exception.getMessage()
-        );
+    /**
+     * Reject a request that has no Cookie header
+     * @param response The response to write to
+     */
+    public void handleNoTokens(HttpServletResponse response) {
+        writeToResponse(response, NO_TOKENS);
+    }
 
-        writeToResponse(response, apiResponse);
+    /**
+     * Reject a request whose cookies lack the token the path requires
+     * @param response The response to write to
+     */
+    public void handleAccessTokenNotProvided(HttpServletResponse response) {
+        writeToResponse(response, ACCESS_TOKEN_NOT_PROVIDED);
+    }
 
+    /**
+     * Reject a request whose token is invalid, expired or of the wrong type
+     * @param response The response to write to
+     */
+    public void handleInvalidAccessToken(HttpServletResponse response) {
+        writeToResponse(response, INVALID_ACCESS_TOKEN);
     }
 
 }
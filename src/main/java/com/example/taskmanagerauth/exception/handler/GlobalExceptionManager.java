@@ -2,6 +2,7 @@ package com.example.taskmanagerauth.exception.handler;
 
 import com.example.taskmanagerauth.dto.impl.ApiResponse;
 import com.example.taskmanagerauth.exception.server.*;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -41,8 +42,6 @@ public class GlobalExceptionManager {
 
     }
 
-
-
     @ExceptionHandler(InvalidCredentialsException.class)
     public ResponseEntity<ApiResponse<String>> handleInvalidCredentialsException(InvalidCredentialsException exception) {
 
@@ -103,33 +102,33 @@ public class GlobalExceptionManager {
 
     }
 
-    @ExceptionHandler(TotpNotProvidedException.class)
-    public ResponseEntity<ApiResponse<String>> handleTotpNotProvidedException(TotpNotProvidedException exception) {
+    @ExceptionHandler(InvalidRefreshTokenException.class)
+    public ResponseEntity<ApiResponse<String>> handleInvalidRefreshTokenException(InvalidRefreshTokenException exception) {
 
-        String message = "Bad Request: One time password not provided.";
+        String message = "Unauthorized: Please log in again.";
 
         ApiResponse<String> response = ApiResponse.of(
-                462, // Custom code for requiring TOTP
+                HttpStatus.UNAUTHORIZED.value(),
                 message,
                 exception.getMessage()
         );
 
-        return ResponseEntity.status(HttpStatus.OK).body(response);
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
 
     }
 
-    @ExceptionHandler(MfaNotEnabledException.class)
-    public ResponseEntity<ApiResponse<String>> handleMfaNotEnabledException(MfaNotEnabledException exception) {
+    @ExceptionHandler(TotpNotProvidedException.class)
+    public ResponseEntity<ApiResponse<String>> handleTotpNotProvidedException(TotpNotProvidedException exception) {
 
-        String message = "Bad Request: Please set up MFA for your account.";
+        String message = "Bad Request: One time password not provided.";
 
-        ApiResponse<String> apiResponse = ApiResponse.of(
-                362, // Custom code for requiring TOTP
+        ApiResponse<String> response = ApiResponse.of(
+                462, // Custom code for requiring TOTP
                 message,
                 exception.getMessage()
         );
 
-        return ResponseEntity.status(HttpStatus.OK).body(apiResponse);
+        return ResponseEntity.status(HttpStatus.OK).body(response);
 
     }
 
@@ -148,6 +147,43 @@ public class GlobalExceptionManager {
 
     }
 
+    @ExceptionHandler(PasswordHashingUnavailableException.class)
+    public ResponseEntity<ApiResponse<String>> handlePasswordHashingUnavailableException(PasswordHashingUnavailableException exception) {
+
+        String message = "Service Unavailable: Please try again shortly.";
+
+        ApiResponse<String> response = ApiResponse.of(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                message,
+                exception.getMessage()
+        );
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, exception.getRetryAfter().toSeconds())))
+                .body(response);
+
+    }
+
+    @ExceptionHandler(LoginRateLimitedException.class)
+    public ResponseEntity<ApiResponse<String>> handleLoginRateLimitedException(LoginRateLimitedException exception) {
+
+        String message = "Too Many Requests: Please wait before logging in again.";
+
+        ApiResponse<String> response = ApiResponse.of(
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                message,
+                exception.getMessage()
+        );
+
+        // Rounded up, so a client that waits exactly this long finds a token
+        long retryAfterSeconds = Math.max(1, (exception.getRetryAfter().toMillis() + 999) / 1000);
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(response);
+
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<ApiResponse<String>> handleRuntimeException(RuntimeException exception) {
 
@@ -1,6 +1,6 @@
 package com.example.taskmanagerauth.exception.server;
 
-public class ExpiredJwtException extends RuntimeException {
+public class ExpiredJwtException extends ServerException {
     public ExpiredJwtException(String message) {
         super(message);
     }
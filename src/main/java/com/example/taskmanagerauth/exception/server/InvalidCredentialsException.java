@@ -1,6 +1,6 @@
 package com.example.taskmanagerauth.exception.server;
 
-public class InvalidCredentialsException extends RuntimeException {
+public class InvalidCredentialsException extends ServerException {
 
     public InvalidCredentialsException(String message) {
         super(message);
@@ -1,6 +1,6 @@
 package com.example.taskmanagerauth.exception.server;
 
-public class InvalidJwtException extends RuntimeException {
+public class InvalidJwtException extends ServerException {
     public InvalidJwtException(String message) {
         super(message);
     }
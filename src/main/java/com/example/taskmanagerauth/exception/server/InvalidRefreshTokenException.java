@@ -0,0 +1,7 @@
+package com.example.taskmanagerauth.exception.server;
+
+public class InvalidRefreshTokenException extends ServerException {
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+}
@@ -1,6 +1,6 @@
 package com.example.taskmanagerauth.exception.server;
 
-public class JwtNotProvidedException extends RuntimeException {
+public class JwtNotProvidedException extends ServerException {
     public JwtNotProvidedException(String message) {
         super(message);
     }
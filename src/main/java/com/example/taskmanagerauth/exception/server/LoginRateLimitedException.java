@@ -0,0 +1,18 @@
+package com.example.taskmanagerauth.exception.server;
+
+import java.time.Duration;
+
+public class LoginRateLimitedException extends ServerException {
+
+    private final Duration retryAfter;
+
+    public LoginRateLimitedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+}
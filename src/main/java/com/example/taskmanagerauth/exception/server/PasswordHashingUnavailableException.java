@@ -0,0 +1,18 @@
+package com.example.taskmanagerauth.exception.server;
+
+import java.time.Duration;
+
+public class PasswordHashingUnavailableException extends ServerException {
+
+    private final Duration retryAfter;
+
+    public PasswordHashingUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+}
@@ -0,0 +1,13 @@
+package com.example.taskmanagerauth.exception.server;
+
+/**
+ * Base of the exceptions that end up as an error response. They are thrown for bad client input, often many times a
+ * second under attack, and their handlers only read the message, so no stack trace is captured.
+ */
+public abstract class ServerException extends RuntimeException {
+
+    protected ServerException(String message) {
+        super(message, null, false, false);
+    }
+
+}
@@ -1,6 +1,6 @@
 package com.example.taskmanagerauth.exception.server;
 
-public class TotpInvalidException extends RuntimeException {
+public class TotpInvalidException extends ServerException {
     public TotpInvalidException(String message) {
         super(message);
     }
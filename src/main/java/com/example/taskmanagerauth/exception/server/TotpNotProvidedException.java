@@ -1,6 +1,6 @@
 package com.example.taskmanagerauth.exception.server;
 
-public class TotpNotProvidedException extends RuntimeException{
+public class TotpNotProvidedException extends ServerException {
     public TotpNotProvidedException(String message) {
         super(message);
     }
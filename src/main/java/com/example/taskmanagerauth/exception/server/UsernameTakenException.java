@@ -1,6 +1,6 @@
 package com.example.taskmanagerauth.exception.server;
 
-public class UsernameTakenException extends RuntimeException {
+public class UsernameTakenException extends ServerException {
 
     public UsernameTakenException(String message) {
         super(message);
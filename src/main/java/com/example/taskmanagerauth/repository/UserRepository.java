@@ -1,12 +1,98 @@
 package com.example.taskmanagerauth.repository;
 
+import com.example.taskmanagerauth.dto.credentials.UserCredentials;
+import com.example.taskmanagerauth.dto.credentials.UserCredentialsRow;
+import com.example.taskmanagerauth.dto.exports.UserExportRow;
 import com.example.taskmanagerauth.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+
+    /**
+     * Read-write, so it runs on the primary: a replica could still miss a user who just registered.
+     */
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByUsername(String username);
+
+    /**
+     * Load what a login needs in one statement, as plain rows: nothing is hydrated, managed or snapshotted.
+     * The rows are kept in the query cache until users, roles, user_roles or mfa are written on this instance; a
+     * change made on another instance is seen once they expire, see hibernate-jcache.conf. Read-write, so a miss
+     * runs on the primary and never on a replica, which could still hold the old password or MFA state.
+     * @param username The username
+     * @return (List) One row per role of the user, empty if the user does not exist
+     */
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("""
+            SELECT new com.example.taskmanagerauth.dto.credentials.UserCredentialsRow(
+                u.id, u.password, r.name, m.mfaEnabled, m.mfaSecretKey
+            )
+            FROM User u
+            LEFT JOIN u.roles r
+            LEFT JOIN u.mfa m
+            WHERE u.username = :username
+            """)
+    List<UserCredentialsRow> findCredentialRowsByUsername(@Param("username") String username);
+
+    default Optional<UserCredentials> findCredentialsByUsername(String username) {
+        return Optional.ofNullable(UserCredentials.of(findCredentialRowsByUsername(username)));
+    }
+
+    /**
+     * Read-write, so it runs on the primary: a replica could still miss a user who just registered.
+     */
+    @Transactional
+    boolean existsByUsername(String username);
+
+    /**
+     * Stream every username without loading the entities. Must be consumed inside a transaction.
+     * @return (Stream) The usernames, to be closed by the caller
+     */
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT u.username FROM User u")
+    Stream<String> streamAllUsernames();
+
+    /**
+     * Stream every user for an export, as plain rows in id order so each user's rows are adjacent.
+     * Nothing enters the persistence context, so memory stays flat however many users there are.
+     * Must be consumed inside a transaction.
+     * @return (Stream) One row per role of each user, to be closed by the caller
+     */
+    @Transactional(readOnly = true)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT new com.example.taskmanagerauth.dto.exports.UserExportRow(
+                u.id, u.username, u.password, u.lastAccessedAt, r.name, m.mfaEnabled, m.mfaSecretKey
+            )
+            FROM User u
+            LEFT JOIN u.roles r
+            LEFT JOIN u.mfa m
+            ORDER BY u.id
+            """)
+    Stream<UserExportRow> streamExportRows();
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
+
 }
@@ -5,17 +5,23 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 public class DefaultPasswordEncodingService implements PasswordEncodingService {
 
     private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor hashingExecutor;
 
-    public DefaultPasswordEncodingService(PasswordEncoder passwordEncoder) {
+    public DefaultPasswordEncodingService(PasswordEncoder passwordEncoder, PasswordHashingExecutor hashingExecutor) {
         this.passwordEncoder = passwordEncoder;
+        this.hashingExecutor = hashingExecutor;
     }
 
     public String encode(String password) {
-        return passwordEncoder.encode(password);
+        return hashingExecutor.execute(() -> passwordEncoder.encode(password));
     }
 
     public Boolean matches(String rawPassword, String encoded) {
-        return passwordEncoder.matches(rawPassword, encoded);
+        return hashingExecutor.execute(() -> passwordEncoder.matches(rawPassword, encoded));
+    }
+
+    public Boolean upgradeEncoding(String encoded) {
+        return passwordEncoder.upgradeEncoding(encoded);
     }
 
     public PasswordEncoder getEncoder() {
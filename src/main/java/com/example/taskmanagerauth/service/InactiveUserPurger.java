@@ -0,0 +1,271 @@
+package com.example.taskmanagerauth.service;
+
+import com.example.taskmanagerauth.entity.Mfa;
+import com.example.taskmanagerauth.entity.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Deletes users that have not been active for the configured time, together with their mfa, user_roles and
+ * refresh_tokens rows. Users are walked in id order, one chunk per short transaction, so a run never holds locks
+ * on more than a chunk of rows nor keeps a pooled connection for longer than one chunk.
+ * Users without a recorded access are left alone.
+ * The rows are deleted with plain SQL, so the purged users are evicted from the second-level cache explicitly.
+ * Each run then deletes expired refresh tokens in chunks of the same size. Used tokens are kept until they expire,
+ * as presenting one again is how a stolen token is detected.
+ */
+@Component
+public class InactiveUserPurger {
+
+    private static final Logger logger = LoggerFactory.getLogger(InactiveUserPurger.class);
+
+    // Oracle refuses IN lists longer than this
+    private static final int MAX_CHUNK_SIZE = 1000;
+
+    private static final String SELECT_CHUNK =
+            "SELECT id FROM users WHERE id > ? AND last_accessed_at < ? ORDER BY id FETCH FIRST ? ROWS ONLY";
+
+    // Deleted rows drop out of the next select, so there is no key to page by
+    private static final String SELECT_EXPIRED_TOKENS =
+            "SELECT id FROM refresh_tokens WHERE expires_at < ? ORDER BY expires_at FETCH FIRST ? ROWS ONLY";
+
+    private final boolean enabled;
+    private final Duration inactiveAfter;
+    private final int chunkSize;
+    private final Duration pauseBetweenChunks;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final LastAccessTracker lastAccessTracker;
+    private final Cache cache;
+
+    // Held for the whole run, including its database waits, which a monitor would spend pinned to a carrier thread
+    private final ReentrantLock purgeLock = new ReentrantLock();
+
+    private final Counter purged;
+    private final Counter purgedTokens;
+    private final Timer chunkTime;
+
+    @Autowired
+    public InactiveUserPurger(
+            @Value("${purge.enabled:false}") boolean enabled,
+            @Value("${purge.inactive-after:72h}") Duration inactiveAfter,
+            @Value("${purge.chunk-size:500}") int chunkSize,
+            @Value("${purge.pause-between-chunks:100ms}") Duration pauseBetweenChunks,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            LastAccessTracker lastAccessTracker,
+            EntityManagerFactory entityManagerFactory,
+            MeterRegistry meterRegistry
+    ) {
+
+        if (chunkSize < 1 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("purge.chunk-size must be between 1 and " + MAX_CHUNK_SIZE + ".");
+        }
+
+        this.enabled = enabled;
+        this.inactiveAfter = inactiveAfter;
+        this.chunkSize = chunkSize;
+        this.pauseBetweenChunks = pauseBetweenChunks;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.lastAccessTracker = lastAccessTracker;
+        this.cache = entityManagerFactory.getCache().unwrap(Cache.class);
+
+        this.purged = Counter.builder("purge.users.purged")
+                .description("Inactive users deleted")
+                .register(meterRegistry);
+        this.purgedTokens = Counter.builder("purge.refresh.tokens.purged")
+                .description("Expired refresh tokens deleted")
+                .register(meterRegistry);
+        this.chunkTime = Timer.builder("purge.chunk")
+                .description("Time taken to delete one chunk of inactive users")
+                .register(meterRegistry);
+
+    }
+
+    @Scheduled(
+            initialDelayString = "${purge.interval:1h}",
+            fixedDelayString = "${purge.interval:1h}"
+    )
+    public void scheduledPurge() {
+        if (enabled) {
+            purge();
+        }
+    }
+
+    /**
+     * Delete every user whose last access is older than the inactivity threshold, then every expired refresh token
+     * @return (long) The number of users deleted
+     */
+    public long purge() {
+
+        purgeLock.lock();
+
+        try {
+            long users = purgeInactive();
+            purgeExpiredTokens();
+            return users;
+        } finally {
+            purgeLock.unlock();
+        }
+
+    }
+
+    private long purgeInactive() {
+
+        // Accesses still waiting in memory must not count as inactivity
+        lastAccessTracker.flush();
+
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(inactiveAfter));
+        long total = 0;
+        long chunks = 0;
+        long lastId = 0;
+
+        while (true) {
+
+            List<Long> ids = jdbcTemplate.queryForList(SELECT_CHUNK, Long.class, lastId, cutoff, chunkSize);
+
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            lastId = ids.getLast();
+
+            Timer.Sample sample = Timer.start();
+            Integer deleted = transaction.execute(status -> deleteChunk(ids, cutoff));
+            sample.stop(chunkTime);
+
+            ids.forEach(id -> cache.evictEntityData(User.class, id));
+
+            purged.increment(deleted);
+            total += deleted;
+            chunks++;
+
+            if (ids.size() < chunkSize) {
+                break;
+            }
+
+            if (!pause()) {
+                break;
+            }
+
+        }
+
+        if (total > 0) {
+
+            // Entries keyed by something other than the user id, and cached query results naming purged users
+            cache.evictNaturalIdData(User.class);
+            cache.evictCollectionData(User.class.getName() + ".roles");
+            cache.evictEntityData(Mfa.class);
+            cache.evictQueryRegions();
+            cache.evictDefaultQueryRegion();
+
+            logger.info("Purged {} inactive users in {} chunks", total, chunks);
+
+        }
+
+        return total;
+
+    }
+
+    private void purgeExpiredTokens() {
+
+        Timestamp now = Timestamp.from(Instant.now());
+        long total = 0;
+
+        while (true) {
+
+            List<Long> ids = jdbcTemplate.queryForList(SELECT_EXPIRED_TOKENS, Long.class, now, chunkSize);
+
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+            int deleted = jdbcTemplate.update("DELETE FROM refresh_tokens WHERE id IN (" + placeholders + ")", ids.toArray());
+
+            purgedTokens.increment(deleted);
+            total += deleted;
+
+            if (ids.size() < chunkSize || !pause()) {
+                break;
+            }
+
+        }
+
+        if (total > 0) {
+            logger.info("Purged {} expired refresh tokens", total);
+        }
+
+    }
+
+    private int deleteChunk(List<Long> candidates, Timestamp cutoff) {
+
+        String placeholders = String.join(",", Collections.nCopies(candidates.size(), "?"));
+        Object[] parameters = candidates.toArray();
+
+        // Lock the rows and drop users that became active since the chunk was read
+        Object[] lockParameters = new Object[parameters.length + 1];
+        System.arraycopy(parameters, 0, lockParameters, 0, parameters.length);
+        lockParameters[parameters.length] = cutoff;
+
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE id IN (" + placeholders + ") AND last_accessed_at < ? FOR UPDATE",
+                Long.class,
+                lockParameters
+        );
+
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        if (ids.size() != candidates.size()) {
+            placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+            parameters = ids.toArray();
+        }
+
+        jdbcTemplate.update("DELETE FROM refresh_tokens WHERE user_id IN (" + placeholders + ")", parameters);
+        jdbcTemplate.update("DELETE FROM mfa WHERE user_id IN (" + placeholders + ")", parameters);
+        jdbcTemplate.update("DELETE FROM user_roles WHERE user_id IN (" + placeholders + ")", parameters);
+
+        return jdbcTemplate.update("DELETE FROM users WHERE id IN (" + placeholders + ")", parameters);
+
+    }
+
+    private boolean pause() {
+
+        if (pauseBetweenChunks.isZero()) {
+            return true;
+        }
+
+        try {
+            Thread.sleep(pauseBetweenChunks);
+            return true;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+    }
+
+}
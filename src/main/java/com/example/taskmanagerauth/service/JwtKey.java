@@ -0,0 +1,180 @@
+package com.example.taskmanagerauth.service;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A key of a JwtKeyRing: its id, the algorithm it signs with and the verifier built for it.
+ * @param kid The id stamped in the kid header of tokens signed by this key
+ * @param algorithm The algorithm, which may only be able to verify for keys without private material
+ * @param verifier The verifier, built once
+ * @param publicKey The public key of an EC key, null for HMAC keys
+ */
+public record JwtKey(String kid, Algorithm algorithm, JWTVerifier verifier, ECPublicKey publicKey) {
+
+    private static final int P256_COORDINATE_LENGTH = 32;
+
+    /**
+     * Create an HMAC512 key. Its id is derived from the secret, so every instance sharing the secret stamps the same kid.
+     * @param secret The shared secret
+     * @return (JwtKey) The key
+     */
+    public static JwtKey hmac(String secret) {
+
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalArgumentException("A signing secret must be provided.");
+        }
+
+        byte[] digest = sha256(secret.getBytes(StandardCharsets.UTF_8));
+        Algorithm algorithm = Algorithm.HMAC512(secret);
+
+        return new JwtKey(
+                Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 8)),
+                algorithm,
+                JWT.require(algorithm).build(),
+                null
+        );
+
+    }
+
+    /**
+     * Create an ES256 key. Its id is the RFC 7638 thumbprint of the public key.
+     * @param publicKey A P-256 public key
+     * @param privateKey The matching private key, or null if the key is only used to verify
+     * @return (JwtKey) The key
+     */
+    public static JwtKey ec(ECPublicKey publicKey, ECPrivateKey privateKey) {
+
+        if (publicKey.getParams().getCurve().getField().getFieldSize() != 256) {
+            throw new IllegalArgumentException("ES256 requires a P-256 key.");
+        }
+
+        Algorithm algorithm = Algorithm.ECDSA256(publicKey, privateKey);
+
+        return new JwtKey(
+                thumbprint(publicKey),
+                algorithm,
+                JWT.require(algorithm).build(),
+                publicKey
+        );
+
+    }
+
+    /**
+     * Create an ES256 key from Base64 encoded DER keys, as stored in the environment
+     * @param publicKey Base64 X.509 encoded public key
+     * @param privateKey Base64 PKCS#8 encoded private key, or null if the key is only used to verify
+     * @return (JwtKey) The key
+     */
+    public static JwtKey ec(String publicKey, String privateKey) {
+
+        try {
+
+            KeyFactory keyFactory = KeyFactory.getInstance("EC");
+
+            ECPublicKey ecPublicKey = (ECPublicKey) keyFactory.generatePublic(
+                    new X509EncodedKeySpec(Base64.getDecoder().decode(publicKey))
+            );
+
+            ECPrivateKey ecPrivateKey = privateKey == null || privateKey.isBlank() ? null : (ECPrivateKey) keyFactory.generatePrivate(
+                    new PKCS8EncodedKeySpec(Base64.getDecoder().decode(privateKey))
+            );
+
+            return ec(ecPublicKey, ecPrivateKey);
+
+        } catch (GeneralSecurityException | IllegalArgumentException | ClassCastException e) {
+            throw new IllegalArgumentException("Invalid EC key provided.", e);
+        }
+
+    }
+
+    /**
+     * Generate a fresh P-256 key pair
+     * @return (KeyPair) The key pair
+     */
+    public static KeyPair generateEcKeyPair() {
+
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            return generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+
+    }
+
+    /**
+     * @return (Map) The public JWK of this key, or null for HMAC keys whose secret must not be published
+     */
+    public Map<String, Object> toJwk() {
+
+        if (publicKey == null) {
+            return null;
+        }
+
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kty", "EC");
+        jwk.put("crv", "P-256");
+        jwk.put("x", coordinate(publicKey.getW().getAffineX()));
+        jwk.put("y", coordinate(publicKey.getW().getAffineY()));
+        jwk.put("use", "sig");
+        jwk.put("alg", "ES256");
+        jwk.put("kid", kid);
+
+        return Collections.unmodifiableMap(jwk);
+
+    }
+
+    private static String thumbprint(ECPublicKey publicKey) {
+
+        // Members in lexicographic order, without whitespace, as required by RFC 7638
+        String canonical = "{\"crv\":\"P-256\",\"kty\":\"EC\",\"x\":\"" + coordinate(publicKey.getW().getAffineX())
+                + "\",\"y\":\"" + coordinate(publicKey.getW().getAffineY()) + "\"}";
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sha256(canonical.getBytes(StandardCharsets.UTF_8)));
+
+    }
+
+    private static String coordinate(BigInteger value) {
+
+        byte[] bytes = value.toByteArray();
+        byte[] padded = new byte[P256_COORDINATE_LENGTH];
+
+        // toByteArray is signed and minimal, so strip a leading sign byte or left-pad with zeros
+        int length = Math.min(bytes.length, P256_COORDINATE_LENGTH);
+        System.arraycopy(bytes, bytes.length - length, padded, P256_COORDINATE_LENGTH - length, length);
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(padded);
+
+    }
+
+    private static byte[] sha256(byte[] input) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(input);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,198 @@
+package com.example.taskmanagerauth.service;
+
+import com.auth0.jwt.JWTCreator;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.interfaces.DecodedJWT;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A set of keys: one primary key used to sign new tokens, plus every key whose tokens are still accepted.
+ * Each key's Algorithm and JWTVerifier are built once, and tokens are matched to their key through the kid header.
+ */
+public class JwtKeyRing {
+
+    private record Keys(
+            JwtKey primary,
+            Map<String, JwtKey> accepted,
+            Map<String, JwtKey> byAlgorithm,
+            List<Map<String, Object>> jwks
+    ) {}
+
+    private volatile Keys keys;
+
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+
+    public JwtKeyRing(String secret, List<String> previousSecrets) {
+        this(JwtKey.hmac(secret), hmacKeys(previousSecrets));
+    }
+
+    public JwtKeyRing(JwtKey primary, List<JwtKey> previous) {
+        keys = createKeys(primary, previous);
+    }
+
+    /**
+     * Stamp the primary key's id on the token and sign it
+     * @param builder The token being created
+     * @return (String) The signed token
+     */
+    public String sign(JWTCreator.Builder builder) {
+        JwtKey primary = keys.primary();
+        return builder.withKeyId(primary.kid()).sign(primary.algorithm());
+    }
+
+    /**
+     * Look up the verifier for a token's kid. Tokens minted before kids were stamped carry none,
+     * so they are checked against the primary key.
+     * @param kid The kid header of the token, may be null
+     * @return (JWTVerifier) The verifier, or null if the kid does not belong to an accepted key
+     */
+    public JWTVerifier getVerifier(String kid) {
+
+        Keys current = keys;
+
+        if (kid == null) {
+            return current.primary().verifier();
+        }
+
+        JwtKey key = current.accepted().get(kid);
+        return key == null ? null : key.verifier();
+
+    }
+
+    /**
+     * Look up the verifier for a decoded token. Tokens without a kid are checked against the first accepted key,
+     * primary first, that uses the token's algorithm, so tokens minted before a switch of signing mode keep working.
+     * @param jwt The decoded token
+     * @return (JWTVerifier) The verifier, or null if no accepted key can verify the token
+     */
+    public JWTVerifier getVerifierFor(DecodedJWT jwt) {
+
+        if (jwt.getKeyId() != null) {
+            return getVerifier(jwt.getKeyId());
+        }
+
+        JwtKey key = keys.byAlgorithm().get(jwt.getAlgorithm());
+        return key == null ? null : key.verifier();
+
+    }
+
+    public String getPrimaryKeyId() {
+        return keys.primary().kid();
+    }
+
+    public Set<String> getKeyIds() {
+        return keys.accepted().keySet();
+    }
+
+    /**
+     * @return (List) The public JWKs of every accepted asymmetric key, primary first
+     */
+    public List<Map<String, Object>> getPublicJwks() {
+        return keys.jwks();
+    }
+
+    /**
+     * Register a callback that runs after the keys were rotated, reloaded or retired
+     * @param listener The callback
+     */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Make a new secret the primary key. Tokens signed by the previous keys keep verifying until they are retired.
+     * @param secret The new secret
+     */
+    public void rotate(String secret) {
+        rotate(JwtKey.hmac(secret));
+    }
+
+    /**
+     * Make a new key the primary key. Tokens signed by the previous keys keep verifying until they are retired.
+     * @param primary The new key
+     */
+    public synchronized void rotate(JwtKey primary) {
+        update(createKeys(primary, List.copyOf(keys.accepted().values())));
+    }
+
+    /**
+     * Replace every key, e.g. after the secrets were re-read from the environment
+     * @param secret The primary secret
+     * @param previousSecrets Secrets that are no longer used for signing but still accepted
+     */
+    public void reload(String secret, List<String> previousSecrets) {
+        reload(JwtKey.hmac(secret), hmacKeys(previousSecrets));
+    }
+
+    /**
+     * Replace every key
+     * @param primary The key to sign with
+     * @param previous Keys that are no longer used for signing but still accepted
+     */
+    public synchronized void reload(JwtKey primary, List<JwtKey> previous) {
+        update(createKeys(primary, previous));
+    }
+
+    /**
+     * Replace every key with those of another ring, e.g. one built from settings that were read again
+     * @param source The ring whose primary and accepted keys to take over
+     */
+    public void reload(JwtKeyRing source) {
+        Keys replacement = source.keys;
+        reload(replacement.primary(), List.copyOf(replacement.accepted().values()));
+    }
+
+    /**
+     * Stop accepting tokens signed by a previous key
+     * @param kid The id of the key to remove
+     */
+    public synchronized void retire(String kid) {
+
+        if (keys.primary().kid().equals(kid)) {
+            throw new IllegalArgumentException("The primary key cannot be retired.");
+        }
+
+        update(createKeys(
+                keys.primary(),
+                keys.accepted().values().stream().filter(key -> !key.kid().equals(kid)).toList()
+        ));
+
+    }
+
+    private void update(Keys updated) {
+        keys = updated;
+        changeListeners.forEach(Runnable::run);
+    }
+
+    private static Keys createKeys(JwtKey primary, List<JwtKey> previous) {
+
+        Map<String, JwtKey> accepted = new LinkedHashMap<>();
+        accepted.put(primary.kid(), primary);
+        previous.forEach(key -> accepted.putIfAbsent(key.kid(), key));
+
+        Map<String, JwtKey> byAlgorithm = new LinkedHashMap<>();
+        accepted.values().forEach(key -> byAlgorithm.putIfAbsent(key.algorithm().getName(), key));
+
+        List<Map<String, Object>> jwks = accepted.values().stream()
+                .map(JwtKey::toJwk)
+                .filter(Objects::nonNull)
+                .toList();
+
+        return new Keys(primary, Map.copyOf(accepted), Map.copyOf(byAlgorithm), jwks);
+
+    }
+
+    private static List<JwtKey> hmacKeys(List<String> secrets) {
+        return secrets.stream()
+                .filter(secret -> secret != null && !secret.isBlank())
+                .map(JwtKey::hmac)
+                .toList();
+    }
+
+}
@@ -2,14 +2,16 @@ package com.example.taskmanagerauth.service;
 
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.JWTVerifier;
-import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTDecodeException;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.exceptions.TokenExpiredException;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.example.taskmanagerauth.dto.token.TokenType;
+import com.example.taskmanagerauth.dto.token.VerifiedToken;
 import com.example.taskmanagerauth.exception.server.InvalidJwtException;
 import jakarta.servlet.http.Cookie;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
@@ -21,16 +23,25 @@ import java.util.List;
 @Component
 public class JwtService {
 
+    public JwtService(String secret, String secret2FA) {
+        this(new JwtKeyRing(secret, List.of()), new JwtKeyRing(secret2FA, List.of()), VerifiedTokenCache.disabled());
+    }
+
+    @Autowired
     public JwtService(
-            @Value("${jwt.secret}") String secret,
-            @Value("${jwt.mfa}") String secret2FA
+            @Qualifier("accessKeyRing") JwtKeyRing accessKeys,
+            @Qualifier("mfaKeyRing") JwtKeyRing mfaKeys,
+            VerifiedTokenCache verifiedTokenCache
     ) {
-        this.secret = secret;
-        this.secret2FA = secret2FA;
+        this.accessKeys = accessKeys;
+        this.mfaKeys = mfaKeys;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.accessKeys.addChangeListener(verifiedTokenCache::invalidateAll);
     }
 
-    private final String secret;
-    private final String secret2FA;
+    private final JwtKeyRing accessKeys;
+    private final JwtKeyRing mfaKeys;
+    private final VerifiedTokenCache verifiedTokenCache;
     private final Duration EXPIRATION_TIMER = Duration.ofMinutes(10); // 10 minutes
 
     public long getExpirationTimerInMillis() {
@@ -41,31 +52,28 @@ public class JwtService {
         return (int) Math.max(Integer.MAX_VALUE, EXPIRATION_TIMER.toSeconds());
     }
 
-    public String getSecret() {
-        return secret;
+    public JwtKeyRing getAccessKeys() {
+        return accessKeys;
     }
 
-    public String getSecret2FA() {
-        return secret2FA;
+    public JwtKeyRing getMfaKeys() {
+        return mfaKeys;
     }
 
-    private String createToken(UserDetails userDetails, Algorithm algorithm) {
-        return JWT.create()
+    private String createToken(UserDetails userDetails, JwtKeyRing keyRing) {
+        return keyRing.sign(JWT.create()
                 .withSubject(userDetails.getUsername())
                 .withClaim("authorities", userDetails.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList())
                 .withIssuedAt(new Date())
-                .withExpiresAt(new Date(System.currentTimeMillis() + getExpirationTimerInMillis()))
-                .sign(algorithm);
+                .withExpiresAt(new Date(System.currentTimeMillis() + getExpirationTimerInMillis())));
     }
 
     public String generateToken(UserDetails userDetails) {
-        Algorithm algorithm = Algorithm.HMAC512(getSecret());
-        return createToken(userDetails, algorithm);
+        return createToken(userDetails, accessKeys);
     }
 
     public String generate2FAToken(UserDetails userDetails) {
-        Algorithm algorithm = Algorithm.HMAC512(getSecret2FA());
-        return createToken(userDetails, algorithm);
+        return createToken(userDetails, mfaKeys);
     }
 
     public String extractUser(String token) {
@@ -87,23 +95,68 @@ public class JwtService {
     }
 
     public boolean validate2faToken(String token) {
-        return validate(token, getSecret2FA());
+        verifySignature(token, mfaKeys);
+        return true;
     }
 
     public boolean validateToken(String token) {
-        return validate(token, getSecret());
+        verifySignature(token, accessKeys);
+        return true;
     }
 
-    private boolean validate(String token, String secret) {
+    /**
+     * Verify a token and extract its claims, decoding it only once
+     * @param token The raw token
+     * @param type Which kind of token is expected
+     * @return (VerifiedToken) The verified claims
+     * @throws InvalidJwtException If the token is invalid, expired, or missing claims
+     */
+    public VerifiedToken verify(String token, TokenType type) {
+
+        if (type == TokenType.ACCESS) {
+            return verifiedTokenCache.getOrVerify(token, this::verifyAccessToken);
+        }
+
+        return verifyClaims(token, type, mfaKeys);
+
+    }
+
+    private VerifiedToken verifyAccessToken(String token) {
+        return verifyClaims(token, TokenType.ACCESS, accessKeys);
+    }
+
+    private VerifiedToken verifyClaims(String token, TokenType type, JwtKeyRing keyRing) {
+
+        DecodedJWT jwt = verifySignature(token, keyRing);
+
+        String subject = jwt.getSubject();
+        List<String> authorities;
+
         try {
-            Algorithm algorithm = Algorithm.HMAC512(secret);
+            authorities = jwt.getClaim("authorities").asList(String.class);
+        } catch (JWTDecodeException exception) {
+            throw new InvalidJwtException("Invalid claims provided.");
+        }
+
+        if (subject == null || authorities == null || jwt.getExpiresAtAsInstant() == null) {
+            throw new InvalidJwtException("Invalid claims provided.");
+        }
+
+        return new VerifiedToken(subject, authorities, jwt.getExpiresAtAsInstant(), type);
+
+    }
+
+    private DecodedJWT verifySignature(String token, JwtKeyRing keyRing) {
+        try {
+            DecodedJWT jwt = JWT.decode(token);
 
-            JWTVerifier verifier = JWT.require(algorithm)
-                    .build();
+            JWTVerifier verifier = keyRing.getVerifierFor(jwt);
 
-            verifier.verify(token);
+            if (verifier == null) {
+                throw new InvalidJwtException("Your access token is invalid.");
+            }
 
-            return true;
+            return verifier.verify(jwt);
         } catch (TokenExpiredException exception) {
             throw new InvalidJwtException("Your access token is expired.");
         } catch (JWTVerificationException exception) {
@@ -113,12 +166,12 @@ public class JwtService {
 
     public Cookie generateJwtCookie(UserDetails userDetails) {
         String jwt = generateToken(userDetails);
-        return createCookie("taskmanager_access_token", jwt);
+        return createCookie(TokenType.ACCESS.getCookieName(), jwt);
     }
 
     public Cookie generate2faCookie(UserDetails userDetails) {
         String jwt = generate2FAToken(userDetails);
-        return createCookie("mfa_access_token", jwt);
+        return createCookie(TokenType.MFA.getCookieName(), jwt);
     }
 
     private Cookie createCookie(String cookie_name, String jwt) {
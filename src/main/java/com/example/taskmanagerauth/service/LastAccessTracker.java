@@ -0,0 +1,205 @@
+package com.example.taskmanagerauth.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind tracking of users.lastAccessedAt. Activity is only recorded in memory, where repeats of the same
+ * user collapse into one entry, and written out periodically as batched UPDATEs instead of once per request.
+ * At most max-pending users are held between flushes; activity beyond that is dropped until the next flush.
+ */
+@Component
+public class LastAccessTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(LastAccessTracker.class);
+
+    // Never moves the timestamp backwards, e.g. when another instance flushed a later access first
+    private static final String UPDATE_LAST_ACCESS =
+            "UPDATE users SET last_accessed_at = ? WHERE id = ? AND (last_accessed_at IS NULL OR last_accessed_at < ?)";
+
+    private final boolean enabled;
+    private final int maxPending;
+    private final int batchSize;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentHashMap<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    // A lock rather than synchronized, so a virtual thread waiting on the database does not pin its carrier
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final Timer flushLatency;
+    private final DistributionSummary flushSize;
+    private final Counter dropped;
+
+    @Autowired
+    public LastAccessTracker(
+            @Value("${last-access.enabled:false}") boolean enabled,
+            @Value("${last-access.max-pending:100000}") int maxPending,
+            @Value("${last-access.batch-size:500}") int batchSize,
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry
+    ) {
+
+        this.enabled = enabled;
+        this.maxPending = maxPending;
+        this.batchSize = batchSize;
+        this.jdbcTemplate = jdbcTemplate;
+
+        Gauge.builder("last.access.pending", pending, Map::size)
+                .description("Users whose last access is waiting to be written")
+                .register(meterRegistry);
+
+        this.flushLatency = Timer.builder("last.access.flush")
+                .description("Time taken to write the pending last accesses")
+                .register(meterRegistry);
+        this.flushSize = DistributionSummary.builder("last.access.flush.size")
+                .description("Users written per flush")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("last.access.dropped")
+                .description("Accesses not recorded because too many users were pending")
+                .register(meterRegistry);
+
+    }
+
+    public static LastAccessTracker disabled() {
+        return new LastAccessTracker(false, 1, 1, null, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Record that a user was active just now
+     * @param userId The user's id
+     */
+    public void record(Long userId) {
+
+        if (!enabled || userId == null) {
+            return;
+        }
+
+        if (pending.size() >= maxPending && !pending.containsKey(userId)) {
+            dropped.increment();
+            return;
+        }
+
+        pending.merge(userId, LocalDateTime.now(), (previous, current) -> current.isAfter(previous) ? current : previous);
+
+    }
+
+    /**
+     * Record that the subject of a verified token was active just now
+     * @param subject The token subject, which holds the user id
+     */
+    public void record(String subject) {
+
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            record(Long.valueOf(subject));
+        } catch (NumberFormatException exception) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Not tracking access of non-numeric subject {}", subject);
+            }
+        }
+
+    }
+
+    /**
+     * Write every pending access as batched UPDATEs. Entries recorded again while the flush runs stay pending
+     * for the next one.
+     */
+    @Scheduled(
+            initialDelayString = "${last-access.flush-interval:30s}",
+            fixedDelayString = "${last-access.flush-interval:30s}"
+    )
+    @PreDestroy
+    public void flush() {
+
+        if (!enabled || pending.isEmpty()) {
+            return;
+        }
+
+        flushLock.lock();
+
+        try {
+            flushLatency.record(this::writePending);
+        } finally {
+            flushLock.unlock();
+        }
+
+    }
+
+    private void writePending() {
+
+        List<Object[]> batch = new ArrayList<>(Math.min(pending.size(), batchSize));
+        int written = 0;
+
+        for (Map.Entry<Long, LocalDateTime> entry : pending.entrySet()) {
+
+            // Only a successful remove claims the entry; a newer access replaced it and is left for the next flush
+            if (!pending.remove(entry.getKey(), entry.getValue())) {
+                continue;
+            }
+
+            Timestamp lastAccessedAt = Timestamp.valueOf(entry.getValue());
+            batch.add(new Object[] { lastAccessedAt, entry.getKey(), lastAccessedAt });
+
+            if (batch.size() == batchSize) {
+                written += write(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+
+        }
+
+        if (!batch.isEmpty()) {
+            written += write(batch);
+        }
+
+        flushSize.record(written);
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Flushed last access of {} users", written);
+        }
+
+    }
+
+    private int write(List<Object[]> batch) {
+
+        int size = batch.size();
+
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_LAST_ACCESS, batch);
+        } catch (RuntimeException exception) {
+            // Last access is advisory, so a failed batch is logged and dropped rather than retried
+            logger.warn("Failed to write last access of {} users: {}", size, exception.getMessage());
+        }
+
+        return size;
+
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+}
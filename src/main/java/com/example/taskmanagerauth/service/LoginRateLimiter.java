@@ -0,0 +1,100 @@
+package com.example.taskmanagerauth.service;
+
+import com.example.taskmanagerauth.exception.server.LoginRateLimitedException;
+import com.example.taskmanagerauth.util.TokenBuckets;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Throttles login attempts with a token bucket per client IP and one per username, checked before the login
+ * touches the database or hashes anything. The IP bucket stops one client spraying many accounts, the username
+ * bucket stops many clients guessing one account's password.
+ * Buckets are held per instance, in a fixed amount of memory however many keys are seen.
+ */
+@Component
+public class LoginRateLimiter {
+
+    private final boolean enabled;
+    private final TokenBuckets ipBuckets;
+    private final TokenBuckets usernameBuckets;
+
+    private final Counter limitedByIp;
+    private final Counter limitedByUsername;
+
+    @Autowired
+    public LoginRateLimiter(
+            @Value("${login-rate-limit.enabled:false}") boolean enabled,
+            @Value("${login-rate-limit.max-keys:1048576}") int maxKeys,
+            @Value("${login-rate-limit.ip.capacity:30}") int ipCapacity,
+            @Value("${login-rate-limit.ip.refill-period:2s}") Duration ipRefillPeriod,
+            @Value("${login-rate-limit.username.capacity:5}") int usernameCapacity,
+            @Value("${login-rate-limit.username.refill-period:12s}") Duration usernameRefillPeriod,
+            MeterRegistry meterRegistry
+    ) {
+
+        this.enabled = enabled;
+
+        // A disabled limiter still exists as a bean, so don't reserve the tables for it
+        int tableKeys = enabled ? maxKeys : 1;
+        this.ipBuckets = new TokenBuckets(tableKeys, ipCapacity, ipRefillPeriod);
+        this.usernameBuckets = new TokenBuckets(tableKeys, usernameCapacity, usernameRefillPeriod);
+
+        this.limitedByIp = Counter.builder("login.rate.limited")
+                .description("Login attempts refused by the rate limiter")
+                .tag("key", "ip")
+                .register(meterRegistry);
+        this.limitedByUsername = Counter.builder("login.rate.limited")
+                .description("Login attempts refused by the rate limiter")
+                .tag("key", "username")
+                .register(meterRegistry);
+
+        FunctionCounter.builder("login.rate.limit.evicted", ipBuckets, TokenBuckets::getEvictions)
+                .description("Buckets still in use dropped for lack of room; grows when max-keys is too small")
+                .tag("key", "ip")
+                .register(meterRegistry);
+        FunctionCounter.builder("login.rate.limit.evicted", usernameBuckets, TokenBuckets::getEvictions)
+                .description("Buckets still in use dropped for lack of room; grows when max-keys is too small")
+                .tag("key", "username")
+                .register(meterRegistry);
+
+    }
+
+    /**
+     * Take a login attempt from the client's and the username's buckets
+     * @param clientIp The client's IP address
+     * @param username The username being logged in to, or null if the request has none
+     * @throws LoginRateLimitedException If either bucket is empty
+     */
+    public void acquire(String clientIp, String username) {
+
+        if (!enabled) {
+            return;
+        }
+
+        long waitMillis = ipBuckets.tryAcquire(clientIp);
+
+        if (waitMillis > 0) {
+            limitedByIp.increment();
+            throw limited(waitMillis);
+        }
+
+        waitMillis = username == null ? 0 : usernameBuckets.tryAcquire(username);
+
+        if (waitMillis > 0) {
+            limitedByUsername.increment();
+            throw limited(waitMillis);
+        }
+
+    }
+
+    private static LoginRateLimitedException limited(long waitMillis) {
+        return new LoginRateLimitedException("Too many login attempts, please wait.", Duration.ofMillis(waitMillis));
+    }
+
+}
@@ -1,14 +1,15 @@
 package com.example.taskmanagerauth.service;
 
+import com.example.taskmanagerauth.dto.credentials.UserCredentials;
+import com.example.taskmanagerauth.dto.responses.TotpCheck;
 import com.example.taskmanagerauth.entity.Mfa;
 import com.example.taskmanagerauth.entity.User;
-import com.example.taskmanagerauth.exception.server.MfaNotEnabledException;
 import com.example.taskmanagerauth.exception.server.TotpInvalidException;
 import com.example.taskmanagerauth.exception.server.TotpNotProvidedException;
+import com.example.taskmanagerauth.util.BoundedTtlCache;
 import com.google.crypto.tink.*;
 import com.google.crypto.tink.aead.AeadConfig;
 import com.warrenstrange.googleauth.GoogleAuthenticator;
-import com.warrenstrange.googleauth.GoogleAuthenticatorKey;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -17,19 +18,67 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
+import java.time.Duration;
 import java.util.Base64;
+import java.util.OptionalInt;
+import java.util.function.Supplier;
 
 @Service
 public class MfaService {
 
+    // A decrypted secret, remembered together with the ciphertext it came from. Kept as the String the TOTP check
+    // takes, so a hit copies nothing; a String cannot be wiped, and the TTL bounds how long it stays reachable.
+    private record CachedSecret(String cipherText, String secret) {}
+
+    private static final byte[] ASSOCIATED_DATA = "taskmanagerauth".getBytes(StandardCharsets.UTF_8);
+
     private final GoogleAuthenticator authenticator = new GoogleAuthenticator();
-    private final KeysetHandle mfaKey;
+    private final Aead aead;
+
+    private final boolean secretCacheEnabled;
+    private final Duration secretCacheTtl;
+    private final BoundedTtlCache<Long, CachedSecret> secretCache;
+    private final PasswordHashingExecutor cryptoExecutor;
+
+    public MfaService(String mfaSecretKeySet) {
+        this(mfaSecretKeySet, false, 1, Duration.ZERO);
+    }
+
+    public MfaService(String mfaSecretKeySet, boolean secretCacheEnabled, int secretCacheMaxSize, Duration secretCacheTtl) {
+        this(mfaSecretKeySet, secretCacheEnabled, secretCacheMaxSize, secretCacheTtl, null);
+    }
 
     @Autowired
     public MfaService(
-            @Value("${mfa.secret}") String mfaSecretKeySet
+            @Value("${mfa.secret}") String mfaSecretKeySet,
+            @Value("${mfa.cache.enabled:false}") boolean secretCacheEnabled,
+            @Value("${mfa.cache.max-size:10000}") int secretCacheMaxSize,
+            @Value("${mfa.cache.ttl:1m}") Duration secretCacheTtl,
+            PasswordHashingExecutor cryptoExecutor
     ) {
-        mfaKey = getMfaKey(mfaSecretKeySet);
+
+        try {
+            // Aead primitives are thread-safe, so one is shared by every call
+            aead = getMfaKey(mfaSecretKeySet).getPrimitive(RegistryConfiguration.get(), Aead.class);
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException(e);
+        }
+
+        this.secretCacheEnabled = secretCacheEnabled;
+        this.secretCacheTtl = secretCacheTtl;
+        this.secretCache = new BoundedTtlCache<>(secretCacheMaxSize);
+        this.cryptoExecutor = cryptoExecutor;
+
+    }
+
+    /**
+     * Run crypto work on the hashing pool when called from a virtual thread, so it cannot hold a carrier thread.
+     * Platform threads, including the pool's own, run it in place.
+     * @param task The AES-GCM or TOTP work
+     * @return (T) The result of the task
+     */
+    private <T> T onCryptoThread(Supplier<T> task) {
+        return cryptoExecutor != null && Thread.currentThread().isVirtual() ? cryptoExecutor.execute(task) : task.get();
     }
 
     /**
@@ -65,21 +114,25 @@ public class MfaService {
      * @return (int) Integer representation of the TOTP code
      */
     private int getTotp(String totp) {
+        return parseTotp(totp).orElseThrow(() -> new TotpNotProvidedException("One time password not provided."));
+    }
+
+    /**
+     * @param totp String representation of the TOTP code
+     * @return (OptionalInt) Integer representation of the TOTP code, empty if it is missing or not a number
+     */
+    private static OptionalInt parseTotp(String totp) {
 
         if (totp == null || totp.isEmpty()) {
-            throw new TotpNotProvidedException("One time password not provided.");
+            return OptionalInt.empty();
         }
 
-        int totp_num;
-
         try {
-            totp_num = Integer.parseInt(totp);
+            return OptionalInt.of(Integer.parseInt(totp));
         } catch (NumberFormatException exception) {
-            throw new TotpNotProvidedException("One time password not provided.");
+            return OptionalInt.empty();
         }
 
-        return totp_num;
-
     }
 
     public boolean hasMfaEnabled(User user) {
@@ -94,10 +147,8 @@ public class MfaService {
     public String encrypt(String key) {
 
         try {
-            Aead aead = mfaKey.getPrimitive(RegistryConfiguration.get(), Aead.class);
-
             byte[] stringAsBytes = key.getBytes(StandardCharsets.UTF_8);
-            byte[] cipherText = aead.encrypt(stringAsBytes, "taskmanagerauth".getBytes());
+            byte[] cipherText = aead.encrypt(stringAsBytes, ASSOCIATED_DATA);
 
             return Base64.getEncoder().encodeToString(cipherText);
         } catch (GeneralSecurityException e) {
@@ -114,47 +165,112 @@ public class MfaService {
     public String decrypt(String encryptedKey) {
 
         try {
-            Aead aead = mfaKey.getPrimitive(RegistryConfiguration.get(), Aead.class);
-
             byte[] cipherText = Base64.getDecoder().decode(encryptedKey);
-            byte[] decrypted = aead.decrypt(cipherText, "taskmanagerauth".getBytes());
-
-            return new String(decrypted, StandardCharsets.UTF_8);
+            return new String(aead.decrypt(cipherText, ASSOCIATED_DATA), StandardCharsets.UTF_8);
         } catch (GeneralSecurityException e) {
             throw new RuntimeException(e);
         }
 
     }
 
+    private String getSecret(User user) {
+        return getSecret(user.getId(), user.getMfa().getMfaSecretKey());
+    }
+
+    /**
+     * Decrypt a user's TOTP secret, served from the short-lived cache when enabled.
+     * A cached secret is only used while the stored ciphertext is unchanged.
+     * @param userId The user's id, may be null for users that were not saved yet
+     * @param cipherText The stored, encrypted secret
+     * @return (String) The Base32 TOTP secret
+     */
+    private String getSecret(Long userId, String cipherText) {
+
+        if (!secretCacheEnabled || userId == null) {
+            return decrypt(cipherText);
+        }
+
+        CachedSecret cached = secretCache.get(userId);
+
+        if (cached != null && cached.cipherText().equals(cipherText)) {
+            return cached.secret();
+        }
+
+        String secret = decrypt(cipherText);
+
+        secretCache.put(
+                userId,
+                new CachedSecret(cipherText, secret),
+                System.currentTimeMillis() + secretCacheTtl.toMillis()
+        );
+
+        return secret;
+
+    }
+
+    /**
+     * Drop a user's cached TOTP secret, e.g. after it was replaced
+     * @param userId The user's id
+     */
+    public void invalidateSecret(Long userId) {
+        if (userId != null) {
+            secretCache.invalidate(userId);
+        }
+    }
+
+    public int getCachedSecretCount() {
+        return secretCache.size();
+    }
+
     /**
      * Generate the TOTP code for usage on frontend
      * @return (String) The otpauth code
      */
     public String generateMfaCode(User user) {
-        return "otpauth://totp/TaskManagerAuth:" + user.getId() + "?secret=" + decrypt(user.getMfa().getMfaSecretKey()) + "&issuer=TaskManagerAuth\n";
+        return "otpauth://totp/TaskManagerAuth:" + user.getId() + "?secret=" + getSecret(user) + "&issuer=TaskManagerAuth\n";
     }
 
     /**
      * Validate a time-based one time password
      * @param totp One time password
      * @param user User
+     * @return (TotpCheck) PASSED, or why the login still needs MFA
+     * @throws TotpInvalidException If the one time password is wrong
      */
-    public void validatePassword(String totp, User user) {
+    public TotpCheck validatePassword(String totp, User user) {
+        return validatePassword(totp, user.getId(), hasMfaEnabled(user), user.getMfa().getMfaSecretKey());
+    }
 
-        if (!hasMfaEnabled(user)) {
-            throw new MfaNotEnabledException("Mfa not enabled.");
-        }
+    /**
+     * Validate a time-based one time password against credentials loaded for a login
+     * @param totp One time password
+     * @param credentials The user's credentials
+     * @return (TotpCheck) PASSED, or why the login still needs MFA
+     * @throws TotpInvalidException If the one time password is wrong
+     */
+    public TotpCheck validatePassword(String totp, UserCredentials credentials) {
+        return validatePassword(totp, credentials.id(), credentials.mfaEnabled(), credentials.mfaSecretKey());
+    }
 
-        if (totp.isEmpty()) {
-            throw new TotpNotProvidedException("Please provide a TOTP code.");
+    private TotpCheck validatePassword(String totp, Long userId, boolean mfaEnabled, String cipherText) {
+
+        // Both are steps of every MFA login rather than errors, so they are returned instead of thrown
+        if (!mfaEnabled) {
+            return TotpCheck.MFA_NOT_ENABLED;
         }
 
-        int totp_num = getTotp(totp);
+        OptionalInt totp_num = parseTotp(totp);
 
-        if (!authenticator.authorize(decrypt(user.getMfa().getMfaSecretKey()), totp_num)) {
+        if (totp_num.isEmpty()) {
+            return TotpCheck.TOTP_NOT_PROVIDED;
+        }
+
+        if (!onCryptoThread(() -> authenticator.authorize(getSecret(userId, cipherText), totp_num.getAsInt()))) {
             throw new TotpInvalidException("Incorrect TOTP provided.");
         }
 
+        return TotpCheck.PASSED;
+
     }
 
     /**
@@ -166,7 +282,7 @@ public class MfaService {
 
         int totp_num = getTotp(totp);
 
-        if (!authenticator.authorize(decrypt(user.getMfa().getMfaSecretKey()), totp_num)) {
+        if (!onCryptoThread(() -> authenticator.authorize(getSecret(user), totp_num))) {
             throw new TotpInvalidException("Incorrect TOTP provided.");
         }
 
@@ -180,9 +296,10 @@ public class MfaService {
      */
     public void instantiateMfaForUser(User user) {
 
-        GoogleAuthenticatorKey key = authenticator.createCredentials();
-        Mfa mfa = new Mfa(null, user, false, encrypt(key.getKey()));
+        String encryptedKey = onCryptoThread(() -> encrypt(authenticator.createCredentials().getKey()));
+        Mfa mfa = new Mfa(null, user, false, encryptedKey);
         user.setMfa(mfa);
+        invalidateSecret(user.getId());
 
     }
 
@@ -5,5 +5,6 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 public interface PasswordEncodingService {
     String encode(String password);
     Boolean matches(String rawPassword, String encoded);
+    Boolean upgradeEncoding(String encoded);
     PasswordEncoder getEncoder();
 }
@@ -0,0 +1,82 @@
+package com.example.taskmanagerauth.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Picks the BCrypt cost for the host the service runs on: the highest strength whose median
+ * verification time stays within the latency target, but never less than the configured minimum.
+ */
+public final class PasswordHashCalibrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashCalibrator.class);
+
+    private static final String SAMPLE_PASSWORD = "calibration-sample-password";
+
+    private PasswordHashCalibrator() {}
+
+    /**
+     * Measure BCrypt on this host and pick a strength
+     * @param targetLatency The p50 time one password check may take
+     * @param minStrength The lowest strength that may be chosen, even if it misses the target
+     * @param maxStrength The highest strength that may be chosen
+     * @param samples How many checks are timed per strength
+     * @return (int) The chosen strength
+     */
+    public static int calibrateBcryptStrength(Duration targetLatency, int minStrength, int maxStrength, int samples) {
+
+        long targetNanos = targetLatency.toNanos();
+        int chosen = minStrength;
+
+        // Warm up, so the first measurement does not include JIT compilation
+        measureMedianNanos(minStrength, 2);
+
+        for (int strength = minStrength; strength <= maxStrength; strength++) {
+
+            long median = measureMedianNanos(strength, samples);
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("BCrypt strength {} takes {} ms", strength, Duration.ofNanos(median).toMillis());
+            }
+
+            if (median > targetNanos) {
+                break;
+            }
+
+            chosen = strength;
+
+            // Each step doubles the work, so don't spend startup time measuring one that cannot fit
+            if (median * 2 > targetNanos) {
+                break;
+            }
+
+        }
+
+        logger.info("Calibrated BCrypt strength {} for a {} ms target", chosen, targetLatency.toMillis());
+
+        return chosen;
+
+    }
+
+    private static long measureMedianNanos(int strength, int samples) {
+
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        String hash = encoder.encode(SAMPLE_PASSWORD);
+        long[] timings = new long[Math.max(1, samples)];
+
+        for (int i = 0; i < timings.length; i++) {
+            long start = System.nanoTime();
+            encoder.matches(SAMPLE_PASSWORD, hash);
+            timings[i] = System.nanoTime() - start;
+        }
+
+        Arrays.sort(timings);
+        return timings[timings.length / 2];
+
+    }
+
+}
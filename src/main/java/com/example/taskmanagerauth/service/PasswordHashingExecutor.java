@@ -0,0 +1,159 @@
+package com.example.taskmanagerauth.service;
+
+import com.example.taskmanagerauth.exception.server.PasswordHashingUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing on a pool sized to the CPU cores instead of on request threads, so a burst of logins
+ * queues here rather than occupying every Tomcat worker. With virtual threads enabled, MfaService also sends its
+ * AES-GCM and TOTP work here, so CPU-bound crypto never monopolizes the carrier threads.
+ * Work is refused with a PasswordHashingUnavailableException when the queue is full, or when a task waited
+ * longer than the queue timeout before it could start.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingExecutor.class);
+
+    private final ThreadPoolExecutor executor;
+    private final long queueTimeoutNanos;
+    private final Duration retryAfter;
+
+    private final Timer queueWait;
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedQueueTimeout;
+
+    @Autowired
+    public PasswordHashingExecutor(
+            @Value("${password-hashing.threads:0}") int threads,
+            @Value("${password-hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${password-hashing.queue-timeout:2s}") Duration queueTimeout,
+            @Value("${password-hashing.retry-after:1s}") Duration retryAfter,
+            MeterRegistry meterRegistry
+    ) {
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+
+        this.executor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        this.queueTimeoutNanos = queueTimeout.toNanos();
+        this.retryAfter = retryAfter;
+
+        Gauge.builder("password.hashing.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Password hashing tasks waiting for a thread")
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashing tasks currently running")
+                .register(meterRegistry);
+
+        this.queueWait = Timer.builder("password.hashing.queue.wait")
+                .description("Time password hashing tasks spent queued before starting")
+                .register(meterRegistry);
+        this.rejectedQueueFull = Counter.builder("password.hashing.rejected")
+                .tag("reason", "queue_full")
+                .register(meterRegistry);
+        this.rejectedQueueTimeout = Counter.builder("password.hashing.rejected")
+                .tag("reason", "queue_timeout")
+                .register(meterRegistry);
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Password hashing executor started with {} threads and a queue of {}", poolSize, queueCapacity);
+        }
+
+    }
+
+    /**
+     * Run a hashing task on the pool and wait for its result
+     * @param task The task, e.g. a BCrypt encode or match
+     * @return (T) The result of the task
+     * @throws PasswordHashingUnavailableException If the pool is saturated
+     */
+    public <T> T execute(Supplier<T> task) {
+
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+
+        try {
+            future = executor.submit(() -> {
+
+                long waited = System.nanoTime() - submittedAt;
+                queueWait.record(waited, TimeUnit.NANOSECONDS);
+
+                // The caller has most likely given up by now, so don't burn a core on it
+                if (waited > queueTimeoutNanos) {
+                    rejectedQueueTimeout.increment();
+                    throw unavailable();
+                }
+
+                return task.get();
+
+            });
+        } catch (RejectedExecutionException exception) {
+            rejectedQueueFull.increment();
+            throw unavailable();
+        }
+
+        try {
+            return future.get();
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (exception.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(exception.getCause());
+        } catch (InterruptedException exception) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw unavailable();
+        }
+
+    }
+
+    private PasswordHashingUnavailableException unavailable() {
+        return new PasswordHashingUnavailableException("Too many login attempts are being processed.", retryAfter);
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+}
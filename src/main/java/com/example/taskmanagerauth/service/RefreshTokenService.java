@@ -0,0 +1,158 @@
+package com.example.taskmanagerauth.service;
+
+import com.example.taskmanagerauth.dto.token.RotatedRefreshToken;
+import com.example.taskmanagerauth.entity.RefreshToken;
+import com.example.taskmanagerauth.entity.User;
+import com.example.taskmanagerauth.exception.server.InvalidRefreshTokenException;
+import com.example.taskmanagerauth.repository.RefreshTokenRepository;
+import com.example.taskmanagerauth.repository.UserRepository;
+import jakarta.servlet.http.Cookie;
+import jakarta.transaction.Transactional;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Issues and rotates the long-lived refresh tokens that let clients obtain new access tokens
+ * without sending their password and TOTP again.
+ * Only the SHA-256 of a token is stored. Each token can be used once; presenting a used token again
+ * means it was stolen, so every token of its family is revoked and the user has to log in again.
+ */
+@Service
+public class RefreshTokenService {
+
+    public static final String REFRESH_COOKIE_NAME = "taskmanager_refresh_token";
+
+    private static final int TOKEN_BYTES = 32;
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final Duration ttl;
+    private final String cookiePath;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Autowired
+    public RefreshTokenService(
+            RefreshTokenRepository refreshTokenRepository,
+            UserRepository userRepository,
+            @Value("${jwt.refresh.ttl:14d}") Duration ttl,
+            @Value("${server.servlet.context-path:}") String contextPath
+    ) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.ttl = ttl;
+        this.cookiePath = contextPath + "/auth/refresh";
+    }
+
+    /**
+     * Start a new token family, e.g. after a full login
+     * @param userId The id of the authenticated user
+     * @return (String) The raw refresh token
+     */
+    @Transactional
+    public String issue(Long userId) {
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Issuing refresh token for user {}", userId);
+        }
+
+        return createToken(userId, UUID.randomUUID().toString());
+
+    }
+
+    /**
+     * Consume a refresh token and replace it with a new one of the same family
+     * @param rawToken The token presented by the client
+     * @return (RotatedRefreshToken) The owner and the replacement token
+     * @throws InvalidRefreshTokenException If the token is unknown, expired, revoked or already used
+     */
+    @Transactional(dontRollbackOn = InvalidRefreshTokenException.class)
+    public RotatedRefreshToken rotate(String rawToken) {
+
+        if (rawToken == null || rawToken.isBlank()) {
+            throw new InvalidRefreshTokenException("Refresh token not provided.");
+        }
+
+        RefreshToken refreshToken = refreshTokenRepository.findByTokenHash(hash(rawToken)).orElseThrow(
+                () -> new InvalidRefreshTokenException("Refresh token is invalid.")
+        );
+
+        if (refreshToken.getExpiresAt().isBefore(Instant.now())) {
+            throw new InvalidRefreshTokenException("Refresh token is expired.");
+        }
+
+        // The conditional update makes two concurrent refreshes with the same token count as a reuse
+        if (refreshToken.getRevoked() || refreshTokenRepository.markUsed(refreshToken.getId()) == 0) {
+
+            logger.warn("Refresh token reuse detected, revoking family {}", refreshToken.getFamilyId());
+            refreshTokenRepository.revokeFamily(refreshToken.getFamilyId());
+
+            throw new InvalidRefreshTokenException("Refresh token is invalid.");
+
+        }
+
+        // The user is loaded here, as the caller reads its roles after the transaction has closed
+        User user = Hibernate.unproxy(refreshToken.getUser(), User.class);
+
+        return new RotatedRefreshToken(
+                user,
+                createToken(user.getId(), refreshToken.getFamilyId())
+        );
+
+    }
+
+    public Cookie generateRefreshCookie(String rawToken) {
+
+        Cookie cookie = new Cookie(REFRESH_COOKIE_NAME, rawToken);
+
+        cookie.setHttpOnly(true);
+        cookie.setSecure(true);
+        cookie.setPath(cookiePath); // Only sent to the refresh endpoint
+        cookie.setMaxAge((int) Math.min(Integer.MAX_VALUE, ttl.toSeconds()));
+
+        return cookie;
+
+    }
+
+    private String createToken(Long userId, String familyId) {
+
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        refreshTokenRepository.save(RefreshToken.of(
+                userRepository.getReferenceById(userId),
+                hash(rawToken),
+                familyId,
+                Instant.now().plus(ttl)
+        ));
+
+        return rawToken;
+
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawToken.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.example.taskmanagerauth.service;
+
+import com.example.taskmanagerauth.entity.Role;
+import com.example.taskmanagerauth.repository.RoleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The canonical roles rows, each looked up once and shared by every user that holds the role.
+ * Only ids and names are cached; callers get their own Role instance referring to the existing row.
+ */
+@Service
+public class RoleRegistry {
+
+    public static final String USER = "USER";
+    public static final String ADMIN = "ADMIN";
+
+    private record CanonicalRole(Long id, String name) {}
+
+    private static final Logger logger = LoggerFactory.getLogger(RoleRegistry.class);
+
+    private final RoleRepository roleRepository;
+    private final ConcurrentHashMap<String, CanonicalRole> roles = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RoleRegistry(RoleRepository roleRepository) {
+        this.roleRepository = roleRepository;
+    }
+
+    /**
+     * @param name The role name
+     * @return (Role) A detached Role referring to the canonical row, created on first use if it does not exist yet
+     */
+    public Role getRole(String name) {
+        CanonicalRole role = roles.computeIfAbsent(name, this::loadOrCreate);
+        return new Role(role.id(), role.name());
+    }
+
+    /**
+     * @return (Set) The roles every newly registered user gets
+     */
+    public Set<Role> getDefaultRoles() {
+        return Set.of(getRole(USER));
+    }
+
+    private CanonicalRole loadOrCreate(String name) {
+
+        Role role = roleRepository.findByName(name);
+
+        if (role == null) {
+            try {
+                role = roleRepository.saveAndFlush(Role.of(name));
+                logger.info("Created role {}", name);
+            } catch (DataIntegrityViolationException exception) {
+                // Another instance created it first
+                role = roleRepository.findByName(name);
+            }
+        }
+
+        return new CanonicalRole(role.getId(), role.getName());
+
+    }
+
+}
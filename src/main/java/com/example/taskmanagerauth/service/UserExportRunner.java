@@ -0,0 +1,63 @@
+package com.example.taskmanagerauth.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Command line mode of the user export: started with --user-export.file=users.ndjson, the application writes
+ * every user to the file and exits. Combine with --spring.main.web-application-type=none to skip the web server.
+ */
+@Component
+@ConditionalOnProperty(name = "user-export.file")
+public class UserExportRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserExportRunner.class);
+
+    private final Path file;
+    private final boolean exit;
+    private final UserExportService userExportService;
+    private final ConfigurableApplicationContext context;
+
+    @Autowired
+    public UserExportRunner(
+            @Value("${user-export.file}") Path file,
+            @Value("${user-export.exit:true}") boolean exit,
+            UserExportService userExportService,
+            ConfigurableApplicationContext context
+    ) {
+        this.file = file;
+        this.exit = exit;
+        this.userExportService = userExportService;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+
+        logger.info("Exporting users to {}", file);
+
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(file))) {
+            userExportService.exportUsers(output);
+        }
+
+        if (exit) {
+            System.exit(SpringApplication.exit(context));
+        }
+
+    }
+
+}
@@ -0,0 +1,144 @@
+package com.example.taskmanagerauth.service;
+
+import com.example.taskmanagerauth.dto.exports.UserExport;
+import com.example.taskmanagerauth.dto.exports.UserExportRow;
+import com.example.taskmanagerauth.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Writes every user, with its roles and encrypted MFA secret, as NDJSON. Users are read through a forward-only
+ * cursor of plain rows and written as they arrive, so memory use does not grow with the number of users.
+ * The output is flushed periodically, so a client receives the export as it is produced.
+ */
+@Service
+public class UserExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserExportService.class);
+
+    private static final int FLUSH_EVERY = 1000;
+
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter userWriter;
+    private final TransactionTemplate transaction;
+
+    private final Counter exportedUsers;
+    private final Timer exportTime;
+
+    @Autowired
+    public UserExportService(
+            UserRepository userRepository,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry
+    ) {
+
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+
+        // Writing a value would otherwise flush the output after every user, instead of every FLUSH_EVERY users
+        this.userWriter = objectMapper.writerFor(UserExport.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setReadOnly(true);
+
+        this.exportedUsers = Counter.builder("user.export.users")
+                .description("Users written by exports")
+                .register(meterRegistry);
+        this.exportTime = Timer.builder("user.export")
+                .description("Time taken to export every user")
+                .register(meterRegistry);
+
+    }
+
+    /**
+     * Write every user to the output, one JSON object per line. The output is flushed but not closed.
+     * @param output Where to write the users
+     * @return (long) The number of users written
+     */
+    public long exportUsers(OutputStream output) {
+
+        Timer.Sample sample = Timer.start();
+        Long exported = transaction.execute(status -> write(output));
+        sample.stop(exportTime);
+
+        exportedUsers.increment(exported);
+        logger.info("Exported {} users", exported);
+
+        return exported;
+
+    }
+
+    private long write(OutputStream output) {
+
+        try (
+                Stream<UserExportRow> rows = userRepository.streamExportRows();
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(output)
+        ) {
+
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            Iterator<UserExportRow> iterator = rows.iterator();
+            List<UserExportRow> user = new ArrayList<>(2);
+            long exported = 0;
+
+            while (iterator.hasNext()) {
+
+                UserExportRow row = iterator.next();
+
+                // Rows arrive in id order, so a new id means the previous user is complete
+                if (!user.isEmpty() && !user.getFirst().id().equals(row.id())) {
+
+                    writeUser(generator, user);
+                    user.clear();
+
+                    if (++exported % FLUSH_EVERY == 0) {
+                        generator.flush();
+                    }
+
+                }
+
+                user.add(row);
+
+            }
+
+            if (!user.isEmpty()) {
+                writeUser(generator, user);
+                exported++;
+            }
+
+            return exported;
+
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+
+    }
+
+    private void writeUser(JsonGenerator generator, List<UserExportRow> rows) throws IOException {
+        userWriter.writeValue(generator, UserExport.of(rows));
+        generator.writeRaw('\n');
+    }
+
+}
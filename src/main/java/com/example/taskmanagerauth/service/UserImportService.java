@@ -0,0 +1,452 @@
+package com.example.taskmanagerauth.service;
+
+import com.example.taskmanagerauth.dto.imports.UserImportError;
+import com.example.taskmanagerauth.dto.imports.UserImportFormat;
+import com.example.taskmanagerauth.dto.imports.UserImportReport;
+import com.example.taskmanagerauth.dto.imports.UserImportRow;
+import com.example.taskmanagerauth.entity.Role;
+import com.example.taskmanagerauth.entity.User;
+import com.example.taskmanagerauth.exception.server.PasswordHashingUnavailableException;
+import com.example.taskmanagerauth.util.UserImportReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.id.IdentifierGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.sql.BatchUpdateException;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates users in bulk from a CSV or NDJSON file, read a chunk at a time so the file is never held in memory.
+ * Passwords are hashed and MFA secrets created in parallel, exactly as a registration would, while the previous
+ * chunk is written. Each chunk is inserted as JDBC batches in one transaction, with ids taken from the same pooled
+ * sequence optimizer Hibernate uses. Rows that cannot be imported are reported with their line number and skipped.
+ */
+@Service
+public class UserImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserImportService.class);
+
+    // Oracle refuses IN lists longer than this
+    private static final int MAX_CHUNK_SIZE = 1000;
+
+    private static final int MAX_USERNAME_LENGTH = 255;
+
+    private static final String INSERT_USER =
+            "INSERT INTO users (id, username, password, last_accessed_at) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_USER_ROLE =
+            "INSERT INTO user_roles (user_id, role_id) VALUES (?, ?)";
+    private static final String INSERT_MFA =
+            "INSERT INTO mfa (user_id, mfa_enabled, mfa_secret_key) VALUES (?, ?, ?)";
+
+    private record PreparedRow(UserImportRow row, CompletableFuture<User> user) {}
+
+    private static class Progress {
+
+        private final int maxReportedErrors;
+        private final List<UserImportError> errors = new ArrayList<>();
+        private long imported = 0;
+        private long failed = 0;
+
+        private Progress(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+
+        private void fail(UserImportRow row, String reason) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new UserImportError(row.line(), row.username(), reason));
+            }
+        }
+
+        private UserImportReport toReport() {
+            // Rows of a chunk are rejected in several passes, so restore file order
+            return new UserImportReport(
+                    imported,
+                    failed,
+                    errors.stream().sorted(Comparator.comparingLong(UserImportError::line)).toList()
+            );
+        }
+
+    }
+
+    private final int chunkSize;
+    private final int parallelism;
+    private final int maxReportedErrors;
+    private final int hashingAttempts;
+    private final UserService userService;
+    private final MfaService mfaService;
+    private final UsernameFilter usernameFilter;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final SessionFactoryImplementor sessionFactory;
+    private final IdentifierGenerator userIdGenerator;
+    private final Cache cache;
+
+    private final Counter importedUsers;
+    private final Counter failedUsers;
+    private final Timer chunkTime;
+
+    @Autowired
+    public UserImportService(
+            @Value("${user-import.chunk-size:500}") int chunkSize,
+            @Value("${user-import.parallelism:0}") int parallelism,
+            @Value("${user-import.max-reported-errors:1000}") int maxReportedErrors,
+            @Value("${user-import.hashing-attempts:5}") int hashingAttempts,
+            UserService userService,
+            MfaService mfaService,
+            UsernameFilter usernameFilter,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            EntityManagerFactory entityManagerFactory,
+            MeterRegistry meterRegistry
+    ) {
+
+        if (chunkSize < 1 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("user-import.chunk-size must be between 1 and " + MAX_CHUNK_SIZE + ".");
+        }
+
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.maxReportedErrors = maxReportedErrors;
+        this.hashingAttempts = Math.max(1, hashingAttempts);
+        this.userService = userService;
+        this.mfaService = mfaService;
+        this.usernameFilter = usernameFilter;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.userIdGenerator = (IdentifierGenerator) sessionFactory.getMappingMetamodel()
+                .getEntityDescriptor(User.class)
+                .getGenerator();
+        this.cache = sessionFactory.getCache();
+
+        this.importedUsers = Counter.builder("user.import.users")
+                .description("Users processed by bulk imports")
+                .tag("result", "imported")
+                .register(meterRegistry);
+        this.failedUsers = Counter.builder("user.import.users")
+                .description("Users processed by bulk imports")
+                .tag("result", "failed")
+                .register(meterRegistry);
+        this.chunkTime = Timer.builder("user.import.chunk")
+                .description("Time taken to write one chunk of imported users")
+                .register(meterRegistry);
+
+    }
+
+    /**
+     * Import every user of a file. The reader is closed once the file is exhausted.
+     * @param input The file
+     * @param format The format of the file
+     * @return (UserImportReport) How many users were imported, and why the others were not
+     */
+    public UserImportReport importUsers(Reader input, UserImportFormat format) {
+
+        Progress progress = new Progress(maxReportedErrors);
+        AtomicInteger threadCount = new AtomicInteger();
+
+        // The threads only wait on the shared hashing pool, so they bound how much of it one import occupies
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "user-import-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try (UserImportReader reader = new UserImportReader(input, format)) {
+
+            List<PreparedRow> pending = List.of();
+            List<UserImportRow> rows;
+
+            // Hash the next chunk while the current one is written
+            while (!(rows = reader.read(chunkSize)).isEmpty()) {
+                List<PreparedRow> next = prepare(rows, workers, progress);
+                write(pending, progress);
+                pending = next;
+            }
+
+            write(pending, progress);
+
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        } finally {
+            workers.shutdownNow();
+        }
+
+        importedUsers.increment(progress.imported);
+        failedUsers.increment(progress.failed);
+
+        logger.info("Imported {} users, {} failed", progress.imported, progress.failed);
+
+        return progress.toReport();
+
+    }
+
+    /**
+     * Drop rows that cannot be imported, then start hashing the rest
+     */
+    private List<PreparedRow> prepare(List<UserImportRow> rows, ExecutorService workers, Progress progress) {
+
+        List<UserImportRow> valid = new ArrayList<>(rows.size());
+        Set<String> usernames = new HashSet<>();
+
+        for (UserImportRow row : rows) {
+
+            String error = validate(row);
+
+            if (error == null && !usernames.add(row.username())) {
+                error = "The username appears more than once in the file.";
+            }
+
+            if (error != null) {
+                progress.fail(row, error);
+            } else {
+                valid.add(row);
+            }
+
+        }
+
+        // Taken names are dropped before hashing; names taken after this check are caught by ux_users_username
+        Set<String> existing = findExistingUsernames(usernames);
+        List<PreparedRow> prepared = new ArrayList<>(valid.size());
+
+        for (UserImportRow row : valid) {
+            if (existing.contains(row.username())) {
+                progress.fail(row, "A user with this name already exists.");
+            } else {
+                prepared.add(new PreparedRow(row, CompletableFuture.supplyAsync(() -> createUser(row), workers)));
+            }
+        }
+
+        return prepared;
+
+    }
+
+    private static String validate(UserImportRow row) {
+
+        if (row.error() != null) {
+            return row.error();
+        }
+
+        if (row.username() == null || row.username().isBlank()) {
+            return "A username must be provided.";
+        }
+
+        if (row.username().length() > MAX_USERNAME_LENGTH) {
+            return "The username must not be longer than " + MAX_USERNAME_LENGTH + " characters.";
+        }
+
+        if (row.password() == null || row.password().isEmpty()) {
+            return "A password must be provided.";
+        }
+
+        return null;
+
+    }
+
+    private Set<String> findExistingUsernames(Set<String> usernames) {
+
+        List<String> candidates = usernames.stream().filter(usernameFilter::mightExist).toList();
+
+        if (candidates.isEmpty()) {
+            return Set.of();
+        }
+
+        String placeholders = String.join(",", Collections.nCopies(candidates.size(), "?"));
+
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT username FROM users WHERE username IN (" + placeholders + ")",
+                String.class,
+                candidates.toArray()
+        ));
+
+    }
+
+    /**
+     * Hash the password and create the MFA secret, as a registration does
+     */
+    private User createUser(UserImportRow row) {
+
+        for (int attempt = 1; ; attempt++) {
+
+            try {
+                User user = userService.createDatabaseUser(row.username(), row.password());
+                mfaService.instantiateMfaForUser(user);
+                return user;
+            } catch (PasswordHashingUnavailableException exception) {
+
+                // Logins share the hashing pool, so give way to them rather than fail the row straight away
+                if (attempt >= hashingAttempts || !pause(exception.getRetryAfter())) {
+                    throw exception;
+                }
+
+            }
+
+        }
+
+    }
+
+    private void write(List<PreparedRow> chunk, Progress progress) {
+
+        List<UserImportRow> rows = new ArrayList<>(chunk.size());
+        List<User> users = new ArrayList<>(chunk.size());
+
+        for (PreparedRow prepared : chunk) {
+            try {
+                users.add(prepared.user().join());
+                rows.add(prepared.row());
+            } catch (CompletionException exception) {
+                progress.fail(prepared.row(), reason(exception.getCause()));
+            }
+        }
+
+        if (users.isEmpty()) {
+            return;
+        }
+
+        assignIds(users);
+
+        Timer.Sample sample = Timer.start();
+
+        try {
+            transaction.executeWithoutResult(status -> insert(users));
+            progress.imported += users.size();
+        } catch (DataIntegrityViolationException exception) {
+
+            // A name was taken since the chunk was checked, so find the offending rows one user at a time
+            for (int i = 0; i < users.size(); i++) {
+                User user = users.get(i);
+                try {
+                    transaction.executeWithoutResult(status -> insert(List.of(user)));
+                    progress.imported++;
+                } catch (DataIntegrityViolationException rowException) {
+                    progress.fail(rows.get(i), isUsernameTaken(rowException)
+                            ? "A user with this name already exists."
+                            : rowException.getMostSpecificCause().getMessage());
+                }
+            }
+
+        }
+
+        sample.stop(chunkTime);
+
+        // The inserts bypass Hibernate, so cached query results may still say these users do not exist
+        cache.evictQueryRegions();
+        cache.evictDefaultQueryRegion();
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Wrote a chunk of {} imported users", users.size());
+        }
+
+    }
+
+    private void assignIds(List<User> users) {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            for (User user : users) {
+                user.setId((Long) userIdGenerator.generate((SharedSessionContractImplementor) session, user));
+            }
+        }
+    }
+
+    private void insert(List<User> users) {
+
+        List<Object[]> userRows = new ArrayList<>(users.size());
+        List<Object[]> roleRows = new ArrayList<>(users.size());
+        List<Object[]> mfaRows = new ArrayList<>(users.size());
+
+        for (User user : users) {
+
+            userRows.add(new Object[] {
+                    user.getId(), user.getUsername(), user.getPassword(), Timestamp.valueOf(user.getLastAccessedAt())
+            });
+
+            for (Role role : user.getRoles()) {
+                roleRows.add(new Object[] { user.getId(), role.getId() });
+            }
+
+            mfaRows.add(new Object[] { user.getId(), user.getMfa().getMfaEnabled(), user.getMfa().getMfaSecretKey() });
+
+            usernameFilter.addAfterCommit(user.getUsername());
+
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_USER, userRows);
+        jdbcTemplate.batchUpdate(INSERT_USER_ROLE, roleRows);
+        jdbcTemplate.batchUpdate(INSERT_MFA, mfaRows);
+
+    }
+
+    /**
+     * JdbcTemplate does not say which constraint failed, so have Hibernate read it from the SQLException, as it does
+     * for the entity inserts of a registration
+     */
+    private boolean isUsernameTaken(DataIntegrityViolationException exception) {
+
+        if (!(exception.getCause() instanceof SQLException sqlException)) {
+            return false;
+        }
+
+        // A failed batch reports the failing statement's exception next to its own
+        if (sqlException instanceof BatchUpdateException && sqlException.getNextException() != null) {
+            sqlException = sqlException.getNextException();
+        }
+
+        return sessionFactory.getJdbcServices().getSqlExceptionHelper().convert(sqlException, "Import user")
+                instanceof ConstraintViolationException violation && UserService.isUsernameTaken(violation);
+
+    }
+
+    private static String reason(Throwable exception) {
+
+        if (exception instanceof PasswordHashingUnavailableException) {
+            return "Password hashing is unavailable, please retry the import of this user.";
+        }
+
+        return exception.getMessage() != null ? exception.getMessage() : exception.getClass().getSimpleName();
+
+    }
+
+    private static boolean pause(Duration duration) {
+
+        try {
+            Thread.sleep(duration);
+            return true;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+    }
+
+}
@@ -1,18 +1,22 @@
 package com.example.taskmanagerauth.service;
 
+import com.example.taskmanagerauth.dto.credentials.UserCredentials;
 import com.example.taskmanagerauth.dto.impl.LoginRequest;
 import com.example.taskmanagerauth.dto.responses.LoginResult;
 import com.example.taskmanagerauth.dto.responses.MfaRequired;
 import com.example.taskmanagerauth.dto.responses.Success;
+import com.example.taskmanagerauth.dto.responses.TotpCheck;
 import com.example.taskmanagerauth.dto.responses.TotpRequired;
 import com.example.taskmanagerauth.entity.Role;
 import com.example.taskmanagerauth.entity.User;
 import com.example.taskmanagerauth.exception.server.*;
 import com.example.taskmanagerauth.repository.UserRepository;
 import jakarta.transaction.Transactional;
+import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -22,8 +26,10 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class UserService implements UserDetailsService {
@@ -31,36 +37,60 @@ public class UserService implements UserDetailsService {
     private final UserRepository userRepository;
     private final PasswordEncodingService passwordEncoder;
     private final MfaService mfaService;
+    private final UsernameFilter usernameFilter;
+    private final RoleRegistry roleRegistry;
+    private final LastAccessTracker lastAccessTracker;
+
+    // Checked against unknown usernames, so they take as long to reject as a wrong password
+    private volatile String dummyHash;
 
     @Autowired
     public UserService(
             UserRepository userRepository,
             PasswordEncodingService passwordEncoder,
-            MfaService mfaService
+            MfaService mfaService,
+            UsernameFilter usernameFilter,
+            RoleRegistry roleRegistry,
+            LastAccessTracker lastAccessTracker
     ) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.mfaService = mfaService;
+        this.usernameFilter = usernameFilter;
+        this.roleRegistry = roleRegistry;
+        this.lastAccessTracker = lastAccessTracker;
     }
 
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
 
+    private static final String USERNAME_CONSTRAINT = "ux_users_username";
+
     // Wrapper methods
 
+    /**
+     * Log a user in. Must not be called inside a transaction: the credentials are read in the repository's own
+     * short transaction, so the connection is back in the pool before the password is hashed or the TOTP checked.
+     * @param loginRequest The username, password and optional TOTP
+     * @return (LoginResult) Whether the user is logged in or still has to complete MFA
+     */
     public LoginResult login(LoginRequest loginRequest) {
 
-        User user = getUserByUsernameAndPassword(loginRequest.getUsername(), loginRequest.getPassword());
-        UserDetails userDetails = createUserDetails(user);
+        UserCredentials credentials = getCredentialsByUsernameAndPassword(loginRequest.getUsername(), loginRequest.getPassword());
+        UserDetails userDetails = createUserDetails(credentials);
 
-        try {
-            mfaService.validatePassword(loginRequest.getTotp(), user);
-            return new Success(userDetails);
-        } catch (MfaNotEnabledException exception) {
-            return new MfaRequired(userDetails);
-        } catch (TotpNotProvidedException exception) {
-            return new TotpRequired(userDetails);
+        TotpCheck totpCheck = mfaService.validatePassword(loginRequest.getTotp(), credentials);
+
+        // Only a completed login counts as activity: the password alone does not keep an MFA account alive
+        if (totpCheck != TotpCheck.TOTP_NOT_PROVIDED) {
+            lastAccessTracker.record(credentials.id());
         }
 
+        return switch (totpCheck) {
+            case PASSED -> new Success(userDetails);
+            case MFA_NOT_ENABLED -> new MfaRequired(userDetails);
+            case TOTP_NOT_PROVIDED -> new TotpRequired(userDetails);
+        };
+
     }
 
     // UserDetail services
@@ -73,6 +103,14 @@ public class UserService implements UserDetailsService {
         );
     }
 
+    public UserDetails createUserDetails(UserCredentials credentials) {
+        return new org.springframework.security.core.userdetails.User(
+                String.valueOf(credentials.id()),
+                credentials.password(),
+                credentials.roles().stream().map(SimpleGrantedAuthority::new).toList()
+        );
+    }
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 
@@ -80,11 +118,15 @@ public class UserService implements UserDetailsService {
             logger.debug("Attempting loadUserByUsername with {}", username);
         }
 
-        User user = userRepository.findByUsername(username).orElseThrow(
+        if (!usernameFilter.mightExist(username)) {
+            throw new UsernameNotFoundException("Invalid credentials provided.");
+        }
+
+        UserCredentials credentials = userRepository.findCredentialsByUsername(username).orElseThrow(
                 () -> new UsernameNotFoundException("Invalid credentials provided.")
         );
 
-        return createUserDetails(user);
+        return createUserDetails(credentials);
 
     }
 
@@ -110,7 +152,7 @@ public class UserService implements UserDetailsService {
 
         UserDetails userDetails = loadUserByUsername(username);
 
-        if (!passwordEncoder.getEncoder().matches(password, userDetails.getPassword())) {
+        if (!passwordEncoder.matches(password, userDetails.getPassword())) {
             throw new InvalidCredentialsException("Invalid credentials provided.");
         }
 
@@ -136,27 +178,81 @@ public class UserService implements UserDetailsService {
                 .toList();
     }
 
+    /**
+     * Reject a name that is already taken before a password is hashed for it. Only names a ready username filter
+     * may have seen are queried; every other registration goes straight to its insert, where ux_users_username
+     * rejects a taken name in saveUser, as it settles two registrations racing for one name.
+     * @param username The requested username
+     * @throws UsernameTakenException If a user with this name exists
+     */
+    public void checkUsernameAvailable(String username) {
+        if (usernameFilter.isReady() && usernameFilter.mightExist(username) && userRepository.existsByUsername(username)) {
+            throw new UsernameTakenException("A user with this name already exists.");
+        }
+    }
+
     // Retrieve User objects
 
     public User createDatabaseUser(String username, String password) {
-        return User.of(username, passwordEncoder.encode(password));
+        User user = User.of(username, passwordEncoder.encode(password), roleRegistry.getDefaultRoles());
+        user.setLastAccessedAt(LocalDateTime.now());
+        return user;
     }
 
-    public User getUserByUsernameAndPassword(String username, String password) {
+    /**
+     * Verify a login's username and password. Only the credentials projection is loaded, in a single statement;
+     * the User entity is never hydrated on this path.
+     * @param username The username
+     * @param password The raw password
+     * @return (UserCredentials) The verified credentials
+     */
+    public UserCredentials getCredentialsByUsernameAndPassword(String username, String password) {
 
         if (logger.isDebugEnabled()) {
-            logger.debug("Attempting getUserByUsernameAndPassword with {}", username);
+            logger.debug("Attempting getCredentialsByUsernameAndPassword with {}", username);
         }
 
-        User user = userRepository.findByUsername(username).orElseThrow(
-                () -> new UsernameNotFoundException("Invalid credentials provided.")
-        );
+        UserCredentials credentials = (usernameFilter.mightExist(username)
+                ? userRepository.findCredentialsByUsername(username)
+                : Optional.<UserCredentials>empty()
+        ).orElseThrow(() -> rejectUnknownUser(password));
 
-        if (!passwordEncoder.matches(password, user.getPassword())) {
+        if (!passwordEncoder.matches(password, credentials.password())) {
             throw new InvalidCredentialsException("Invalid credentials provided.");
         }
 
-        return user;
+        return upgradePasswordHash(credentials, password);
+
+    }
+
+    /**
+     * Rehash a verified password if its hash uses an outdated algorithm or cost.
+     * This is best effort: the login goes ahead with the old hash if hashing is currently saturated.
+     * @param credentials The credentials whose password was just verified
+     * @param password The raw password
+     * @return (UserCredentials) The credentials, carrying the new hash if it was upgraded
+     */
+    private UserCredentials upgradePasswordHash(UserCredentials credentials, String password) {
+
+        if (!passwordEncoder.upgradeEncoding(credentials.password())) {
+            return credentials;
+        }
+
+        try {
+
+            String upgraded = passwordEncoder.encode(password);
+            userRepository.updatePassword(credentials.id(), upgraded);
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("Upgraded password hash of user {}", credentials.id());
+            }
+
+            return credentials.withPassword(upgraded);
+
+        } catch (PasswordHashingUnavailableException exception) {
+            logger.info("Skipped password hash upgrade of user {}: {}", credentials.id(), exception.getMessage());
+            return credentials;
+        }
 
     }
 
@@ -172,10 +268,24 @@ public class UserService implements UserDetailsService {
 
     }
 
-    public void checkIfUserExists(User user) {
-        if (userRepository.findByUsername(user.getUsername()).isPresent()) {
-            throw new UsernameTakenException("A user with this name already exists.");
+    /**
+     * Hash the password against a throwaway hash, so an unknown username costs as much as a wrong password
+     * @param password The raw password
+     * @return (UsernameNotFoundException) The exception to throw
+     */
+    private UsernameNotFoundException rejectUnknownUser(String password) {
+
+        String hash = dummyHash;
+
+        if (hash == null) {
+            hash = passwordEncoder.encode("dummy-password");
+            dummyHash = hash;
         }
+
+        passwordEncoder.matches(password, hash);
+
+        return new UsernameNotFoundException("Invalid credentials provided.");
+
     }
 
     // Transactionals
@@ -187,7 +297,39 @@ public class UserService implements UserDetailsService {
             logger.debug("Attempting to save user {}", user.getUsername());
         }
 
-        userRepository.saveAndFlush(user);
+        try {
+            userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException exception) {
+            throw isUsernameTaken(exception) ? new UsernameTakenException("A user with this name already exists.") : exception;
+        }
+
+        usernameFilter.addAfterCommit(user.getUsername());
+
+    }
+
+    static boolean isUsernameTaken(DataIntegrityViolationException exception) {
+
+        for (Throwable cause = exception.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return isUsernameTaken(violation);
+            }
+        }
+
+        return false;
+
+    }
+
+    /**
+     * @param violation A violation as reported by Hibernate, which read the constraint name the database's way
+     * @return (boolean) Whether the violated constraint is the unique index on usernames
+     */
+    static boolean isUsernameTaken(ConstraintViolationException violation) {
+
+        String constraintName = violation.getConstraintName();
+
+        // Some databases qualify it with the schema, e.g. PUBLIC.UX_USERS_USERNAME
+        return constraintName != null
+                && USERNAME_CONSTRAINT.equalsIgnoreCase(constraintName.substring(constraintName.lastIndexOf('.') + 1));
 
     }
 
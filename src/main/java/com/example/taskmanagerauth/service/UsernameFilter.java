@@ -0,0 +1,186 @@
+package com.example.taskmanagerauth.service;
+
+import com.example.taskmanagerauth.repository.UserRepository;
+import com.example.taskmanagerauth.util.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * An in-memory Bloom filter over users.username, so names that definitely don't exist can be
+ * answered without a database round trip. It only ever answers "definitely not" or "maybe":
+ * until the first scan completed, and when disabled, every name is a "maybe".
+ * Names that are saved on another instance only become known here on the next rebuild.
+ */
+@Component
+public class UsernameFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsernameFilter.class);
+
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    // Not synchronized: the scan blocks on the database and would pin a virtual thread
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private volatile BloomFilter current;
+
+    // Non-null while a rebuild scans the table, so names saved meanwhile land in both filters
+    private volatile BloomFilter building;
+
+    @Autowired
+    public UsernameFilter(
+            @Value("${username-filter.enabled:false}") boolean enabled,
+            @Value("${username-filter.expected-insertions:100000}") long expectedInsertions,
+            @Value("${username-filter.false-positive-rate:0.01}") double falsePositiveRate,
+            UserRepository userRepository,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = transactionManager == null ? null : new TransactionTemplate(transactionManager);
+
+        if (readOnlyTransaction != null) {
+            readOnlyTransaction.setReadOnly(true);
+        }
+    }
+
+    public static UsernameFilter disabled() {
+        return new UsernameFilter(false, 1, 0.5, null, null);
+    }
+
+    /**
+     * @param username The name to look up
+     * @return (boolean) false if no user with this name exists, true if one may exist
+     */
+    public boolean mightExist(String username) {
+        BloomFilter filter = current;
+        return filter == null || filter.mightContain(username);
+    }
+
+    /**
+     * Record a saved name once its transaction committed, so a concurrent rebuild either sees the row or the name
+     * @param username The saved name
+     */
+    public void addAfterCommit(String username) {
+
+        if (!enabled) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(username);
+                }
+            });
+        } else {
+            add(username);
+        }
+
+    }
+
+    private void add(String username) {
+
+        BloomFilter filter = current;
+        if (filter != null) {
+            filter.put(username);
+        }
+
+        BloomFilter rebuilding = building;
+        if (rebuilding != null) {
+            rebuilding.put(username);
+        }
+
+    }
+
+    /**
+     * Rebuild the filter from a streaming scan of every username, e.g. to forget deleted users or to pick up
+     * users saved by other instances. The previous filter keeps answering until the new one is complete.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+            initialDelayString = "${username-filter.rebuild-interval:1h}",
+            fixedDelayString = "${username-filter.rebuild-interval:1h}"
+    )
+    public void rebuild() {
+
+        if (!enabled) {
+            return;
+        }
+
+        rebuildLock.lock();
+
+        try {
+            rebuildFilter();
+        } finally {
+            rebuildLock.unlock();
+        }
+
+    }
+
+    private void rebuildFilter() {
+
+        long start = System.nanoTime();
+
+        // Leave room to grow until the next rebuild
+        BloomFilter filter = new BloomFilter(Math.max(expectedInsertions, userRepository.count() * 2), falsePositiveRate);
+        building = filter;
+
+        try {
+
+            LongAdder scanned = new LongAdder();
+
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<String> usernames = userRepository.streamAllUsernames()) {
+                    usernames.forEach(username -> {
+                        filter.put(username);
+                        scanned.increment();
+                    });
+                }
+            });
+
+            current = filter;
+
+            logger.info(
+                    "Username filter rebuilt with {} names in {} ms",
+                    scanned.sum(),
+                    (System.nanoTime() - start) / 1_000_000
+            );
+
+        } catch (RuntimeException exception) {
+            logger.error("Username filter rebuild failed, keeping the previous filter: {}", exception.getMessage());
+        } finally {
+            building = null;
+        }
+
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isReady() {
+        return current != null;
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.example.taskmanagerauth.service;
+
+import com.example.taskmanagerauth.dto.token.VerifiedToken;
+import com.example.taskmanagerauth.util.BoundedTtlCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Remembers access tokens that already passed signature verification, so the same cookie
+ * is not re-verified on every request during its lifetime.
+ * Entries are keyed by the token's SHA-256 digest and never outlive the token's own expiry.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private record Digest(long first, long second, long third, long fourth) {}
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final boolean enabled;
+    private final Duration ttl;
+    private final BoundedTtlCache<Digest, VerifiedToken> cache;
+
+    // Bumped on every flush, so a verification that raced with a key rotation is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public VerifiedTokenCache(
+            @Value("${jwt.cache.enabled:false}") boolean enabled,
+            @Value("${jwt.cache.max-size:10000}") int maxSize,
+            @Value("${jwt.cache.ttl:5m}") Duration ttl,
+            MeterRegistry meterRegistry
+    ) {
+
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.cache = new BoundedTtlCache<>(maxSize);
+
+        FunctionCounter.builder("jwt.cache.hits", cache, BoundedTtlCache::getHits)
+                .description("Access tokens found already verified")
+                .register(meterRegistry);
+        FunctionCounter.builder("jwt.cache.misses", cache, BoundedTtlCache::getMisses)
+                .description("Access tokens that had to be verified")
+                .register(meterRegistry);
+        FunctionCounter.builder("jwt.cache.evictions", cache, BoundedTtlCache::getEvictions)
+                .description("Verified tokens dropped, whether expired or for lack of room")
+                .register(meterRegistry);
+        Gauge.builder("jwt.cache.size", cache, BoundedTtlCache::size)
+                .description("Verified tokens currently cached")
+                .register(meterRegistry);
+
+    }
+
+    public static VerifiedTokenCache disabled() {
+        return new VerifiedTokenCache(false, 1, Duration.ZERO, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Return the cached claims of a token, or verify it and cache the result
+     * @param token The raw token
+     * @param verifier Performs the full verification on a miss, throwing if the token is invalid
+     * @return (VerifiedToken) The verified claims
+     */
+    public VerifiedToken getOrVerify(String token, Function<String, VerifiedToken> verifier) {
+
+        if (!enabled) {
+            return verifier.apply(token);
+        }
+
+        Digest key = digest(token);
+        VerifiedToken cached = cache.get(key);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        long startGeneration = generation.get();
+        VerifiedToken verified = verifier.apply(token);
+
+        long expiresAt = Math.min(
+                verified.expiresAt().toEpochMilli(),
+                System.currentTimeMillis() + ttl.toMillis()
+        );
+
+        cache.put(key, verified, expiresAt);
+
+        if (generation.get() != startGeneration) {
+            cache.invalidate(key);
+        }
+
+        return verified;
+
+    }
+
+    /**
+     * Drop every cached token, e.g. after the signing keys changed
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    private static Digest digest(String token) {
+        ByteBuffer digest = ByteBuffer.wrap(SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
+        return new Digest(digest.getLong(), digest.getLong(), digest.getLong(), digest.getLong());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public long getHits() {
+        return cache.getHits();
+    }
+
+    public long getMisses() {
+        return cache.getMisses();
+    }
+
+    public long getEvictions() {
+        return cache.getEvictions();
+    }
+
+}
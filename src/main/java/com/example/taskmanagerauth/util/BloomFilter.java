@@ -0,0 +1,111 @@
+package com.example.taskmanagerauth.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe Bloom filter over strings. mightContain never returns false for a value that was put,
+ * and returns true for a value that was not put with roughly the configured probability.
+ * Values cannot be removed; build a new filter instead.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * @param expectedInsertions How many values the filter is sized for
+     * @param falsePositiveRate The false positive probability once expectedInsertions values were put
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+
+        if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Invalid Bloom filter parameters provided.");
+        }
+
+        // Optimal sizes: m = -n ln p / (ln 2)^2 and k = m / n ln 2
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (optimalBits + 63) / 64));
+
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) optimalBits / expectedInsertions * Math.log(2)));
+
+    }
+
+    public void put(String value) {
+
+        long hash = hash(value);
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+
+        // Kirsch-Mitzenmacher: k indexes derived from two hashes
+        for (int i = 1; i <= hashCount; i++) {
+            long index = Math.floorMod(first + (long) i * second, bitCount);
+            setBit(index);
+        }
+
+    }
+
+    public boolean mightContain(String value) {
+
+        long hash = hash(value);
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+
+        for (int i = 1; i <= hashCount; i++) {
+            long index = Math.floorMod(first + (long) i * second, bitCount);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    private void setBit(long index) {
+
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long current;
+
+        do {
+            current = bits.get(word);
+            if ((current & mask) != 0) {
+                return;
+            }
+        } while (!bits.compareAndSet(word, current, current | mask));
+
+    }
+
+    // 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer to spread both halves
+    private static long hash(String value) {
+
+        long hash = 0xcbf29ce484222325L;
+
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+
+        return hash;
+
+    }
+
+}
@@ -0,0 +1,174 @@
+package com.example.taskmanagerauth.util;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * A size-bounded cache where every entry carries its own expiry time.
+ * Reads are lock-free; writes only contend on the hash bin they touch.
+ * Once the cache is full, expired entries are dropped first, then arbitrary ones until there is room again.
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class BoundedTtlCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAt) {}
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final LongSupplier clock;
+    private final BiConsumer<K, V> onRemoval;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public BoundedTtlCache(int maxSize) {
+        this(maxSize, System::currentTimeMillis, (key, value) -> {});
+    }
+
+    /**
+     * @param maxSize Maximum number of entries
+     * @param clock Source of the current time in milliseconds, compared against each entry's expiry
+     * @param onRemoval Called with every entry that leaves the cache, whether evicted, expired or invalidated
+     */
+    public BoundedTtlCache(int maxSize, LongSupplier clock, BiConsumer<K, V> onRemoval) {
+
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("The cache size must be positive.");
+        }
+
+        this.maxSize = maxSize;
+        this.clock = clock;
+        this.onRemoval = onRemoval;
+
+    }
+
+    /**
+     * @param key The key
+     * @return (V) The cached value, or null if it is absent or expired
+     */
+    public V get(K key) {
+
+        Entry<V> entry = entries.get(key);
+
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+
+        if (entry.expiresAt() <= clock.getAsLong()) {
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+                onRemoval.accept(key, entry.value());
+            }
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return entry.value();
+
+    }
+
+    /**
+     * @param key The key
+     * @param value The value
+     * @param expiresAt Time in milliseconds, as reported by the clock, after which the entry is no longer returned
+     */
+    public void put(K key, V value, long expiresAt) {
+
+        if (expiresAt <= clock.getAsLong()) {
+            return;
+        }
+
+        if (entries.size() >= maxSize) {
+            evict();
+        }
+
+        Entry<V> previous = entries.put(key, new Entry<>(value, expiresAt));
+
+        if (previous != null && previous.value() != value) {
+            onRemoval.accept(key, previous.value());
+        }
+
+    }
+
+    public void invalidate(K key) {
+
+        Entry<V> entry = entries.remove(key);
+
+        if (entry != null) {
+            onRemoval.accept(key, entry.value());
+        }
+
+    }
+
+    public void invalidateAll() {
+
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            Map.Entry<K, Entry<V>> entry = iterator.next();
+            iterator.remove();
+            onRemoval.accept(entry.getKey(), entry.getValue().value());
+        }
+
+    }
+
+    /**
+     * Make room for at least one entry: drop expired entries, and if that is not enough,
+     * drop arbitrary entries until the cache is 1/8th below its bound so eviction does not run on every put.
+     */
+    private void evict() {
+
+        long now = clock.getAsLong();
+        int target = maxSize - Math.max(1, maxSize / 8);
+
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            Map.Entry<K, Entry<V>> entry = iterator.next();
+            if (entry.getValue().expiresAt() <= now) {
+                iterator.remove();
+                evictions.increment();
+                onRemoval.accept(entry.getKey(), entry.getValue().value());
+            }
+        }
+
+        iterator = entries.entrySet().iterator();
+
+        while (entries.size() > target && iterator.hasNext()) {
+            Map.Entry<K, Entry<V>> entry = iterator.next();
+            iterator.remove();
+            evictions.increment();
+            onRemoval.accept(entry.getKey(), entry.getValue().value());
+        }
+
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+}
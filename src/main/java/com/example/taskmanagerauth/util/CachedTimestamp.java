@@ -0,0 +1,78 @@
+package com.example.taskmanagerauth.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.function.LongSupplier;
+
+/**
+ * The current time as "yyyy-MM-dd HH:mm:ss", the format of ApiResponse's timestamp. As it only changes once a second,
+ * it is formatted once per second and shared; within the same second a call only reads the clock.
+ */
+public final class CachedTimestamp {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final CachedTimestamp SYSTEM = new CachedTimestamp(System::currentTimeMillis, ZoneId.systemDefault());
+
+    private record Formatted(long epochSecond, String text, byte[] bytes) {}
+
+    private final LongSupplier clock;
+    private final ZoneId zone;
+
+    // Replaced whole, so a reader never sees the text of one second with the bytes of another
+    private volatile Formatted current = new Formatted(Long.MIN_VALUE, null, null);
+
+    /**
+     * @param clock Source of the current time in milliseconds
+     * @param zone Zone the local time is shown in
+     */
+    public CachedTimestamp(LongSupplier clock, ZoneId zone) {
+        this.clock = clock;
+        this.zone = zone;
+    }
+
+    /**
+     * The timestamp in the system clock and zone, as LocalDateTime.now() gives it
+     * @return (CachedTimestamp) The shared instance
+     */
+    public static CachedTimestamp system() {
+        return SYSTEM;
+    }
+
+    /**
+     * @return (String) The current time, formatted
+     */
+    public String text() {
+        return formatted().text();
+    }
+
+    /**
+     * @return (byte[]) The current time, formatted as ASCII. Shared between callers, so it must not be modified.
+     */
+    public byte[] bytes() {
+        return formatted().bytes();
+    }
+
+    private Formatted formatted() {
+
+        long epochSecond = Math.floorDiv(clock.getAsLong(), 1000L);
+        Formatted formatted = current;
+
+        if (formatted.epochSecond() != epochSecond) {
+
+            String text = LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), zone).format(FORMATTER);
+
+            // Racing threads format the same second and store equal values
+            formatted = new Formatted(epochSecond, text, text.getBytes(StandardCharsets.US_ASCII));
+            current = formatted;
+
+        }
+
+        return formatted;
+
+    }
+
+}
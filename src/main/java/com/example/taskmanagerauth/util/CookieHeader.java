@@ -0,0 +1,79 @@
+package com.example.taskmanagerauth.util;
+
+/**
+ * Finds one cookie in a raw Cookie request header. Unlike HttpServletRequest.getCookies, the other cookies are
+ * skipped over rather than parsed, and nothing is allocated apart from the returned value.
+ */
+public final class CookieHeader {
+
+    private CookieHeader() {}
+
+    /**
+     * Find a cookie's value
+     * @param header The Cookie header, e.g. "theme=dark; taskmanager_access_token=..."
+     * @param name The cookie name, matched case-sensitively
+     * @return (String) The value without surrounding quotes, or null if the header is null or lacks the cookie
+     */
+    public static String value(String header, String name) {
+
+        if (header == null) {
+            return null;
+        }
+
+        int length = header.length();
+        int start = 0;
+
+        while (start < length) {
+
+            int end = header.indexOf(';', start);
+            if (end < 0) {
+                end = length;
+            }
+
+            start = skipWhitespace(header, start, end);
+
+            if (header.startsWith(name, start)) {
+
+                int equals = skipWhitespace(header, start + name.length(), end);
+
+                if (equals < end && header.charAt(equals) == '=') {
+                    return unquote(header, skipWhitespace(header, equals + 1, end), end);
+                }
+
+            }
+
+            start = end + 1;
+
+        }
+
+        return null;
+
+    }
+
+    private static int skipWhitespace(String header, int from, int to) {
+        while (from < to && isWhitespace(header.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static String unquote(String header, int from, int to) {
+
+        while (to > from && isWhitespace(header.charAt(to - 1))) {
+            to--;
+        }
+
+        if (to - from >= 2 && header.charAt(from) == '"' && header.charAt(to - 1) == '"') {
+            from++;
+            to--;
+        }
+
+        return header.substring(from, to);
+
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t';
+    }
+
+}
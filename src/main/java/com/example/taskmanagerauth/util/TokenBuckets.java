@@ -0,0 +1,168 @@
+package com.example.taskmanagerauth.util;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A token bucket per string key, for any number of keys in a fixed amount of memory.
+ * Each bucket is one long, holding a fingerprint of its key and the time at which the bucket will be full again
+ * (the generic cell rate algorithm): a take is allowed while that time is at most capacity refills ahead, and pushes
+ * it one refill further. Buckets are updated with compare-and-set, so there are no locks, and keys are never stored,
+ * so there is nothing to collect.
+ * Buckets live in sets of eight, one cache line, chosen by the key's hash. A bucket whose time has passed is full,
+ * the same as no bucket at all, so idle keys are simply overwritten. Only when all eight buckets of a set are in use
+ * is the one closest to full dropped, which forgets what that key had taken.
+ * Keys are told apart by a 24-bit fingerprint within their set, so two keys may occasionally share a bucket; the hash
+ * is seeded per instance, so such collisions cannot be chosen from outside.
+ */
+public class TokenBuckets {
+
+    private static final int SET_SIZE = 8;
+
+    private static final int TIME_BITS = 40;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+
+    private final AtomicLongArray buckets;
+    private final int setMask;
+    private final long seed = ThreadLocalRandom.current().nextLong();
+
+    private final long capacity;
+    private final long refillMillis;
+    private final LongSupplier clock;
+    private final long origin;
+
+    private final LongAdder evictions = new LongAdder();
+
+    public TokenBuckets(int maxKeys, int capacity, Duration refillPeriod) {
+        this(maxKeys, capacity, refillPeriod, System::currentTimeMillis);
+    }
+
+    /**
+     * @param maxKeys How many keys can be limited at once, rounded up to a power of two; each takes 8 bytes
+     * @param capacity Tokens a full bucket holds, i.e. the burst allowed to a key that has been idle
+     * @param refillPeriod Time to refill one token, i.e. the sustained rate once the burst is spent
+     * @param clock Source of the current time in milliseconds
+     */
+    public TokenBuckets(int maxKeys, int capacity, Duration refillPeriod, LongSupplier clock) {
+
+        if (maxKeys <= 0 || maxKeys > 1 << 30 || capacity <= 0 || refillPeriod.toMillis() <= 0) {
+            throw new IllegalArgumentException("Invalid token bucket parameters provided.");
+        }
+
+        int size = Math.max(SET_SIZE, Integer.highestOneBit(maxKeys - 1) << 1);
+
+        this.buckets = new AtomicLongArray(size);
+        this.setMask = size / SET_SIZE - 1;
+        this.capacity = capacity;
+        this.refillMillis = refillPeriod.toMillis();
+        this.clock = clock;
+
+        // Times are kept relative to this, in 40 bits: about 34 years of uptime
+        this.origin = clock.getAsLong() - 1;
+
+    }
+
+    /**
+     * Take a token from a key's bucket
+     * @param key The key, e.g. a client IP
+     * @return (long) 0 if a token was taken, otherwise the milliseconds until one is available
+     */
+    public long tryAcquire(String key) {
+
+        long hash = hash(key);
+        int base = ((int) hash & setMask) * SET_SIZE;
+        long fingerprint = hash >>> TIME_BITS;
+
+        long now = clock.getAsLong() - origin;
+        long limit = now + (capacity - 1) * refillMillis;
+
+        while (true) {
+
+            int index = find(base, fingerprint, now);
+            long current = buckets.get(index);
+
+            long full = current >>> TIME_BITS == fingerprint ? current & TIME_MASK : 0;
+            long next = Math.max(full, now) + refillMillis;
+
+            if (next - refillMillis > limit) {
+                return next - refillMillis - limit;
+            }
+
+            if (buckets.compareAndSet(index, current, fingerprint << TIME_BITS | next)) {
+                return 0;
+            }
+
+        }
+
+    }
+
+    /**
+     * @return (long) How many buckets still in use were dropped to make room for another key
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Find the key's bucket in its set, else the bucket it should take over: an idle one if there is any,
+     * otherwise the one that will be full soonest
+     */
+    private int find(int base, long fingerprint, long now) {
+
+        int idle = -1;
+        int soonest = base;
+        long soonestTime = Long.MAX_VALUE;
+
+        for (int index = base; index < base + SET_SIZE; index++) {
+
+            long current = buckets.get(index);
+            long time = current & TIME_MASK;
+
+            if (current >>> TIME_BITS == fingerprint && current != 0) {
+                return index;
+            }
+
+            if (time <= now) {
+                if (idle < 0) {
+                    idle = index;
+                }
+            } else if (time < soonestTime) {
+                soonest = index;
+                soonestTime = time;
+            }
+
+        }
+
+        if (idle >= 0) {
+            return idle;
+        }
+
+        evictions.increment();
+        return soonest;
+
+    }
+
+    // 64-bit FNV-1a over the UTF-16 chars from a per-instance seed, finished with the MurmurHash3 mixer
+    private long hash(String key) {
+
+        long hash = 0xcbf29ce484222325L ^ seed;
+
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+
+        return hash;
+
+    }
+
+}
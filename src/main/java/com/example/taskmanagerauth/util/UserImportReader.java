@@ -0,0 +1,149 @@
+package com.example.taskmanagerauth.util;
+
+import com.example.taskmanagerauth.dto.imports.UserImportFormat;
+import com.example.taskmanagerauth.dto.imports.UserImportRow;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the users of an import file a line at a time, so the file is never held in memory.
+ * Lines that cannot be parsed are returned as invalid rows rather than ending the import.
+ * Blank lines are skipped but still counted, so reported line numbers match the file.
+ */
+public class UserImportReader implements Closeable {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final BufferedReader reader;
+    private final UserImportFormat format;
+
+    private long line = 0;
+
+    public UserImportReader(Reader reader, UserImportFormat format) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        this.format = format;
+    }
+
+    /**
+     * Read the next rows
+     * @param max The maximum number of rows to read
+     * @return (List) Up to max rows, empty once the file is exhausted
+     */
+    public List<UserImportRow> read(int max) {
+
+        List<UserImportRow> rows = new ArrayList<>(max);
+
+        try {
+
+            String text;
+
+            while (rows.size() < max && (text = reader.readLine()) != null) {
+
+                line++;
+
+                if (text.isBlank()) {
+                    continue;
+                }
+
+                if (format == UserImportFormat.CSV && line == 1 && isCsvHeader(text)) {
+                    continue;
+                }
+
+                rows.add(format == UserImportFormat.CSV ? parseCsv(line, text) : parseNdjson(line, text));
+
+            }
+
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+
+        return rows;
+
+    }
+
+    private static boolean isCsvHeader(String text) {
+        return text.replace("\"", "").trim().equalsIgnoreCase("username,password");
+    }
+
+    private static UserImportRow parseNdjson(long line, String text) {
+
+        try {
+
+            JsonNode node = mapper.readTree(text);
+
+            if (!node.isObject()) {
+                return UserImportRow.invalid(line, "Expected a JSON object.");
+            }
+
+            return UserImportRow.of(line, node.path("username").textValue(), node.path("password").textValue());
+
+        } catch (JsonProcessingException exception) {
+            return UserImportRow.invalid(line, "Malformed JSON.");
+        }
+
+    }
+
+    /**
+     * Split a CSV line into its two fields. Quoted fields may contain commas and doubled quotes,
+     * but not line breaks.
+     */
+    private static UserImportRow parseCsv(long line, String text) {
+
+        List<String> fields = new ArrayList<>(2);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+
+        while (i < text.length()) {
+
+            char c = text.charAt(i++);
+
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i < text.length() && text.charAt(i) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+
+        }
+
+        if (quoted) {
+            return UserImportRow.invalid(line, "Unterminated quoted field.");
+        }
+
+        fields.add(field.toString());
+
+        if (fields.size() != 2) {
+            return UserImportRow.invalid(line, "Expected 2 fields, found " + fields.size() + ".");
+        }
+
+        return UserImportRow.of(line, fields.get(0), fields.get(1));
+
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+}
@@ -0,0 +1,102 @@
+package db.migration.common;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Objects;
+
+/**
+ * Collapse the roles rows that used to be inserted once per user into one row per name, repoint user_roles
+ * at the surviving row and make names unique. The lowest id of each name survives.
+ * Roles are streamed in name order, so only the current name's canonical id is held in memory.
+ */
+public class V4__DeduplicateRoles extends BaseJavaMigration {
+
+    private static final int FETCH_SIZE = 1000;
+    private static final int BATCH_SIZE = 500;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+
+        Connection connection = context.getConnection();
+
+        try (
+                Statement select = connection.createStatement();
+                // Skips users who already hold the canonical row, including through a duplicate repointed before
+                PreparedStatement repoint = connection.prepareStatement(
+                        "UPDATE user_roles SET role_id = ? WHERE role_id = ? AND user_id NOT IN "
+                                + "(SELECT user_id FROM user_roles WHERE role_id = ?)"
+                );
+                // What the repoint skipped would have held the same (role_id, user_id) twice
+                PreparedStatement deleteLeftovers = connection.prepareStatement(
+                        "DELETE FROM user_roles WHERE role_id = ?"
+                );
+                PreparedStatement deleteRole = connection.prepareStatement(
+                        "DELETE FROM roles WHERE id = ?"
+                )
+        ) {
+
+            select.setFetchSize(FETCH_SIZE);
+
+            String canonicalName = null;
+            Long canonicalId = null;
+            int pending = 0;
+
+            try (ResultSet roles = select.executeQuery("SELECT id, name FROM roles ORDER BY name, id")) {
+
+                while (roles.next()) {
+
+                    long id = roles.getLong(1);
+                    String name = roles.getString(2);
+
+                    if (canonicalId == null || !Objects.equals(canonicalName, name)) {
+                        canonicalName = name;
+                        canonicalId = id;
+                        continue;
+                    }
+
+                    repoint.setLong(1, canonicalId);
+                    repoint.setLong(2, id);
+                    repoint.setLong(3, canonicalId);
+                    repoint.addBatch();
+
+                    deleteLeftovers.setLong(1, id);
+                    deleteLeftovers.addBatch();
+
+                    deleteRole.setLong(1, id);
+                    deleteRole.addBatch();
+
+                    if (++pending == BATCH_SIZE) {
+                        executeBatches(repoint, deleteLeftovers, deleteRole);
+                        pending = 0;
+                    }
+
+                }
+
+            }
+
+            if (pending > 0) {
+                executeBatches(repoint, deleteLeftovers, deleteRole);
+            }
+
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE UNIQUE INDEX ux_roles_name ON roles (name)");
+        }
+
+    }
+
+    private static void executeBatches(PreparedStatement... statements) throws SQLException {
+        // Order matters: leftovers are only known once every repoint ran, and the role goes once nothing references it
+        for (PreparedStatement statement : statements) {
+            statement.executeBatch();
+        }
+    }
+
+}
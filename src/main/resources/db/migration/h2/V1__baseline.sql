@@ -0,0 +1,37 @@
+-- H2 counterpart of the Oracle baseline, so tests run the same migration history as production.
+
+CREATE SEQUENCE user_seq START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE role_seq START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE mfa_seq START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE users (
+    id               BIGINT       NOT NULL,
+    last_accessed_at TIMESTAMP(6),
+    password         VARCHAR(255) NOT NULL,
+    username         VARCHAR(255) NOT NULL,
+    CONSTRAINT pk_users PRIMARY KEY (id)
+);
+
+CREATE TABLE roles (
+    id   BIGINT       NOT NULL,
+    name VARCHAR(255),
+    CONSTRAINT pk_roles PRIMARY KEY (id)
+);
+
+CREATE TABLE user_roles (
+    user_id BIGINT NOT NULL,
+    role_id BIGINT NOT NULL,
+    CONSTRAINT pk_user_roles PRIMARY KEY (role_id, user_id),
+    CONSTRAINT fk_user_roles_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_user_roles_role FOREIGN KEY (role_id) REFERENCES roles (id)
+);
+
+CREATE TABLE mfa (
+    id             BIGINT       NOT NULL,
+    user_id        BIGINT,
+    mfa_enabled    BOOLEAN      NOT NULL,
+    mfa_secret_key VARCHAR(255) NOT NULL,
+    CONSTRAINT pk_mfa PRIMARY KEY (id),
+    CONSTRAINT ux_mfa_user_id UNIQUE (user_id),
+    CONSTRAINT fk_mfa_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
@@ -0,0 +1,16 @@
+CREATE SEQUENCE refresh_token_seq START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE refresh_tokens (
+    id         BIGINT                   NOT NULL,
+    user_id    BIGINT                   NOT NULL,
+    token_hash VARCHAR(64)              NOT NULL,
+    family_id  VARCHAR(36)              NOT NULL,
+    expires_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    used       BOOLEAN                  NOT NULL,
+    revoked    BOOLEAN                  NOT NULL,
+    CONSTRAINT pk_refresh_tokens PRIMARY KEY (id),
+    CONSTRAINT fk_refresh_tokens_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE UNIQUE INDEX ux_refresh_tokens_token_hash ON refresh_tokens (token_hash);
+CREATE INDEX ix_refresh_tokens_family_id ON refresh_tokens (family_id);
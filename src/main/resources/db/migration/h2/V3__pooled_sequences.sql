@@ -0,0 +1,7 @@
+-- Hibernate's pooled optimizer reserves allocationSize ids per sequence call, so the increments must match it.
+-- Each sequence's next value then starts a block above every id handed out so far.
+
+ALTER SEQUENCE user_seq INCREMENT BY 50;
+ALTER SEQUENCE role_seq INCREMENT BY 50;
+ALTER SEQUENCE mfa_seq INCREMENT BY 50;
+ALTER SEQUENCE refresh_token_seq INCREMENT BY 50;
@@ -0,0 +1,7 @@
+-- Usernames are looked up on every login and registration, and registration relies on this index for uniqueness.
+-- Should usernames already be duplicated, this fails with a unique violation naming one of the duplicated values.
+CREATE UNIQUE INDEX ux_users_username ON users (username);
+
+-- mfa.user_id is already covered by the ux_mfa_user_id constraint.
+-- The user_roles primary key leads with role_id, so loading a user's roles needs its own index.
+CREATE INDEX ix_user_roles_user_id ON user_roles (user_id);
@@ -0,0 +1,8 @@
+-- mfa rows are keyed by their user's id, so a user's mfa row is found by primary key.
+ALTER TABLE mfa DROP CONSTRAINT ux_mfa_user_id;
+ALTER TABLE mfa DROP CONSTRAINT pk_mfa;
+ALTER TABLE mfa DROP COLUMN id;
+ALTER TABLE mfa ALTER COLUMN user_id SET NOT NULL;
+ALTER TABLE mfa ADD CONSTRAINT pk_mfa PRIMARY KEY (user_id);
+
+DROP SEQUENCE mfa_seq;
@@ -0,0 +1,8 @@
+-- Written on the primary by ReplicaLagMonitor and read back from the replica to measure replication lag.
+CREATE TABLE replication_heartbeat (
+    id   INTEGER      NOT NULL,
+    beat TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_replication_heartbeat PRIMARY KEY (id)
+);
+
+INSERT INTO replication_heartbeat (id, beat) VALUES (1, CURRENT_TIMESTAMP);
@@ -0,0 +1,2 @@
+-- InactiveUserPurger deletes expired refresh tokens oldest first.
+CREATE INDEX ix_refresh_tokens_expires_at ON refresh_tokens (expires_at);
@@ -0,0 +1,38 @@
+-- Schema as it existed before migrations were introduced.
+-- Existing databases are baselined at this version (spring.flyway.baseline-on-migrate), so this only runs on empty schemas.
+
+CREATE SEQUENCE user_seq START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE role_seq START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE mfa_seq START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE users (
+    id               NUMBER(19)          NOT NULL,
+    last_accessed_at TIMESTAMP(6),
+    password         VARCHAR2(255 CHAR)  NOT NULL,
+    username         VARCHAR2(255 CHAR)  NOT NULL,
+    CONSTRAINT pk_users PRIMARY KEY (id)
+);
+
+CREATE TABLE roles (
+    id   NUMBER(19)         NOT NULL,
+    name VARCHAR2(255 CHAR),
+    CONSTRAINT pk_roles PRIMARY KEY (id)
+);
+
+CREATE TABLE user_roles (
+    user_id NUMBER(19) NOT NULL,
+    role_id NUMBER(19) NOT NULL,
+    CONSTRAINT pk_user_roles PRIMARY KEY (role_id, user_id),
+    CONSTRAINT fk_user_roles_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_user_roles_role FOREIGN KEY (role_id) REFERENCES roles (id)
+);
+
+CREATE TABLE mfa (
+    id             NUMBER(19)         NOT NULL,
+    user_id        NUMBER(19),
+    mfa_enabled    NUMBER(1)          NOT NULL,
+    mfa_secret_key VARCHAR2(255 CHAR) NOT NULL,
+    CONSTRAINT pk_mfa PRIMARY KEY (id),
+    CONSTRAINT ux_mfa_user_id UNIQUE (user_id),
+    CONSTRAINT fk_mfa_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
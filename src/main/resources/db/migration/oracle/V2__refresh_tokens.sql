@@ -0,0 +1,16 @@
+CREATE SEQUENCE refresh_token_seq START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE refresh_tokens (
+    id         NUMBER(19)                  NOT NULL,
+    user_id    NUMBER(19)                  NOT NULL,
+    token_hash VARCHAR2(64 CHAR)           NOT NULL,
+    family_id  VARCHAR2(36 CHAR)           NOT NULL,
+    expires_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    used       NUMBER(1)                   NOT NULL,
+    revoked    NUMBER(1)                   NOT NULL,
+    CONSTRAINT pk_refresh_tokens PRIMARY KEY (id),
+    CONSTRAINT fk_refresh_tokens_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE UNIQUE INDEX ux_refresh_tokens_token_hash ON refresh_tokens (token_hash);
+CREATE INDEX ix_refresh_tokens_family_id ON refresh_tokens (family_id);
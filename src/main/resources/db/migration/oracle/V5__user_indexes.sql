@@ -0,0 +1,45 @@
+-- Usernames were not unique before this index, and ORA-01452 would not say which ones collide.
+-- Stop with the duplicated names instead, so they can be renamed or removed before migrating again.
+DECLARE
+    duplicates NUMBER;
+    examples VARCHAR2(4000);
+BEGIN
+    SELECT COUNT(*), LISTAGG(username, ', ') WITHIN GROUP (ORDER BY username)
+    INTO duplicates, examples
+    FROM (
+        SELECT username FROM users
+        WHERE username IS NOT NULL
+        GROUP BY username
+        HAVING COUNT(*) > 1
+        ORDER BY username
+        FETCH FIRST 10 ROWS ONLY
+    );
+
+    IF duplicates > 0 THEN
+        RAISE_APPLICATION_ERROR(
+            -20001,
+            'Cannot create ux_users_username: users.username has duplicates, resolve them first. Among them: ' || examples
+        );
+    END IF;
+END;
+/
+
+-- Usernames are looked up on every login and registration, and registration relies on this index for uniqueness.
+CREATE UNIQUE INDEX ux_users_username ON users (username);
+
+-- The user_roles primary key leads with role_id, so loading a user's roles needs its own index.
+CREATE INDEX ix_user_roles_user_id ON user_roles (user_id);
+
+-- Schemas created by Hibernate before migrations existed may lack the unique constraint on mfa.user_id.
+-- ORA-01408 and ORA-00955 mean the column or the name is already indexed, which is all this needs.
+DECLARE
+    already_indexed EXCEPTION;
+    name_in_use EXCEPTION;
+    PRAGMA EXCEPTION_INIT(already_indexed, -1408);
+    PRAGMA EXCEPTION_INIT(name_in_use, -955);
+BEGIN
+    EXECUTE IMMEDIATE 'CREATE UNIQUE INDEX ux_mfa_user_id ON mfa (user_id)';
+EXCEPTION
+    WHEN already_indexed OR name_in_use THEN NULL;
+END;
+/
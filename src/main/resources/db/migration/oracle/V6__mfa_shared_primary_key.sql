@@ -0,0 +1,29 @@
+-- mfa rows are keyed by their user's id, so a user's mfa row is found by primary key.
+
+-- The unique key on user_id is either ux_mfa_user_id (V1 constraint or V5 index) or was left by Hibernate under
+-- a generated name, in which case it stays and is simply redundant. ORA-02443 / ORA-01418: nothing to drop.
+DECLARE
+    no_constraint EXCEPTION;
+    no_index EXCEPTION;
+    PRAGMA EXCEPTION_INIT(no_constraint, -2443);
+    PRAGMA EXCEPTION_INIT(no_index, -1418);
+BEGIN
+    BEGIN
+        EXECUTE IMMEDIATE 'ALTER TABLE mfa DROP CONSTRAINT ux_mfa_user_id';
+    EXCEPTION
+        WHEN no_constraint THEN NULL;
+    END;
+    BEGIN
+        EXECUTE IMMEDIATE 'DROP INDEX ux_mfa_user_id';
+    EXCEPTION
+        WHEN no_index THEN NULL;
+    END;
+END;
+/
+
+ALTER TABLE mfa DROP PRIMARY KEY DROP INDEX;
+ALTER TABLE mfa DROP COLUMN id;
+ALTER TABLE mfa MODIFY (user_id NOT NULL);
+ALTER TABLE mfa ADD CONSTRAINT pk_mfa PRIMARY KEY (user_id);
+
+DROP SEQUENCE mfa_seq;
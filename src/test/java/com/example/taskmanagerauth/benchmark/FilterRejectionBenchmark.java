@@ -0,0 +1,136 @@
+package com.example.taskmanagerauth.benchmark;
+
+import com.example.taskmanagerauth.config.JwtRequestFilter;
+import com.example.taskmanagerauth.exception.handler.FilterExceptionManager;
+import com.example.taskmanagerauth.service.JwtService;
+import com.example.taskmanagerauth.service.LastAccessTracker;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of JwtRequestFilter rejecting requests, as during a token-spray attack: a well-formed access token
+ * signed with the wrong key, and a request without the token cookie. The filter runs with no user service, as a
+ * rejected request never reaches it.
+ * The response's output stream takes whole arrays as Tomcat's does; MockHttpServletResponse's copies byte by byte.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilterRejectionBenchmark {
+
+    private final FilterChain filterChain = (request, response) -> {
+        throw new IllegalStateException("Request was not rejected");
+    };
+
+    private JwtRequestFilter jwtRequestFilter;
+    private MockHttpServletRequest forgedToken;
+    private MockHttpServletRequest missingToken;
+    private BulkResponse response;
+
+    private static final class BulkResponse extends MockHttpServletResponse {
+
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        private final ServletOutputStream output = new ServletOutputStream() {
+
+            @Override
+            public void write(int b) {
+                body.write(b);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                body.write(bytes, offset, length);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {}
+
+        };
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return output;
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            body.reset();
+        }
+
+    }
+
+    @Setup
+    public void setUp() {
+
+        jwtRequestFilter = new JwtRequestFilter(
+                null,
+                new JwtService("Test", "Test2"),
+                LastAccessTracker.disabled(),
+                new FilterExceptionManager()
+        );
+
+        String forged = new JwtService("Forged", "Forged2").generateToken(new User(
+                "1",
+                "Test pass",
+                List.of(new SimpleGrantedAuthority("USER"))
+        ));
+
+        forgedToken = request("theme=dark; taskmanager_access_token=" + forged);
+        missingToken = request("theme=dark");
+        response = new BulkResponse();
+
+    }
+
+    private static MockHttpServletRequest request(String cookieHeader) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/auth/validate");
+        request.setServletPath("/auth/validate");
+        request.addHeader("Cookie", cookieHeader);
+        return request;
+    }
+
+    @Benchmark
+    public int forgedToken() throws ServletException, IOException {
+        response.reset();
+        jwtRequestFilter.doFilter(forgedToken, response, filterChain);
+        return response.getContentLength();
+    }
+
+    @Benchmark
+    public int missingToken() throws ServletException, IOException {
+        response.reset();
+        jwtRequestFilter.doFilter(missingToken, response, filterChain);
+        return response.getContentLength();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FilterRejectionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
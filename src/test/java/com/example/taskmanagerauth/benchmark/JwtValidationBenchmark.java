@@ -0,0 +1,61 @@
+package com.example.taskmanagerauth.benchmark;
+
+import com.example.taskmanagerauth.dto.token.TokenType;
+import com.example.taskmanagerauth.dto.token.VerifiedToken;
+import com.example.taskmanagerauth.service.JwtService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the work JwtRequestFilter does per request to authenticate an access token:
+ * validate + extractAuthorities + extractUser (three decodes) against a single verify.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtValidationBenchmark {
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService("Test", "Test2");
+        token = jwtService.generateToken(new User(
+                "1",
+                "Test pass",
+                List.of(new SimpleGrantedAuthority("USER"))
+        ));
+    }
+
+    @Benchmark
+    public void validateThenExtract(Blackhole blackhole) {
+        if (jwtService.validateToken(token)) {
+            blackhole.consume(jwtService.extractAuthorities(token));
+            blackhole.consume(jwtService.extractUser(token));
+        }
+    }
+
+    @Benchmark
+    public VerifiedToken verify() {
+        return jwtService.verify(token, TokenType.ACCESS);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtValidationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
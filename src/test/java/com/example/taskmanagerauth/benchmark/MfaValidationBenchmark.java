@@ -0,0 +1,93 @@
+package com.example.taskmanagerauth.benchmark;
+
+import com.example.taskmanagerauth.dto.responses.TotpCheck;
+import com.example.taskmanagerauth.entity.User;
+import com.example.taskmanagerauth.service.MfaService;
+import com.google.crypto.tink.Aead;
+import com.google.crypto.tink.BinaryKeysetReader;
+import com.google.crypto.tink.CleartextKeysetHandle;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.RegistryConfiguration;
+import com.google.crypto.tink.aead.AeadConfig;
+import com.warrenstrange.googleauth.GoogleAuthenticator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The TOTP step of a login: decrypt the user's secret and check the code.
+ * perCallPrimitive reproduces the previous MfaService, which built the Aead primitive on every call;
+ * the others go through MfaService with the decrypted-secret cache off and on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MfaValidationBenchmark {
+
+    private static final String KEYSET = "CMmRpMMOEmQKWAowdHlwZS5nb29nbGVhcGlzLmNvbS9nb29nbGUuY3J5cHRvLnRpbmsuQWVzR2NtS2V5EiIaILBjvpHue4z0MJuNMpRTZDsvpgvXT5jVNA/1Su8RwTB1GAEQARjJkaTDDiAB";
+
+    private final GoogleAuthenticator authenticator = new GoogleAuthenticator();
+
+    private KeysetHandle keysetHandle;
+    private MfaService uncached;
+    private MfaService cached;
+    private User user;
+    private String totp;
+
+    @Setup
+    public void setUp() throws Exception {
+
+        AeadConfig.register();
+        keysetHandle = CleartextKeysetHandle.read(BinaryKeysetReader.withBytes(Base64.getDecoder().decode(KEYSET)));
+
+        uncached = new MfaService(KEYSET);
+        cached = new MfaService(KEYSET, true, 1000, Duration.ofMinutes(5));
+
+        user = new User(1L, "Test user", "Test pass");
+        uncached.instantiateMfaForUser(user);
+        user.getMfa().setMfaEnabled(true);
+
+    }
+
+    // Codes roll over every 30 seconds, so refresh the one being checked before each iteration
+    @Setup(Level.Iteration)
+    public void setUpTotp() {
+        totp = String.valueOf(authenticator.getTotpPassword(uncached.decrypt(user.getMfa().getMfaSecretKey())));
+    }
+
+    @Benchmark
+    public boolean perCallPrimitive() throws Exception {
+        Aead aead = keysetHandle.getPrimitive(RegistryConfiguration.get(), Aead.class);
+        byte[] secret = aead.decrypt(
+                Base64.getDecoder().decode(user.getMfa().getMfaSecretKey()),
+                "taskmanagerauth".getBytes()
+        );
+        return authenticator.authorize(new String(secret, StandardCharsets.UTF_8), Integer.parseInt(totp));
+    }
+
+    @Benchmark
+    public TotpCheck sharedPrimitive() {
+        return uncached.validatePassword(totp, user);
+    }
+
+    @Benchmark
+    public TotpCheck cachedSecret() {
+        return cached.validatePassword(totp, user);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MfaValidationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
@@ -0,0 +1,261 @@
+package com.example.taskmanagerauth.benchmark;
+
+import com.example.taskmanagerauth.TaskmanagerauthApplication;
+import com.example.taskmanagerauth.dto.token.TokenType;
+import com.example.taskmanagerauth.entity.User;
+import com.example.taskmanagerauth.service.JwtService;
+import com.example.taskmanagerauth.service.MfaService;
+import com.example.taskmanagerauth.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test of GET /auth/2fa/generate, which is MFA token verification plus one database round trip, with request
+ * handling on Tomcat's platform threads and then on virtual threads. Every statement and commit is delayed by a
+ * fixed latency to stand in for the round trip to Oracle ADB, and the connection pool is sized above Tomcat's
+ * 200 threads so the pool is not what limits concurrency.
+ * Prints throughput, p50 and p99 per mode, and in virtual mode the pinned waits reported by
+ * VirtualThreadPinningMonitor.
+ * Arguments: latency in ms (default 20), concurrent requests (default 1000), requests per mode (default 20000).
+ */
+public class VirtualThreadLoadBenchmark {
+
+    private record Result(String mode, int requests, int failures, double throughput, double p50, double p99) {}
+
+    public static void main(String[] args) throws Exception {
+
+        Duration latency = Duration.ofMillis(args.length > 0 ? Long.parseLong(args[0]) : 20);
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+
+        Result platform = run(false, latency, concurrency, requests);
+        Result virtual = run(true, latency, concurrency, requests);
+
+        System.out.printf("%nLatency %d ms, %d concurrent, %d requests%n", latency.toMillis(), concurrency, requests);
+        System.out.printf("%-10s %12s %10s %10s %10s%n", "mode", "req/s", "p50 ms", "p99 ms", "failures");
+        for (Result result : new Result[] { platform, virtual }) {
+            System.out.printf(
+                    "%-10s %12.0f %10.1f %10.1f %10d%n",
+                    result.mode(), result.throughput(), result.p50(), result.p99(), result.failures()
+            );
+        }
+
+    }
+
+    private static Result run(boolean virtualThreads, Duration latency, int concurrency, int requests) throws Exception {
+
+        String mode = virtualThreads ? "virtual" : "platform";
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(TaskmanagerauthApplication.class)
+                .profiles("test")
+                .initializers(applicationContext -> applicationContext.getBeanFactory()
+                        .addBeanPostProcessor(delayStatements(latency)))
+                // Arguments rather than default properties, which the test profile would override
+                .run(
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.datasource.url=jdbc:h2:mem:loadbenchmark-" + mode,
+                        "--spring.datasource.hikari.maximum-pool-size=" + Math.min(concurrency, 400),
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.generate_statistics=false",
+                        // Every request should reach the database
+                        "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                        "--spring.jpa.properties.hibernate.cache.use_query_cache=false",
+                        "--server.port=0",
+                        "--server.ssl.enabled=false",
+                        "--server.tomcat.threads.max=200",
+                        "--server.tomcat.max-connections=" + (concurrency * 2),
+                        "--server.tomcat.accept-count=" + concurrency,
+                        "--logging.level.root=WARN"
+                )) {
+
+            String token = registerUser(context);
+            URI uri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/auth/2fa/generate");
+
+            try (HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build()) {
+
+                HttpRequest request = HttpRequest.newBuilder(uri)
+                        .header("Cookie", TokenType.MFA.getCookieName() + "=" + token)
+                        .GET()
+                        .build();
+
+                // Warm up the JIT, the connection pool and the client's connections
+                load(client, request, concurrency, Math.max(concurrency, requests / 10));
+
+                long start = System.nanoTime();
+                long[] latencies = load(client, request, concurrency, requests);
+                double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+                int failures = (int) Arrays.stream(latencies).filter(nanos -> nanos < 0).count();
+                long[] succeeded = Arrays.stream(latencies).filter(nanos -> nanos >= 0).sorted().toArray();
+
+                if (virtualThreads) {
+                    printPinning(context.getBean(MeterRegistry.class));
+                }
+
+                return new Result(
+                        mode,
+                        requests,
+                        failures,
+                        succeeded.length / elapsedSeconds,
+                        percentile(succeeded, 0.50),
+                        percentile(succeeded, 0.99)
+                );
+
+            }
+
+        }
+
+    }
+
+    private static String registerUser(ConfigurableApplicationContext context) {
+
+        UserService userService = context.getBean(UserService.class);
+        MfaService mfaService = context.getBean(MfaService.class);
+
+        User user = userService.createDatabaseUser("load_user", "test_pass");
+        mfaService.instantiateMfaForUser(user);
+        userService.saveUser(user);
+
+        return context.getBean(JwtService.class).generate2FAToken(userService.createUserDetails(user));
+
+    }
+
+    /**
+     * Send requests with at most concurrency in flight
+     * @return (long[]) The latency of each request in nanoseconds, negative for a failed request
+     */
+    private static long[] load(HttpClient client, HttpRequest request, int concurrency, int requests) throws InterruptedException {
+
+        long[] latencies = new long[requests];
+        Semaphore inFlight = new Semaphore(concurrency);
+        AtomicInteger next = new AtomicInteger();
+
+        try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+
+            for (int i = 0; i < requests; i++) {
+
+                inFlight.acquire();
+
+                senders.execute(() -> {
+                    int index = next.getAndIncrement();
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        latencies[index] = response.statusCode() == 200 ? System.nanoTime() - start : -1;
+                    } catch (Exception exception) {
+                        latencies[index] = -1;
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+
+            }
+
+        }
+
+        return latencies;
+
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, index)] / 1e6;
+    }
+
+    private static void printPinning(MeterRegistry meterRegistry) {
+
+        // JFR hands events over about once a second
+        try {
+            Thread.sleep(2000);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+
+        System.out.println("Pinned virtual threads by site:");
+
+        for (Timer pinned : meterRegistry.find("virtual.threads.pinned").timers()) {
+            System.out.printf(
+                    "  %-80s %6d x, max %.1f ms%n",
+                    pinned.getId().getTag("site"), pinned.count(), pinned.max(TimeUnit.MILLISECONDS)
+            );
+        }
+
+    }
+
+    /**
+     * Delay every statement execution and commit on the application's datasource by the given latency
+     */
+    private static BeanPostProcessor delayStatements(Duration latency) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!beanName.equals("dataSource") || !(bean instanceof DataSource dataSource)) {
+                    return bean;
+                }
+                return new DelegatingDataSource(dataSource) {
+                    @Override
+                    public Connection getConnection() throws SQLException {
+                        return delayed(Connection.class, super.getConnection(), latency);
+                    }
+                };
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T delayed(Class<T> type, T target, Duration latency) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, arguments) -> {
+
+            if (method.getName().startsWith("execute") || method.getName().equals("commit")) {
+                Thread.sleep(latency);
+            }
+
+            Object result = invoke(method, target, arguments);
+
+            return switch (result) {
+                case CallableStatement statement -> delayed(CallableStatement.class, statement, latency);
+                case PreparedStatement statement -> delayed(PreparedStatement.class, statement, latency);
+                case Statement statement -> delayed(Statement.class, statement, latency);
+                case null, default -> result;
+            };
+
+        });
+    }
+
+    private static Object invoke(Method method, Object target, Object[] arguments) throws Throwable {
+        try {
+            return method.invoke(target, arguments);
+        } catch (InvocationTargetException exception) {
+            throw exception.getCause();
+        }
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.example.taskmanagerauth.integration.config;
+
+import com.example.taskmanagerauth.config.ReplicaLagMonitor;
+import com.example.taskmanagerauth.repository.UserRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two H2 databases stand in for the primary and the replica. Nothing replicates between them, so the tests
+ * stamp the replica's heartbeat themselves and tell rows apart by which database they were written to.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routingprimary",
+        "datasource-routing.enabled=true",
+        "datasource-routing.max-lag=5s",
+        "datasource-routing.check-interval=1h",
+        "datasource-routing.replica.jdbc-url=" + DataSourceRoutingIT.REPLICA_URL
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class DataSourceRoutingIT {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routingreplica;DB_CLOSE_DELAY=-1";
+
+    private static final String REPLICA_ONLY_USER = "replica_only_user";
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private HikariDataSource replicaDataSource;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private JdbcTemplate replica;
+
+    @BeforeAll
+    void setUpReplica() {
+
+        Flyway.configure()
+                .dataSource(REPLICA_URL, "sa", "")
+                .locations("classpath:db/migration/h2", "classpath:db/migration/common")
+                .load()
+                .migrate();
+
+        replica = new JdbcTemplate(replicaDataSource);
+        replica.update("INSERT INTO users (id, username, password) VALUES (1, ?, 'hash')", REPLICA_ONLY_USER);
+
+    }
+
+    private void replicateHeartbeat(LocalDateTime beat) {
+        replica.update("UPDATE replication_heartbeat SET beat = ? WHERE id = 1", Timestamp.valueOf(beat));
+        replicaLagMonitor.check();
+    }
+
+    private long countReplicaOnlyUsers(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM users WHERE username = ?", Long.class, REPLICA_ONLY_USER
+        ));
+    }
+
+    /**
+     * Test that read-only transactions, including repository reads, go to an up-to-date replica and writes do not,
+     * while the lookups a login makes stay on the primary
+     */
+    @Test
+    @Order(1)
+    void testReadOnlyTransactionsUseReplica() {
+
+        replicateHeartbeat(LocalDateTime.now());
+
+        // Assertions
+        assertTrue(replicaLagMonitor.isReplicaUsable());
+        assertEquals(1, countReplicaOnlyUsers(true));
+        assertEquals(0, countReplicaOnlyUsers(false));
+        assertTrue(userRepository.findById(1L).isPresent());
+        assertTrue(userRepository.findCredentialsByUsername(REPLICA_ONLY_USER).isEmpty());
+        assertTrue(userRepository.findByUsername(REPLICA_ONLY_USER).isEmpty());
+
+    }
+
+    /**
+     * Test that reads move to the primary while the replica lags more than max-lag, and back once it caught up
+     */
+    @Test
+    @Order(2)
+    void testLaggingReplicaFallsBack() {
+
+        replicateHeartbeat(LocalDateTime.now().minusMinutes(1));
+
+        // Assertions
+        assertFalse(replicaLagMonitor.isReplicaUsable());
+        assertEquals(0, countReplicaOnlyUsers(true));
+
+        replicateHeartbeat(LocalDateTime.now());
+
+        assertEquals(1, countReplicaOnlyUsers(true));
+
+    }
+
+    /**
+     * Test that reads are served by the primary when the replica cannot hand out a connection
+     */
+    @Test
+    @Order(3)
+    @DirtiesContext
+    void testUnavailableReplicaFallsBack() {
+
+        replicateHeartbeat(LocalDateTime.now());
+        replicaDataSource.close();
+
+        // Assertions
+        assertEquals(0, countReplicaOnlyUsers(true));
+        assertFalse(replicaLagMonitor.isReplicaUsable());
+        assertEquals(1, meterRegistry.get("datasource.routing.fallbacks").counter().count());
+
+    }
+
+}
@@ -12,6 +12,7 @@ import com.example.taskmanagerauth.repository.MfaRepository;
 import com.example.taskmanagerauth.repository.UserRepository;
 import com.example.taskmanagerauth.service.MfaService;
 import com.example.taskmanagerauth.service.PasswordEncodingService;
+import com.example.taskmanagerauth.service.RefreshTokenService;
 import com.example.taskmanagerauth.service.JwtService;
 import com.warrenstrange.googleauth.GoogleAuthenticator;
 import org.junit.jupiter.api.*;
@@ -22,12 +23,14 @@ import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT)
 @ExtendWith(SpringExtension.class)
@@ -62,12 +65,15 @@ public class UserControllerIT {
 
     private String secretKey;
     private String cookie;
+    private String refreshToken;
 
     private static final String LOGIN_QUERY_URL = "https://localhost:9095/api/auth/login";
     private static final String REGISTER_QUERY_URL = "https://localhost:9095/api/auth/register";
     private static final String VALIDATE_QUERY_URL = "https://localhost:9095/api/auth/validate";
     private static final String GENERATE_QUERY_URL = "https://localhost:9095/api/auth/2fa/generate";
     private static final String SETUP_QUERY_URL = "https://localhost:9095/api/auth/2fa/setup";
+    private static final String REFRESH_QUERY_URL = "https://localhost:9095/api/auth/refresh";
+    private static final String JWKS_QUERY_URL = "https://localhost:9095/api/auth/.well-known/jwks.json";
 
     <T> HttpEntity<T> HttpEntityFactory(T data) {
         return new HttpEntity<>(data);
@@ -87,6 +93,29 @@ public class UserControllerIT {
                 .sign(algorithm);
     }
 
+    private String extractCookie(HttpHeaders headers, String name) {
+        List<String> cookies = headers.get(HttpHeaders.SET_COOKIE);
+        if (cookies == null) {
+            return null;
+        }
+        return cookies.stream()
+                .filter(cookie -> cookie.startsWith(name + "="))
+                .map(cookie -> cookie.substring(cookie.indexOf("=") + 1, cookie.indexOf(";")))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private ResponseEntity<ApiResponse<String>> refresh(String refreshToken) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.COOKIE, RefreshTokenService.REFRESH_COOKIE_NAME + "=" + refreshToken);
+        return testRestTemplate.exchange(
+                REFRESH_QUERY_URL,
+                HttpMethod.POST,
+                HttpEntityFactory(null, headers),
+                new ParameterizedTypeReference<>() {}
+        );
+    }
+
     HttpHeaders httpHeaderFactory() {
         HttpHeaders headers = new HttpHeaders();
         headers.set(HttpHeaders.COOKIE, "taskmanager_access_token=" + generateToken("1", List.of("USER")));
@@ -257,6 +286,10 @@ public class UserControllerIT {
         assertEquals("1", jwtService.extractUser(testJWT));
         assertEquals("USER", jwtService.extractAuthorities(testJWT).getFirst());
 
+        // For use in the refresh tests
+        this.refreshToken = extractCookie(response.getHeaders(), RefreshTokenService.REFRESH_COOKIE_NAME);
+        assertNotNull(this.refreshToken);
+
     }
 
     @Test
@@ -278,4 +311,112 @@ public class UserControllerIT {
 
     }
 
+    @Test
+    @Order(7)
+    void testJwksIsPublicAndCacheable() {
+
+        ResponseEntity<Map<String, List<Map<String, Object>>>> response = testRestTemplate.exchange(
+                JWKS_QUERY_URL,
+                HttpMethod.GET,
+                HttpEntityFactory(null),
+                new ParameterizedTypeReference<>() {}
+        );
+
+        // Assertions
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertTrue(response.getBody().get("keys").isEmpty()); // HMAC mode publishes no keys
+        assertEquals("max-age=300, public", response.getHeaders().getCacheControl());
+
+    }
+
+    @Test
+    @Order(8)
+    void testRefreshRotatesToken() {
+
+        ResponseEntity<ApiResponse<String>> response = refresh(this.refreshToken);
+
+        // Assertions
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals("Success", response.getBody().getMessage());
+
+        String accessJWT = extractCookie(response.getHeaders(), "taskmanager_access_token");
+        String rotatedToken = extractCookie(response.getHeaders(), RefreshTokenService.REFRESH_COOKIE_NAME);
+
+        assertNotNull(accessJWT);
+        assertTrue(jwtService.validateToken(accessJWT));
+        assertEquals("1", jwtService.extractUser(accessJWT));
+        assertNotNull(rotatedToken);
+        assertNotEquals(this.refreshToken, rotatedToken);
+        assertTrue(response.getHeaders().get(HttpHeaders.SET_COOKIE).stream()
+                .anyMatch(cookie -> cookie.startsWith(RefreshTokenService.REFRESH_COOKIE_NAME) && cookie.contains("Path=/api/auth/refresh")));
+
+        this.cookie = this.refreshToken; // The consumed token, replayed in the next test
+        this.refreshToken = rotatedToken;
+
+    }
+
+    @Test
+    @Order(9)
+    void testRefreshReuseRevokesFamily() {
+
+        HttpClientErrorException reuse = assertThrows(HttpClientErrorException.class, () -> refresh(this.cookie));
+
+        // Assertions
+        assertEquals(HttpStatus.UNAUTHORIZED, reuse.getStatusCode());
+
+        // The replay revoked the token rotated from it as well
+        HttpClientErrorException revoked = assertThrows(HttpClientErrorException.class, () -> refresh(this.refreshToken));
+        assertEquals(HttpStatus.UNAUTHORIZED, revoked.getStatusCode());
+
+    }
+
+    @Test
+    @Order(10)
+    void testLoginRateLimited() {
+
+        LoginRequest payload = new LoginRequest("rate_limited_user", "wrong_pass", "");
+        HttpClientErrorException limited = null;
+
+        // The username's bucket holds 20 attempts in the test profile
+        for (int attempt = 0; attempt < 100 && limited == null; attempt++) {
+            HttpClientErrorException exception = assertThrows(HttpClientErrorException.class, () -> testRestTemplate.exchange(
+                    LOGIN_QUERY_URL,
+                    HttpMethod.POST,
+                    HttpEntityFactory(payload),
+                    new ParameterizedTypeReference<ApiResponse<String>>() {}
+            ));
+            if (exception.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
+                limited = exception;
+            }
+        }
+
+        // Assertions
+        assertNotNull(limited);
+        assertNotNull(limited.getResponseHeaders());
+        assertTrue(Long.parseLong(limited.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER)) >= 1);
+
+    }
+
+    @Test
+    @Order(11)
+    void testRegisterTakenUsername() {
+
+        RegisterRequest payload = new RegisterRequest("test_user", "other_pass");
+        long users = userRepository.count();
+
+        HttpClientErrorException exception = assertThrows(HttpClientErrorException.class, () -> testRestTemplate.exchange(
+                REGISTER_QUERY_URL,
+                HttpMethod.POST,
+                HttpEntityFactory(payload),
+                new ParameterizedTypeReference<ApiResponse<String>>() {}
+        ));
+
+        // Assertions
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        assertEquals(users, userRepository.count());
+
+    }
+
 }
@@ -0,0 +1,114 @@
+package com.example.taskmanagerauth.integration.repository;
+
+import com.example.taskmanagerauth.dto.impl.LoginRequest;
+import com.example.taskmanagerauth.dto.responses.LoginResult;
+import com.example.taskmanagerauth.dto.responses.MfaRequired;
+import com.example.taskmanagerauth.entity.User;
+import com.example.taskmanagerauth.service.LastAccessTracker;
+import com.example.taskmanagerauth.service.MfaService;
+import com.example.taskmanagerauth.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.sql.Timestamp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:loginstatements",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+public class LoginStatementsIT {
+
+    private static final String PASSWORD = "test_pass";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MfaService mfaService;
+
+    @Autowired
+    private LastAccessTracker lastAccessTracker;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private User register(String username) {
+
+        User user = userService.createDatabaseUser(username, PASSWORD);
+        mfaService.instantiateMfaForUser(user);
+        userService.saveUser(user);
+
+        statistics.clear();
+        return user;
+
+    }
+
+    /**
+     * Test that a login reads the user, its roles and its mfa row in a single statement, without loading entities
+     */
+    @Test
+    void testOneStatementPerLogin() {
+
+        register("login_statements_user");
+
+        LoginResult result = userService.login(new LoginRequest("login_statements_user", PASSWORD, ""));
+
+        // Assertions
+        MfaRequired mfaRequired = assertInstanceOf(MfaRequired.class, result);
+        assertEquals("USER", mfaRequired.userDetails().getAuthorities().iterator().next().getAuthority());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getCollectionLoadCount());
+
+    }
+
+    /**
+     * Test that the access recorded by a login is written on the next flush, rather than during the login
+     */
+    @Test
+    void testLastAccessWrittenOnFlush() {
+
+        User user = register("last_access_user");
+        Timestamp registeredAt = lastAccessedAt(user.getId());
+
+        userService.login(new LoginRequest("last_access_user", PASSWORD, ""));
+        Timestamp beforeFlush = lastAccessedAt(user.getId());
+
+        lastAccessTracker.flush();
+
+        // Assertions
+        assertEquals(registeredAt, beforeFlush);
+        assertTrue(lastAccessedAt(user.getId()).after(registeredAt));
+
+    }
+
+    private Timestamp lastAccessedAt(Long userId) {
+        return jdbcTemplate.queryForObject("SELECT last_accessed_at FROM users WHERE id = ?", Timestamp.class, userId);
+    }
+
+}
@@ -0,0 +1,169 @@
+package com.example.taskmanagerauth.integration.repository;
+
+import com.example.taskmanagerauth.entity.User;
+import com.example.taskmanagerauth.exception.server.UsernameTakenException;
+import com.example.taskmanagerauth.repository.RoleRepository;
+import com.example.taskmanagerauth.repository.UserRepository;
+import com.example.taskmanagerauth.service.MfaService;
+import com.example.taskmanagerauth.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:registrationstatements",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+public class RegistrationStatementsIT {
+
+    private static final int REGISTRATIONS = 20;
+    private static final int CONCURRENT_REGISTRATIONS = 20;
+
+    // users, mfa and user_roles; the USER role row is shared
+    private static final int INSERTS_PER_REGISTRATION = 3;
+
+    // user_seq, fetched at most once more to complete its first block; mfa rows share the user's id
+    private static final int SEQUENCE_FETCHES = 1;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MfaService mfaService;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private void register(String username) {
+        User user = userService.createDatabaseUser(username, "test_pass");
+        mfaService.instantiateMfaForUser(user);
+        userService.saveUser(user);
+    }
+
+    /**
+     * Test that registrations only pay for their inserts: ids come from pooled sequence blocks,
+     * instead of one sequence round trip per user
+     */
+    @Test
+    void testStatementsPerRegistration() {
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // The first registration fetches the initial sequence blocks
+        register("warmup_user");
+        statistics.clear();
+
+        for (int i = 0; i < REGISTRATIONS; i++) {
+            register("statements_user_" + i);
+        }
+
+        long statements = statistics.getPrepareStatementCount();
+
+        // Assertions
+        assertEquals((long) REGISTRATIONS * 2, statistics.getEntityInsertCount());
+        assertTrue(statements <= (long) REGISTRATIONS * INSERTS_PER_REGISTRATION + SEQUENCE_FETCHES,
+                "Expected mostly inserts, but " + statements + " statements were prepared");
+
+    }
+
+    /**
+     * Test that simultaneous registrations of one username let exactly one through, with the others rejected by
+     * the unique index after a single failed insert each, and no existence query issued by any of them
+     */
+    @Test
+    void testConcurrentRegistrationsOfOneUsername() throws Exception {
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        register("concurrent_warmup_user");
+        statistics.clear();
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_REGISTRATIONS);
+        List<Future<Boolean>> attempts = new ArrayList<>(CONCURRENT_REGISTRATIONS);
+
+        for (int i = 0; i < CONCURRENT_REGISTRATIONS; i++) {
+            attempts.add(executor.submit(() -> {
+                start.await();
+                try {
+                    register("concurrent_user");
+                    return true;
+                } catch (UsernameTakenException exception) {
+                    return false;
+                }
+            }));
+        }
+
+        start.countDown();
+
+        int successes = 0;
+        for (Future<Boolean> attempt : attempts) {
+            if (attempt.get(30, TimeUnit.SECONDS)) {
+                successes++;
+            }
+        }
+
+        executor.shutdown();
+
+        long statements = statistics.getPrepareStatementCount();
+        long queries = statistics.getQueryExecutionCount();
+
+        // Assertions
+        assertEquals(1, successes);
+        assertEquals(1, userRepository.findAll().stream().filter(user -> user.getUsername().equals("concurrent_user")).count());
+        assertEquals(0, queries);
+        assertTrue(statements <= INSERTS_PER_REGISTRATION + (CONCURRENT_REGISTRATIONS - 1) + SEQUENCE_FETCHES,
+                "Expected one insert per rejected registration, but " + statements + " statements were prepared");
+
+    }
+
+    /**
+     * Test that registrations reference the canonical USER role instead of inserting a roles row each
+     */
+    @Test
+    void testRolesStayConstant() {
+
+        register("roles_warmup_user");
+        long roles = roleRepository.count();
+
+        for (int i = 0; i < REGISTRATIONS; i++) {
+            register("roles_user_" + i);
+        }
+
+        // Assertions
+        assertEquals(1, roles);
+        assertEquals(roles, roleRepository.count());
+        assertEquals(
+                roleRepository.findByName("USER").getId(),
+                userRepository.findByUsername("roles_user_0").orElseThrow().getRoles().iterator().next().getId()
+        );
+
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.example.taskmanagerauth.integration.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:schemaindexes")
+public class SchemaIndexesIT {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String explain(String query) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + query, String.class).toUpperCase();
+    }
+
+    /**
+     * Test that username lookups are planned against the unique username index instead of a table scan
+     */
+    @Test
+    void testUsernameLookupUsesIndex() {
+
+        String plan = explain("SELECT id, password FROM users WHERE username = 'plan_user'");
+
+        // Assertions
+        assertTrue(plan.contains("UX_USERS_USERNAME"), plan);
+        assertFalse(plan.contains("TABLESCAN"), plan);
+
+    }
+
+    /**
+     * Test that a user's roles and mfa row are found through indexes on their user_id columns.
+     * mfa is keyed by user_id, so its row is found through the primary key.
+     * H2 also indexes foreign keys on its own, so the roles plan may pick that index instead of ix_user_roles_user_id.
+     */
+    @Test
+    void testUserJoinsUseIndexes() {
+
+        String rolesPlan = explain("SELECT role_id FROM user_roles WHERE user_id = 1");
+        String mfaPlan = explain("SELECT mfa_enabled FROM mfa WHERE user_id = 1");
+
+        // Assertions
+        assertTrue(rolesPlan.contains(": USER_ID ="), rolesPlan);
+        assertFalse(rolesPlan.contains("TABLESCAN"), rolesPlan);
+        assertTrue(mfaPlan.contains("PRIMARY_KEY"), mfaPlan);
+
+    }
+
+    /**
+     * Test that a second user with the same name is refused by the database itself
+     */
+    @Test
+    void testUsernameUnique() {
+
+        jdbcTemplate.update("INSERT INTO users (id, username, password) VALUES (1001, 'unique_user', 'hash')");
+
+        // Assertions
+        assertThrows(
+                DuplicateKeyException.class,
+                () -> jdbcTemplate.update("INSERT INTO users (id, username, password) VALUES (1002, 'unique_user', 'hash')")
+        );
+
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.example.taskmanagerauth.integration.repository;
+
+import com.example.taskmanagerauth.dto.impl.LoginRequest;
+import com.example.taskmanagerauth.dto.responses.MfaRequired;
+import com.example.taskmanagerauth.dto.responses.TotpRequired;
+import com.example.taskmanagerauth.entity.User;
+import com.example.taskmanagerauth.service.MfaService;
+import com.example.taskmanagerauth.service.UserService;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.cache.CacheManager;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:secondlevelcache")
+public class SecondLevelCacheIT {
+
+    private static final String PASSWORD = "test_pass";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MfaService mfaService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private CaffeineConfiguration<?, ?> regionConfiguration(String region) {
+
+        CacheManager cacheManager = ((JCacheRegionFactory) entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getCache()
+                .getRegionFactory()).getCacheManager();
+
+        return cacheManager.getCache(region).getConfiguration(CaffeineConfiguration.class);
+
+    }
+
+    private User register(String username) {
+        User user = userService.createDatabaseUser(username, PASSWORD);
+        mfaService.instantiateMfaForUser(user);
+        userService.saveUser(user);
+        return user;
+    }
+
+    /**
+     * Test that once cached, repeated lookups of a user by id issue no SQL
+     */
+    @Test
+    void testRepeatedLookupsById() {
+
+        User registered = register("cached_by_id_user");
+        UserDetails userDetails = userService.createUserDetails(registered);
+
+        userService.getUserById(userDetails);
+        statistics.clear();
+
+        for (int i = 0; i < 10; i++) {
+            User user = userService.getUserById(userDetails);
+            assertEquals("cached_by_id_user", user.getUsername());
+            assertNotNull(user.getMfa());
+            assertEquals(1, user.getRoles().size());
+        }
+
+        // Assertions
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getSecondLevelCacheHitCount() >= 10);
+
+    }
+
+    /**
+     * Test that repeated logins are answered from the query cache, and that saving the user invalidates it
+     */
+    @Test
+    void testRepeatedLoginsAndInvalidation() {
+
+        register("cached_login_user");
+        LoginRequest loginRequest = new LoginRequest("cached_login_user", PASSWORD, "");
+
+        assertInstanceOf(MfaRequired.class, userService.login(loginRequest));
+        statistics.clear();
+
+        for (int i = 0; i < 10; i++) {
+            assertInstanceOf(MfaRequired.class, userService.login(loginRequest));
+        }
+
+        long cachedStatements = statistics.getPrepareStatementCount();
+        long queryCacheHits = statistics.getQueryCacheHitCount();
+
+        User user = userService.getUserById(userService.loadUserByUsername("cached_login_user"));
+        user.getMfa().setMfaEnabled(true);
+        userService.saveUser(user);
+
+        // Assertions
+        assertEquals(0, cachedStatements);
+        assertEquals(10, queryCacheHits);
+        assertInstanceOf(TotpRequired.class, userService.login(loginRequest));
+
+    }
+
+    /**
+     * Test that what a login reads from this instance's cache expires within 30 seconds, which bounds how long a
+     * password or MFA change made on another instance goes unseen here
+     */
+    @Test
+    void testLoginRegionsExpireQuickly() {
+
+        long maxStaleness = Duration.ofSeconds(30).toNanos();
+
+        // Assertions
+        assertTrue(regionConfiguration("mfa").getExpireAfterWrite().orElseThrow() <= maxStaleness);
+        assertTrue(regionConfiguration("default-query-results-region").getExpireAfterWrite().orElseThrow() <= maxStaleness);
+
+    }
+
+    /**
+     * Test that the regions are built from hibernate-jcache.conf, bounded in size and expiring after a write
+     */
+    @Test
+    void testRegionsUseConfiguredBounds() {
+
+        CaffeineConfiguration<?, ?> users = regionConfiguration("users");
+        CaffeineConfiguration<?, ?> roles = regionConfiguration("roles");
+
+        // Assertions
+        assertEquals(10_000, users.getMaximumSize().orElseThrow());
+        assertEquals(Duration.ofMinutes(10).toNanos(), users.getExpireAfterWrite().orElseThrow());
+        assertEquals(100, roles.getMaximumSize().orElseThrow());
+        assertEquals(Duration.ofHours(1).toNanos(), roles.getExpireAfterWrite().orElseThrow());
+
+    }
+
+}
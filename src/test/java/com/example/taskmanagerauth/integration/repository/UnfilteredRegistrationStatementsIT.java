@@ -0,0 +1,102 @@
+package com.example.taskmanagerauth.integration.repository;
+
+import com.example.taskmanagerauth.entity.User;
+import com.example.taskmanagerauth.exception.server.UsernameTakenException;
+import com.example.taskmanagerauth.service.MfaService;
+import com.example.taskmanagerauth.service.UserService;
+import com.example.taskmanagerauth.service.UsernameFilter;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:unfilteredregistrationstatements",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "username-filter.enabled=false"
+})
+public class UnfilteredRegistrationStatementsIT {
+
+    private static final int REGISTRATIONS = 20;
+
+    // users, mfa and user_roles; the USER role row is shared
+    private static final int INSERTS_PER_REGISTRATION = 3;
+
+    // user_seq, fetched at most once more to complete its first block; mfa rows share the user's id
+    private static final int SEQUENCE_FETCHES = 1;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MfaService mfaService;
+
+    @Autowired
+    private UsernameFilter usernameFilter;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // The steps of UserController.register
+    private void register(String username) {
+        userService.checkUsernameAvailable(username);
+        User user = userService.createDatabaseUser(username, "test_pass");
+        mfaService.instantiateMfaForUser(user);
+        userService.saveUser(user);
+    }
+
+    /**
+     * Test that without the username filter, as in production by default, a registration goes straight to its
+     * inserts without asking whether the name is taken
+     */
+    @Test
+    void testNoExistenceQueryBeforeInsert() {
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        register("unfiltered_warmup_user");
+        statistics.clear();
+
+        for (int i = 0; i < REGISTRATIONS; i++) {
+            register("unfiltered_user_" + i);
+        }
+
+        long statements = statistics.getPrepareStatementCount();
+
+        // Assertions
+        assertFalse(usernameFilter.isReady());
+        assertEquals(0, statistics.getQueryExecutionCount());
+        assertTrue(statements <= (long) REGISTRATIONS * INSERTS_PER_REGISTRATION + SEQUENCE_FETCHES,
+                "Expected only inserts, but " + statements + " statements were prepared");
+
+    }
+
+    /**
+     * Test that without the username filter a taken name is still rejected, by the unique index on its insert
+     */
+    @Test
+    void testTakenUsernameRejectedByIndex() {
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        register("unfiltered_taken_user");
+        statistics.clear();
+
+        // Assertions
+        assertThrows(UsernameTakenException.class, () -> register("unfiltered_taken_user"));
+        assertEquals(0, statistics.getQueryExecutionCount());
+
+    }
+
+}
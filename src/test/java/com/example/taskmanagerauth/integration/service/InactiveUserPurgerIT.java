@@ -0,0 +1,190 @@
+package com.example.taskmanagerauth.integration.service;
+
+import com.example.taskmanagerauth.service.InactiveUserPurger;
+import com.example.taskmanagerauth.service.LastAccessTracker;
+import com.example.taskmanagerauth.service.RoleRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:inactiveuserpurger")
+public class InactiveUserPurgerIT {
+
+    private static final int USERS = 100_000;
+    private static final int CHUNK_SIZE = 1000;
+
+    // Far above anything the sequences hand out during the test
+    private static final long FIRST_ID = 10_000_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private LastAccessTracker lastAccessTracker;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Seed users, every other one inactive for four days, each with an mfa row and a role
+     */
+    private void seed() {
+
+        long roleId = roleRegistry.getRole(RoleRegistry.USER).getId();
+        Timestamp inactive = Timestamp.valueOf(LocalDateTime.now().minusDays(4));
+        Timestamp active = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Object[]> users = new ArrayList<>(CHUNK_SIZE);
+        List<Object[]> mfa = new ArrayList<>(CHUNK_SIZE);
+        List<Object[]> userRoles = new ArrayList<>(CHUNK_SIZE);
+
+        for (int i = 0; i < USERS; i++) {
+
+            long id = FIRST_ID + i;
+
+            users.add(new Object[] { id, "purge_user_" + i, "hash", i % 2 == 0 ? inactive : active });
+            mfa.add(new Object[] { id, false, "secret" });
+            userRoles.add(new Object[] { id, roleId });
+
+            if (users.size() == CHUNK_SIZE) {
+                jdbcTemplate.batchUpdate("INSERT INTO users (id, username, password, last_accessed_at) VALUES (?, ?, ?, ?)", users);
+                jdbcTemplate.batchUpdate("INSERT INTO mfa (user_id, mfa_enabled, mfa_secret_key) VALUES (?, ?, ?)", mfa);
+                jdbcTemplate.batchUpdate("INSERT INTO user_roles (user_id, role_id) VALUES (?, ?)", userRoles);
+                users.clear();
+                mfa.clear();
+                userRoles.clear();
+            }
+
+        }
+
+        jdbcTemplate.update(
+                "INSERT INTO refresh_tokens (id, user_id, token_hash, family_id, expires_at, used, revoked) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                FIRST_ID, FIRST_ID, "hash", "family", Timestamp.valueOf(LocalDateTime.now().plusDays(1)), false, false
+        );
+
+    }
+
+    @AfterEach
+    void deleteUsers() {
+        jdbcTemplate.update("DELETE FROM refresh_tokens");
+        jdbcTemplate.update("DELETE FROM mfa");
+        jdbcTemplate.update("DELETE FROM user_roles");
+        jdbcTemplate.update("DELETE FROM users");
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+
+    private InactiveUserPurger purger(int chunkSize, SimpleMeterRegistry meterRegistry) {
+        return new InactiveUserPurger(
+                true,
+                Duration.ofHours(72),
+                chunkSize,
+                Duration.ZERO,
+                jdbcTemplate,
+                transactionManager,
+                lastAccessTracker,
+                entityManagerFactory,
+                meterRegistry
+        );
+    }
+
+    /**
+     * Test that 100k seeded users are purged down to the active half, in chunks, together with their rows
+     */
+    @Test
+    void testPurgeInactiveUsers() {
+
+        seed();
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        InactiveUserPurger purger = purger(CHUNK_SIZE, meterRegistry);
+
+        long purged = purger.purge();
+
+        // Assertions
+        assertEquals(USERS / 2, purged);
+        assertEquals(USERS / 2, count("users"));
+        assertEquals(USERS / 2, count("mfa"));
+        assertEquals(USERS / 2, count("user_roles"));
+        assertEquals(0, count("refresh_tokens"));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM users WHERE last_accessed_at < ?", Long.class, Timestamp.valueOf(LocalDateTime.now().minusDays(3))
+        ));
+        assertEquals(USERS / 2, meterRegistry.get("purge.users.purged").counter().count());
+        assertEquals(USERS / 2 / CHUNK_SIZE, meterRegistry.get("purge.chunk").timer().count());
+        assertEquals(0, purger.purge());
+
+    }
+
+    /**
+     * Test that expired refresh tokens of active users are deleted, used or not, in chunks, and that tokens still
+     * valid are kept, used ones included, so replaying them is still detected
+     */
+    @Test
+    void testPurgeExpiredRefreshTokens() {
+
+        jdbcTemplate.update(
+                "INSERT INTO users (id, username, password, last_accessed_at) VALUES (?, ?, ?, ?)",
+                FIRST_ID, "token_user", "hash", Timestamp.valueOf(LocalDateTime.now())
+        );
+
+        Timestamp expired = Timestamp.valueOf(LocalDateTime.now().minusMinutes(1));
+        Timestamp valid = Timestamp.valueOf(LocalDateTime.now().plusDays(1));
+
+        List<Object[]> tokens = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            tokens.add(new Object[] { FIRST_ID + i, FIRST_ID, "expired_" + i, "family", expired, i % 2 == 0, false });
+        }
+
+        tokens.add(new Object[] { FIRST_ID + 5, FIRST_ID, "used", "family", valid, true, false });
+        tokens.add(new Object[] { FIRST_ID + 6, FIRST_ID, "current", "family", valid, false, false });
+
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO refresh_tokens (id, user_id, token_hash, family_id, expires_at, used, revoked) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                tokens
+        );
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        long purged = purger(2, meterRegistry).purge();
+
+        // Assertions
+        assertEquals(0, purged);
+        assertEquals(
+                List.of("current", "used"),
+                jdbcTemplate.queryForList("SELECT token_hash FROM refresh_tokens ORDER BY token_hash", String.class)
+        );
+        assertEquals(5, meterRegistry.get("purge.refresh.tokens.purged").counter().count());
+
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.example.taskmanagerauth.integration.service;
+
+import com.example.taskmanagerauth.config.ConnectionHoldMetricsTrackerFactory;
+import com.example.taskmanagerauth.dto.impl.LoginRequest;
+import com.example.taskmanagerauth.dto.responses.LoginResult;
+import com.example.taskmanagerauth.dto.responses.MfaRequired;
+import com.example.taskmanagerauth.entity.User;
+import com.example.taskmanagerauth.service.MfaService;
+import com.example.taskmanagerauth.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:loginconnectionpool",
+        "spring.datasource.hikari.maximum-pool-size=2",
+        // Far below the ~25 hashes a login would wait for if connections were held across hashing
+        "spring.datasource.hikari.connection-timeout=2000",
+        "password-hashing.bcrypt.strength=11",
+        "password-hashing.queue-capacity=100",
+        "password-hashing.queue-timeout=30s"
+})
+public class LoginConnectionPoolIT {
+
+    private static final int LOGINS = 50;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MfaService mfaService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Test that 50 concurrent logins share a pool of two connections without a single acquisition timing out,
+     * as no connection is held while the password is hashed
+     */
+    @Test
+    void testConcurrentLoginsOnTwoConnections() throws Exception {
+
+        for (int i = 0; i < LOGINS; i++) {
+            User user = userService.createDatabaseUser("pool_user_" + i, "test_pass");
+            mfaService.instantiateMfaForUser(user);
+            userService.saveUser(user);
+        }
+
+        // Compile the login query before the burst
+        userService.login(new LoginRequest("pool_user_0", "test_pass", null));
+
+        double timeoutsBefore = meterRegistry.get("hikaricp.connections.timeout").counter().count();
+        long holdsBefore = meterRegistry.get(ConnectionHoldMetricsTrackerFactory.HOLD_METRIC).tag("uri", "none").timer().count();
+
+        ExecutorService executor = Executors.newFixedThreadPool(LOGINS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<LoginResult>> logins = new ArrayList<>();
+
+        try {
+
+            for (int i = 0; i < LOGINS; i++) {
+                LoginRequest loginRequest = new LoginRequest("pool_user_" + i, "test_pass", null);
+                logins.add(executor.submit(() -> {
+                    start.await();
+                    return userService.login(loginRequest);
+                }));
+            }
+
+            start.countDown();
+
+            for (Future<LoginResult> login : logins) {
+                // Assertions
+                assertInstanceOf(MfaRequired.class, login.get(60, TimeUnit.SECONDS));
+            }
+
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Assertions
+        assertEquals(timeoutsBefore, meterRegistry.get("hikaricp.connections.timeout").counter().count());
+        assertTrue(meterRegistry.get(ConnectionHoldMetricsTrackerFactory.HOLD_METRIC).tag("uri", "none").timer().count() >= holdsBefore + LOGINS);
+
+    }
+
+}
@@ -0,0 +1,195 @@
+package com.example.taskmanagerauth.integration.service;
+
+import com.example.taskmanagerauth.service.RoleRegistry;
+import com.example.taskmanagerauth.service.UserExportRunner;
+import com.example.taskmanagerauth.service.UserExportService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.BufferedReader;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs in its own JVM with a small heap (see the constant-memory failsafe execution), against a file database
+ * so the seeded users do not live on the heap themselves.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:file:./target/h2/userexport-${random.uuid}",
+        "logging.level.root=INFO"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class UserExportIT {
+
+    private static final int USERS = 500_000;
+    private static final int CHUNK_SIZE = 1000;
+
+    // One flush per thousand users, and one when the export completes
+    private static final int MAX_FLUSHES = USERS / 1000 + 1;
+
+    // Far above anything the sequences hand out during the test
+    private static final long FIRST_ID = 10_000_000;
+
+    @Autowired
+    private UserExportService userExportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Seed users, each with an mfa row, and every tenth one with a second role
+     */
+    @BeforeAll
+    void seed() {
+
+        long userRoleId = roleRegistry.getRole(RoleRegistry.USER).getId();
+        long adminRoleId = roleRegistry.getRole(RoleRegistry.ADMIN).getId();
+        Timestamp lastAccessedAt = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Object[]> users = new ArrayList<>(CHUNK_SIZE);
+        List<Object[]> mfa = new ArrayList<>(CHUNK_SIZE);
+        List<Object[]> userRoles = new ArrayList<>(CHUNK_SIZE + CHUNK_SIZE / 10);
+
+        for (int i = 0; i < USERS; i++) {
+
+            long id = FIRST_ID + i;
+
+            users.add(new Object[] { id, "export_user_" + i, "$2a$10$abcdefghijklmnopqrstuvwxyzabcdefghijklmnopqrstuvwxyzab", lastAccessedAt });
+            mfa.add(new Object[] { id, i % 2 == 0, "encrypted_secret_" + i });
+            userRoles.add(new Object[] { id, userRoleId });
+
+            if (i % 10 == 0) {
+                userRoles.add(new Object[] { id, adminRoleId });
+            }
+
+            if (users.size() == CHUNK_SIZE) {
+                jdbcTemplate.batchUpdate("INSERT INTO users (id, username, password, last_accessed_at) VALUES (?, ?, ?, ?)", users);
+                jdbcTemplate.batchUpdate("INSERT INTO mfa (user_id, mfa_enabled, mfa_secret_key) VALUES (?, ?, ?)", mfa);
+                jdbcTemplate.batchUpdate("INSERT INTO user_roles (user_id, role_id) VALUES (?, ?)", userRoles);
+                users.clear();
+                mfa.clear();
+                userRoles.clear();
+            }
+
+        }
+
+    }
+
+    @AfterAll
+    void dropDatabase() {
+        jdbcTemplate.execute("DROP ALL OBJECTS DELETE FILES");
+    }
+
+    /**
+     * Test that 500k users are exported one line each, within a heap far too small to hold them all,
+     * without a single entity being loaded, and flushed in batches rather than per user
+     */
+    @Test
+    void testExportIsStreamed() {
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long entityLoads = statistics.getEntityLoadCount();
+
+        long[] lines = new long[1];
+        long[] flushes = new long[1];
+
+        OutputStream counting = new OutputStream() {
+            @Override
+            public void write(int b) {
+                if (b == '\n') {
+                    lines[0]++;
+                }
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                for (int i = offset; i < offset + length; i++) {
+                    write(bytes[i]);
+                }
+            }
+
+            @Override
+            public void flush() {
+                flushes[0]++;
+            }
+        };
+
+        long exported = userExportService.exportUsers(counting);
+
+        // Assertions
+        assertEquals(USERS, exported);
+        assertEquals(USERS, lines[0]);
+        assertEquals(entityLoads, statistics.getEntityLoadCount());
+        assertTrue(flushes[0] <= MAX_FLUSHES, "Flushed " + flushes[0] + " times");
+
+    }
+
+    /**
+     * Test that the command line mode writes each user with its roles and encrypted mfa secret
+     */
+    @Test
+    void testExportToFile(@TempDir Path directory) throws Exception {
+
+        Path file = directory.resolve("users.ndjson");
+
+        new UserExportRunner(file, false, userExportService, context).run(null);
+
+        List<JsonNode> first = new ArrayList<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            while (first.size() < 2 && (line = reader.readLine()) != null) {
+                first.add(objectMapper.readTree(line));
+            }
+        }
+
+        // Assertions
+        assertEquals(FIRST_ID, first.get(0).get("id").asLong());
+        assertEquals("export_user_0", first.get(0).get("username").asText());
+        assertEquals(2, first.get(0).get("roles").size());
+        assertTrue(first.get(0).get("mfaEnabled").asBoolean());
+        assertEquals("encrypted_secret_0", first.get(0).get("mfaSecretKey").asText());
+        assertEquals(1, first.get(1).get("roles").size());
+        assertFalse(first.get(1).get("mfaEnabled").asBoolean());
+
+    }
+
+}
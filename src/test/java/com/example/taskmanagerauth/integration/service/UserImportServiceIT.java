@@ -0,0 +1,132 @@
+package com.example.taskmanagerauth.integration.service;
+
+import com.example.taskmanagerauth.dto.credentials.UserCredentials;
+import com.example.taskmanagerauth.dto.imports.UserImportError;
+import com.example.taskmanagerauth.dto.imports.UserImportFormat;
+import com.example.taskmanagerauth.dto.imports.UserImportReport;
+import com.example.taskmanagerauth.entity.User;
+import com.example.taskmanagerauth.repository.UserRepository;
+import com.example.taskmanagerauth.service.MfaService;
+import com.example.taskmanagerauth.service.UserImportService;
+import com.example.taskmanagerauth.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:userimport")
+public class UserImportServiceIT {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserImportServiceIT.class);
+
+    private static final int USERS = 10_000;
+    private static final String PASSWORD = "test_pass";
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MfaService mfaService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long count(String sql, Object... parameters) {
+        return jdbcTemplate.queryForObject(sql, Long.class, parameters);
+    }
+
+    /**
+     * Test that a large NDJSON file is imported with a role and an mfa row per user, that bad rows are reported
+     * by line without stopping the import, and that imported users can log in
+     */
+    @Test
+    void testImportNdjson() {
+
+        User registered = userService.createDatabaseUser("ndjson_user_7", PASSWORD);
+        mfaService.instantiateMfaForUser(registered);
+        userService.saveUser(registered);
+
+        // Cached as absent before the import, so the import has to invalidate it
+        assertTrue(userRepository.findByUsername("ndjson_user_8").isEmpty());
+
+        StringBuilder ndjson = new StringBuilder();
+
+        for (int i = 0; i < USERS; i++) {
+            ndjson.append("{\"username\":\"ndjson_user_").append(i).append("\",\"password\":\"").append(PASSWORD).append("\"}\n");
+        }
+
+        ndjson.append("{\"username\":\"ndjson_user_3\",\"password\":\"").append(PASSWORD).append("\"}\n");
+        ndjson.append("not json\n");
+        ndjson.append("{\"username\":\"ndjson_user_no_password\"}\n");
+
+        long start = System.nanoTime();
+        UserImportReport report = userImportService.importUsers(new StringReader(ndjson.toString()), UserImportFormat.NDJSON);
+        long elapsed = System.nanoTime() - start;
+
+        logger.info("Imported {} users in {} ms", report.imported(), elapsed / 1_000_000);
+
+        UserCredentials credentials = userService.getCredentialsByUsernameAndPassword("ndjson_user_9999", PASSWORD);
+
+        // Assertions
+        assertEquals(USERS - 1, report.imported());
+        assertEquals(4, report.failed());
+        assertEquals(
+                List.of(
+                        new UserImportError(8, "ndjson_user_7", "A user with this name already exists."),
+                        new UserImportError(USERS + 1, "ndjson_user_3", "A user with this name already exists."),
+                        new UserImportError(USERS + 2, null, "Malformed JSON."),
+                        new UserImportError(USERS + 3, "ndjson_user_no_password", "A password must be provided.")
+                ),
+                report.errors()
+        );
+        assertEquals(USERS, count("SELECT COUNT(*) FROM users WHERE username LIKE 'ndjson_user_%'"));
+        assertEquals(USERS, count("SELECT COUNT(*) FROM mfa m JOIN users u ON u.id = m.user_id WHERE u.username LIKE 'ndjson_user_%'"));
+        assertEquals(USERS, count("SELECT COUNT(*) FROM user_roles r JOIN users u ON u.id = r.user_id WHERE u.username LIKE 'ndjson_user_%'"));
+        assertEquals(List.of("USER"), credentials.roles());
+        assertFalse(credentials.mfaEnabled());
+        assertTrue(userRepository.findByUsername("ndjson_user_8").isPresent());
+
+    }
+
+    /**
+     * Test that imported ids come from the same sequence allocation as registrations, so neither collides
+     */
+    @Test
+    void testIdsShareSequence() {
+
+        UserImportReport report = userImportService.importUsers(
+                new StringReader("username,password\ncsv_user_1," + PASSWORD + "\ncsv_user_2," + PASSWORD + "\n"),
+                UserImportFormat.CSV
+        );
+
+        User registered = userService.createDatabaseUser("csv_user_3", PASSWORD);
+        mfaService.instantiateMfaForUser(registered);
+        userService.saveUser(registered);
+
+        // Assertions
+        assertEquals(new UserImportReport(2, 0, List.of()), report);
+        assertEquals(3, count("SELECT COUNT(DISTINCT id) FROM users WHERE username LIKE 'csv_user_%'"));
+
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.example.taskmanagerauth.unit.config;
+
+import com.example.taskmanagerauth.config.ConnectionHoldMetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+public class ConnectionHoldMetricsTrackerFactoryTests {
+
+    private SimpleMeterRegistry meterRegistry;
+    private IMetricsTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.tracker = new ConnectionHoldMetricsTrackerFactory(meterRegistry).create("Test pool", new PoolStats(0) {
+            @Override
+            protected void update() {}
+        });
+
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private Timer holdTimer(String uri) {
+        return meterRegistry.get(ConnectionHoldMetricsTrackerFactory.HOLD_METRIC)
+                .tag("pool", "Test pool")
+                .tag("uri", uri)
+                .timer();
+    }
+
+    /**
+     * Test that a connection returned while handling a request is recorded against the matched endpoint
+     */
+    @Test
+    void testHoldTaggedWithEndpoint() {
+
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/auth/login");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        tracker.recordConnectionUsageMillis(12);
+        tracker.recordConnectionUsageMillis(8);
+
+        // Assertions
+        assertEquals(2, holdTimer("/auth/login").count());
+        assertEquals(20, holdTimer("/auth/login").totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(2, meterRegistry.get("hikaricp.connections.usage").timer().count());
+
+    }
+
+    /**
+     * Test that connections returned before a handler is matched, or outside any request, get their own tags
+     */
+    @Test
+    void testHoldWithoutEndpoint() {
+
+        tracker.recordConnectionUsageMillis(5);
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        tracker.recordConnectionUsageMillis(5);
+
+        // Assertions
+        assertEquals(1, holdTimer("none").count());
+        assertEquals(1, holdTimer("UNKNOWN").count());
+
+    }
+
+}
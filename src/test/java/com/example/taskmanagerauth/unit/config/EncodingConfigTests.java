@@ -0,0 +1,81 @@
+package com.example.taskmanagerauth.unit.config;
+
+import com.example.taskmanagerauth.config.EncodingConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+public class EncodingConfigTests {
+
+    private final EncodingConfig encodingConfig = new EncodingConfig();
+
+    private PasswordEncoder encoder(String algorithm, int strength) {
+        return encodingConfig.passwordEncoder(algorithm, strength, 4, 6, Duration.ofMillis(80));
+    }
+
+    /**
+     * Test that hashes stored before the {id} prefix existed still match, and are flagged for an upgrade
+     */
+    @Test
+    void testLegacyHash() {
+
+        PasswordEncoder passwordEncoder = encoder("bcrypt", 4);
+        String legacy = new BCryptPasswordEncoder(4).encode("Test pass");
+
+        // Assertions
+        assertTrue(passwordEncoder.matches("Test pass", legacy));
+        assertFalse(passwordEncoder.matches("Wrong pass", legacy));
+        assertTrue(passwordEncoder.upgradeEncoding(legacy));
+
+    }
+
+    /**
+     * Test that a hash with a lower cost than configured is flagged, and a current one is not
+     */
+    @Test
+    void testWeakerCost() {
+
+        String weak = encoder("bcrypt", 4).encode("Test pass");
+        PasswordEncoder passwordEncoder = encoder("bcrypt", 5);
+
+        // Assertions
+        assertTrue(weak.startsWith("{bcrypt}"));
+        assertTrue(passwordEncoder.upgradeEncoding(weak));
+        assertFalse(passwordEncoder.upgradeEncoding(passwordEncoder.encode("Test pass")));
+
+    }
+
+    /**
+     * Test that switching to Argon2id keeps BCrypt hashes valid while flagging them for an upgrade
+     */
+    @Test
+    void testArgon2() {
+
+        String bcrypt = encoder("bcrypt", 4).encode("Test pass");
+        PasswordEncoder passwordEncoder = encoder("argon2", 4);
+        String argon2 = passwordEncoder.encode("Test pass");
+
+        // Assertions
+        assertTrue(argon2.startsWith("{argon2}$argon2id$"));
+        assertTrue(passwordEncoder.matches("Test pass", argon2));
+        assertTrue(passwordEncoder.matches("Test pass", bcrypt));
+        assertTrue(passwordEncoder.upgradeEncoding(bcrypt));
+        assertFalse(passwordEncoder.upgradeEncoding(argon2));
+
+    }
+
+    /**
+     * Test that an unknown algorithm fails at startup
+     */
+    @Test
+    void testUnknownAlgorithm() {
+        assertThrows(IllegalStateException.class, () -> encoder("md5", 4));
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.example.taskmanagerauth.unit.config;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.example.taskmanagerauth.config.JwtKeyConfig;
+import com.example.taskmanagerauth.dto.token.TokenType;
+import com.example.taskmanagerauth.service.JwtKeyRing;
+import com.example.taskmanagerauth.service.JwtService;
+import com.example.taskmanagerauth.service.VerifiedTokenCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+public class JwtKeyConfigTests {
+
+    private final JwtKeyConfig jwtKeyConfig = new JwtKeyConfig();
+
+    /**
+     * Test that HMAC mode keeps signing with the shared secret
+     */
+    @Test
+    void testHmacMode() {
+
+        JwtKeyRing keyRing = jwtKeyConfig.accessKeyRing("hmac", "Test", List.of(), "", "", List.of(), false);
+
+        String token = keyRing.sign(JWT.create().withSubject("Test id"));
+
+        // Assertions
+        assertEquals("HS512", JWT.decode(token).getAlgorithm());
+        assertTrue(keyRing.getPublicJwks().isEmpty());
+
+    }
+
+    /**
+     * Test that EC mode signs with ES256, publishes its key, and still accepts tokens signed with the shared secret
+     */
+    @Test
+    void testEcMode() {
+
+        JwtKeyRing keyRing = jwtKeyConfig.accessKeyRing("ec", "Test", List.of(), "", "", List.of(), true);
+        JwtService jwtService = new JwtService(keyRing, new JwtKeyRing("Test2", List.of()), VerifiedTokenCache.disabled());
+
+        String ecToken = jwtService.generateToken(new User("1", "Test pass", List.of(new SimpleGrantedAuthority("USER"))));
+        String hmacToken = JWT.create()
+                .withSubject("1")
+                .withClaim("authorities", List.of("USER"))
+                .withExpiresAt(new Date(System.currentTimeMillis() + Duration.ofMinutes(10).toMillis()))
+                .sign(Algorithm.HMAC512("Test"));
+
+        // Assertions
+        assertEquals("ES256", JWT.decode(ecToken).getAlgorithm());
+        assertEquals(1, keyRing.getPublicJwks().size());
+        assertEquals("1", jwtService.verify(ecToken, TokenType.ACCESS).subject());
+        assertEquals("1", jwtService.verify(hmacToken, TokenType.ACCESS).subject());
+
+    }
+
+    /**
+     * Test that misconfigurations fail at startup
+     */
+    @Test
+    void testInvalidConfiguration() {
+
+        assertThrows(IllegalStateException.class, () -> jwtKeyConfig.accessKeyRing("rsa", "Test", List.of(), "", "", List.of(), false));
+        assertThrows(IllegalArgumentException.class, () -> jwtKeyConfig.accessKeyRing("hmac", "", List.of(), "", "", List.of(), false));
+        assertThrows(IllegalStateException.class, () -> jwtKeyConfig.accessKeyRing("ec", "", List.of(), "MFk=", "", List.of(), false));
+        assertThrows(IllegalStateException.class, () -> jwtKeyConfig.accessKeyRing("ec", "Test", List.of(), "", "", List.of(), false));
+
+    }
+
+}
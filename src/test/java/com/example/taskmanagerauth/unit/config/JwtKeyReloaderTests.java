@@ -0,0 +1,111 @@
+package com.example.taskmanagerauth.unit.config;
+
+import com.auth0.jwt.JWT;
+import com.example.taskmanagerauth.config.JwtKeyReloader;
+import com.example.taskmanagerauth.service.JwtKeyRing;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+public class JwtKeyReloaderTests {
+
+    @TempDir
+    private Path directory;
+
+    private final MockEnvironment environment = new MockEnvironment()
+            .withProperty("jwt.secret", "Test")
+            .withProperty("jwt.mfa", "Test2");
+
+    private JwtKeyRing accessKeyRing;
+    private JwtKeyRing mfaKeyRing;
+
+    @BeforeEach
+    void setUp() {
+        accessKeyRing = new JwtKeyRing("Test", List.of());
+        mfaKeyRing = new JwtKeyRing("Test2", List.of());
+    }
+
+    private JwtKeyReloader reloader() {
+        return new JwtKeyReloader(directory.toString(), environment, accessKeyRing, mfaKeyRing);
+    }
+
+    private void write(String name, String content) throws IOException {
+        Files.writeString(directory.resolve(name), content);
+    }
+
+    /**
+     * Test that a rotated secret signs new tokens while the previous one still verifies old tokens,
+     * and that unchanged files leave the keys alone
+     */
+    @Test
+    void testRotation() throws IOException {
+
+        JwtKeyReloader reloader = reloader();
+        String oldKid = accessKeyRing.getPrimaryKeyId();
+        String oldToken = accessKeyRing.sign(JWT.create().withSubject("1"));
+
+        write("jwt.secret", "Rotated\n");
+        write("jwt.previous-secrets", "Test");
+
+        // Assertions
+        assertTrue(reloader.check());
+        assertNotEquals(oldKid, accessKeyRing.getPrimaryKeyId());
+        assertEquals(Set.of(accessKeyRing.getPrimaryKeyId(), oldKid), accessKeyRing.getKeyIds());
+        assertNotNull(accessKeyRing.getVerifier(oldKid).verify(oldToken));
+        assertFalse(reloader.check());
+
+        write("jwt.previous-secrets", "");
+
+        assertTrue(reloader.check());
+        assertNull(accessKeyRing.getVerifier(oldKid));
+
+    }
+
+    /**
+     * Test that files present at startup are in force at once, and only reload the ring whose settings they change
+     */
+    @Test
+    void testFilesReadAtStartup() throws IOException {
+
+        String accessKid = accessKeyRing.getPrimaryKeyId();
+        String mfaKid = mfaKeyRing.getPrimaryKeyId();
+
+        write("jwt.mfa", "Rotated2");
+        reloader();
+
+        // Assertions
+        assertEquals(accessKid, accessKeyRing.getPrimaryKeyId());
+        assertNotEquals(mfaKid, mfaKeyRing.getPrimaryKeyId());
+
+    }
+
+    /**
+     * Test that invalid settings keep the current keys while running, but fail startup
+     */
+    @Test
+    void testInvalidSettings() throws IOException {
+
+        JwtKeyReloader reloader = reloader();
+        String kid = accessKeyRing.getPrimaryKeyId();
+
+        write("jwt.signing-mode", "rsa");
+
+        // Assertions
+        assertFalse(reloader.check());
+        assertEquals(kid, accessKeyRing.getPrimaryKeyId());
+        assertThrows(IllegalStateException.class, this::reloader);
+
+    }
+
+}
@@ -0,0 +1,160 @@
+package com.example.taskmanagerauth.unit.config;
+
+import com.example.taskmanagerauth.config.JwtRequestFilter;
+import com.example.taskmanagerauth.dto.token.TokenType;
+import com.example.taskmanagerauth.exception.handler.FilterExceptionManager;
+import com.example.taskmanagerauth.service.JwtKeyRing;
+import com.example.taskmanagerauth.service.JwtService;
+import com.example.taskmanagerauth.service.LastAccessTracker;
+import com.example.taskmanagerauth.service.UserService;
+import com.example.taskmanagerauth.service.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+public class JwtRequestFilterAllocationTests {
+
+    private static final int WARMUP = 20_000;
+    private static final int REQUESTS = 20_000;
+
+    // Bytes per request; reading the cookies through getCookies, with a stream and a list, cost 248 on a public path
+    private static final long PUBLIC_PATH_BUDGET = 192;
+
+    // Bytes per request on top of the token, which has to be copied out of the header
+    private static final long ACCESS_PATH_BUDGET = 128;
+
+    @Mock
+    private UserService userService;
+
+    private final FilterChain filterChain = (request, response) -> {};
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    private JwtRequestFilter jwtRequestFilter;
+    private JwtService jwtService;
+    private String accessToken;
+
+    @BeforeEach
+    void setUp() {
+
+        // As configured in production, so a repeated token is not verified again
+        this.jwtService = new JwtService(
+                new JwtKeyRing("Test", List.of()),
+                new JwtKeyRing("Test2", List.of()),
+                new VerifiedTokenCache(true, 100, Duration.ofMinutes(5), new SimpleMeterRegistry())
+        );
+        this.jwtRequestFilter = new JwtRequestFilter(userService, jwtService, LastAccessTracker.disabled(), new FilterExceptionManager());
+
+        UserDetails userDetails = new User("1", "Test pass", List.of(new SimpleGrantedAuthority("USER")));
+        this.accessToken = jwtService.generateToken(userDetails);
+
+        // Keeps loading the user, which is the user service's cost, out of the measurement
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities())
+        );
+
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private MockHttpServletRequest request(String servletPath) {
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api" + servletPath);
+        request.setServletPath(servletPath);
+        request.setCookies(
+                new Cookie("theme", "dark"),
+                new Cookie("taskmanager_access_token", accessToken),
+                new Cookie("taskmanager_refresh_token", "Test refresh")
+        );
+
+        return request;
+
+    }
+
+    /**
+     * Run a request repeatedly on this thread
+     * @return (long) The bytes allocated per run once warmed up
+     */
+    private static long allocatedPerRun(ThrowingRunnable request) throws Exception {
+
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        for (int i = 0; i < WARMUP; i++) {
+            request.run();
+        }
+
+        long before = threadMXBean.getCurrentThreadAllocatedBytes();
+
+        for (int i = 0; i < REQUESTS; i++) {
+            request.run();
+        }
+
+        return (threadMXBean.getCurrentThreadAllocatedBytes() - before) / REQUESTS;
+
+    }
+
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+
+    /**
+     * Test that a public path costs no more than OncePerRequestFilter's own bookkeeping
+     */
+    @Test
+    void testPublicPathBudget() throws Exception {
+
+        MockHttpServletRequest request = request("/auth/login");
+
+        long allocated = allocatedPerRun(() -> jwtRequestFilter.doFilter(request, response, filterChain));
+
+        // Assertions
+        assertTrue(allocated <= PUBLIC_PATH_BUDGET, "Allocated " + allocated + " bytes per request");
+
+    }
+
+    /**
+     * Test that on an authenticated path, the filter allocates little beyond the copy of the token it hands to
+     * JwtService, whose verification is measured separately and left out
+     */
+    @Test
+    void testAccessPathBudget() throws Exception {
+
+        MockHttpServletRequest request = request("/auth/validate");
+        MockHttpServletRequest publicRequest = request("/auth/login");
+
+        long allocated = allocatedPerRun(() -> jwtRequestFilter.doFilter(request, response, filterChain));
+        long bookkeeping = allocatedPerRun(() -> jwtRequestFilter.doFilter(publicRequest, response, filterChain));
+        long verification = allocatedPerRun(() -> jwtService.verify(accessToken, TokenType.ACCESS));
+
+        long filter = allocated - bookkeeping - verification;
+
+        // Assertions
+        assertTrue(filter <= accessToken.length() + ACCESS_PATH_BUDGET, "Allocated " + filter + " bytes per request");
+
+    }
+
+}
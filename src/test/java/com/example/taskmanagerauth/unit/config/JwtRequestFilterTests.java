@@ -5,26 +5,26 @@ import com.auth0.jwt.JWT;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.example.taskmanagerauth.config.JwtRequestFilter;
 import com.example.taskmanagerauth.exception.handler.FilterExceptionManager;
-import com.example.taskmanagerauth.exception.server.InvalidJwtException;
-import com.example.taskmanagerauth.exception.server.JwtNotProvidedException;
 import com.example.taskmanagerauth.service.UserService;
 import com.example.taskmanagerauth.service.JwtService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
-import jakarta.servlet.http.Cookie;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.io.IOException;
 import java.time.Duration;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.stream.Stream;
@@ -75,11 +75,9 @@ public class JwtRequestFilterTests {
                 .withExpiresAt(new Date(System.currentTimeMillis() + Duration.ofMinutes(10).toMillis()))
                 .sign(algorithm);
 
-        Cookie access_token = new Cookie("taskmanager_access_token", jwt);
-
         when(request.getServletPath()).thenReturn("/auth/validate");
 
-        when(request.getCookies()).thenReturn(new Cookie[]{access_token});
+        when(request.getHeader(HttpHeaders.COOKIE)).thenReturn("theme=dark; taskmanager_access_token=" + jwt);
         when(userService.loadUserByJWT("Test user", List.of("USER"))).thenReturn(new User(
                 "Test User",
                 "JWT-AUTHENTICATED",
@@ -89,7 +87,8 @@ public class JwtRequestFilterTests {
         jwtRequestFilter.doFilter(request, response, filterChain);
 
         // Assertions
-        verify(request, times(3)).getCookies();
+        verify(request, times(1)).getHeader(HttpHeaders.COOKIE);
+        verify(request, never()).getCookies();
         verify(filterChain, times(1)).doFilter(request, response);
 
     }
@@ -102,18 +101,15 @@ public class JwtRequestFilterTests {
     @Test
     void testFilterThrowsWhenHeaderIsNull() throws ServletException, IOException {
 
-        when(request.getCookies()).thenReturn(null);
+        when(request.getHeader(HttpHeaders.COOKIE)).thenReturn(null);
 
         when(request.getServletPath()).thenReturn("/auth/validate");
 
         jwtRequestFilter.doFilter(request, response, filterChain);
 
         // Assertions
-        verify(request, times(1)).getCookies();
-        verify(filterExceptionManager, times(1)).handleJwtNotProvidedException(
-                any(JwtNotProvidedException.class),
-                eq(response)
-        );
+        verify(request, times(1)).getHeader(HttpHeaders.COOKIE);
+        verify(filterExceptionManager, times(1)).handleNoTokens(response);
 
     }
 
@@ -125,18 +121,15 @@ public class JwtRequestFilterTests {
     @Test
     void testFilterThrowsWhenHeaderIsEmpty() throws ServletException, IOException {
 
-        when(request.getCookies()).thenReturn(new Cookie[]{});
+        when(request.getHeader(HttpHeaders.COOKIE)).thenReturn("");
 
         when(request.getServletPath()).thenReturn("/auth/validate");
 
         jwtRequestFilter.doFilter(request, response, filterChain);
 
         // Assertions
-        verify(request, times(2)).getCookies();
-        verify(filterExceptionManager, times(1)).handleJwtNotProvidedException(
-                any(JwtNotProvidedException.class),
-                eq(response)
-        );
+        verify(request, times(1)).getHeader(HttpHeaders.COOKIE);
+        verify(filterExceptionManager, times(1)).handleNoTokens(response);
 
     }
 
@@ -157,20 +150,82 @@ public class JwtRequestFilterTests {
                 .withExpiresAt(new Date())
                 .sign(algorithm);
 
-        Cookie access_token = new Cookie("taskmanager_access_token", jwt);
+        when(request.getHeader(HttpHeaders.COOKIE)).thenReturn("taskmanager_access_token=" + jwt);
+
+        when(request.getServletPath()).thenReturn("/auth/validate");
+
+        jwtRequestFilter.doFilter(request, response, filterChain);
+
+        // Assertions
+        verify(request, times(1)).getHeader(HttpHeaders.COOKIE);
+        verify(filterExceptionManager, times(1)).handleInvalidAccessToken(response);
+
+    }
 
-        when(request.getCookies()).thenReturn(new Cookie[]{access_token});
+    /**
+     * Test that an access token is not accepted on a path that expects a 2FA token
+     * @throws ServletException -> Shouldn't occur
+     * @throws IOException -> Shouldn't occur
+     */
+    @Test
+    void testFilterThrowsWhenTokenTypeIsWrong() throws ServletException, IOException {
+
+        Algorithm algorithm = Algorithm.HMAC512("Test");
+
+        String jwt = JWT.create()
+                .withSubject("Test user")
+                .withClaim("authorities", List.of("USER"))
+                .withIssuedAt(new Date())
+                .withExpiresAt(new Date(System.currentTimeMillis() + Duration.ofMinutes(10).toMillis()))
+                .sign(algorithm);
+
+        when(request.getHeader(HttpHeaders.COOKIE)).thenReturn("mfa_access_token=" + jwt);
+
+        when(request.getServletPath()).thenReturn("/auth/2fa/generate");
+
+        jwtRequestFilter.doFilter(request, response, filterChain);
+
+        // Assertions
+        verify(filterChain, never()).doFilter(request, response);
+        verify(filterExceptionManager, times(1)).handleInvalidAccessToken(response);
+
+    }
+
+    /**
+     * Test that a token sent in a later Cookie header, as HTTP/2 clients may do, is still found
+     * @throws ServletException -> Immediate failure
+     * @throws IOException -> Immediate failure
+     */
+    @Test
+    void testFilterFindsTokenInLaterCookieHeader() throws ServletException, IOException {
+
+        SecurityContextHolder.clearContext();
+
+        Algorithm algorithm = Algorithm.HMAC512("Test");
+
+        String jwt = JWT.create()
+                .withSubject("Test user")
+                .withClaim("authorities", List.of("USER"))
+                .withIssuedAt(new Date())
+                .withExpiresAt(new Date(System.currentTimeMillis() + Duration.ofMinutes(10).toMillis()))
+                .sign(algorithm);
 
         when(request.getServletPath()).thenReturn("/auth/validate");
+        when(request.getHeader(HttpHeaders.COOKIE)).thenReturn("theme=dark");
+        when(request.getHeaders(HttpHeaders.COOKIE)).thenReturn(Collections.enumeration(List.of(
+                "theme=dark",
+                "taskmanager_access_token=" + jwt
+        )));
+        when(userService.loadUserByJWT("Test user", List.of("USER"))).thenReturn(new User(
+                "Test User",
+                "JWT-AUTHENTICATED",
+                Stream.of("USER").map(SimpleGrantedAuthority::new).toList()
+        ));
 
         jwtRequestFilter.doFilter(request, response, filterChain);
 
         // Assertions
-        verify(request, times(3)).getCookies();
-        verify(filterExceptionManager, times(1)).handleInvalidJwtException(
-                any(InvalidJwtException.class),
-                eq(response)
-        );
+        verify(filterChain, times(1)).doFilter(request, response);
 
     }
 
@@ -0,0 +1,47 @@
+package com.example.taskmanagerauth.unit.config;
+
+import com.example.taskmanagerauth.config.RouteTable;
+import com.example.taskmanagerauth.config.RouteTable.Route;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+public class RouteTableTests {
+
+    /**
+     * Test that the configured paths are classified, and everything else needs an access token
+     */
+    @Test
+    void testFromSecurityConfig() {
+
+        RouteTable routes = RouteTable.fromSecurityConfig();
+
+        // Assertions
+        assertEquals(Route.PUBLIC, routes.classify("/auth/login"));
+        assertEquals(Route.PUBLIC, routes.classify("/auth/.well-known/jwks.json"));
+        assertEquals(Route.MFA, routes.classify("/auth/2fa/generate"));
+        assertEquals(Route.ACCESS, routes.classify("/auth/validate"));
+        assertEquals(Route.ACCESS, routes.classify("/auth/login/"));
+        assertEquals(Route.ACCESS, routes.classify(null));
+
+    }
+
+    /**
+     * Test that a path listed as both public and mfa is public
+     */
+    @Test
+    void testPublicWins() {
+
+        RouteTable routes = new RouteTable(List.of("/both"), List.of("/both", "/mfa"));
+
+        // Assertions
+        assertEquals(Route.PUBLIC, routes.classify("/both"));
+        assertEquals(Route.MFA, routes.classify("/mfa"));
+
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.example.taskmanagerauth.unit.config;
+
+import com.example.taskmanagerauth.config.VirtualThreadPinningMonitor;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+public class VirtualThreadPinningMonitorTests {
+
+    private final Object monitor = new Object();
+
+    private SimpleMeterRegistry meterRegistry;
+    private VirtualThreadPinningMonitor pinningMonitor;
+
+    @BeforeEach
+    void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.pinningMonitor = new VirtualThreadPinningMonitor(Duration.ofMillis(10), meterRegistry);
+        this.pinningMonitor.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pinningMonitor.close();
+    }
+
+    private void sleepWhileHoldingMonitor() {
+        synchronized (monitor) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Test that a virtual thread sleeping inside synchronized is reported against the method holding the monitor
+     */
+    @Test
+    void testPinnedSleep() throws Exception {
+
+        Thread.ofVirtual().start(this::sleepWhileHoldingMonitor).join();
+
+        // JFR hands events to the stream about once a second
+        Timer pinned = null;
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+
+        while (pinned == null && System.nanoTime() < deadline) {
+            pinned = meterRegistry.find("virtual.threads.pinned")
+                    .tag("site", VirtualThreadPinningMonitorTests.class.getName() + ".sleepWhileHoldingMonitor")
+                    .timer();
+            Thread.sleep(100);
+        }
+
+        // Assertions
+        assertNotNull(pinned);
+        assertEquals(1, pinned.count());
+
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.example.taskmanagerauth.unit.exception.handler;
+
+import com.example.taskmanagerauth.dto.impl.ApiResponse;
+import com.example.taskmanagerauth.exception.handler.FilterExceptionManager;
+import com.example.taskmanagerauth.util.CachedTimestamp;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+public class FilterExceptionManagerTests {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2000, 12, 7, 12, 45, 15);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final FilterExceptionManager exceptionManager = new FilterExceptionManager(
+            new CachedTimestamp(() -> NOW.toInstant(ZoneOffset.UTC).toEpochMilli(), ZoneOffset.UTC)
+    );
+
+    /**
+     * Test that a prepared rejection writes the same body Jackson writes for the equivalent ApiResponse
+     */
+    @Test
+    void testPreparedBodyMatchesApiResponse() throws Exception {
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        exceptionManager.handleInvalidAccessToken(response);
+
+        ApiResponse<String> expected = ApiResponse.of(
+                400,
+                "Bad Request: Your access token is invalid.",
+                "Access token is invalid or expired.",
+                NOW
+        );
+
+        // Assertions
+        assertEquals(400, response.getStatus());
+        assertEquals("application/json", response.getContentType());
+        assertEquals(response.getContentAsByteArray().length, response.getContentLength());
+        assertEquals(mapper.readTree(mapper.writeValueAsString(expected)), mapper.readTree(response.getContentAsByteArray()));
+
+    }
+
+    /**
+     * Test that each rejection carries its own detail
+     */
+    @Test
+    void testRejectionDetails() throws Exception {
+
+        MockHttpServletResponse noTokens = new MockHttpServletResponse();
+        MockHttpServletResponse notProvided = new MockHttpServletResponse();
+
+        exceptionManager.handleNoTokens(noTokens);
+        exceptionManager.handleAccessTokenNotProvided(notProvided);
+
+        // Assertions
+        assertEquals("No tokens were provided.", mapper.readTree(noTokens.getContentAsByteArray()).get("data").asText());
+        assertEquals("Access token not provided.", mapper.readTree(notProvided.getContentAsByteArray()).get("data").asText());
+        assertEquals(
+                "Bad Request: Please provide your access token for authentication.",
+                mapper.readTree(notProvided.getContentAsByteArray()).get("message").asText()
+        );
+
+    }
+
+}
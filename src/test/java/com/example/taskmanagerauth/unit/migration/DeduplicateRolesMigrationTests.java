@@ -0,0 +1,124 @@
+package com.example.taskmanagerauth.unit.migration;
+
+import db.migration.common.V4__DeduplicateRoles;
+import org.flywaydb.core.api.migration.Context;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ActiveProfiles("test")
+public class DeduplicateRolesMigrationTests {
+
+    private Connection connection;
+    private Context context;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+
+        connection = DriverManager.getConnection("jdbc:h2:mem:deduplicateroles");
+        context = mock(Context.class);
+        when(context.getConnection()).thenReturn(connection);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE roles (id BIGINT PRIMARY KEY, name VARCHAR(255))");
+            statement.execute("CREATE TABLE user_roles (user_id BIGINT NOT NULL, role_id BIGINT NOT NULL, "
+                    + "PRIMARY KEY (role_id, user_id), FOREIGN KEY (role_id) REFERENCES roles (id))");
+        }
+
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private List<String> query(String sql) throws SQLException {
+        List<String> rows = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet result = statement.executeQuery(sql)) {
+            while (result.next()) {
+                rows.add(result.getString(1) + ":" + result.getString(2));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Test that duplicate roles collapse into the lowest id per name, with user_roles repointed at it
+     */
+    @Test
+    void testDeduplicates() throws Exception {
+
+        execute("INSERT INTO roles VALUES (1, 'USER'), (2, 'USER'), (3, 'ADMIN'), (4, 'USER'), (5, 'ADMIN')");
+        execute("INSERT INTO user_roles VALUES (10, 1), (11, 2), (12, 4), (12, 5)");
+
+        new V4__DeduplicateRoles().migrate(context);
+
+        // Assertions
+        assertEquals(List.of("1:USER", "3:ADMIN"), query("SELECT id, name FROM roles ORDER BY id"));
+        assertEquals(
+                List.of("10:1", "11:1", "12:1", "12:3"),
+                query("SELECT user_id, role_id FROM user_roles ORDER BY user_id, role_id")
+        );
+
+    }
+
+    /**
+     * Test that a user holding several duplicates of a role keeps it only once, and that names end up unique
+     */
+    @Test
+    void testCollisionsAndUniqueIndex() throws Exception {
+
+        execute("INSERT INTO roles VALUES (1, 'USER'), (2, 'USER'), (3, 'USER')");
+        execute("INSERT INTO user_roles VALUES (10, 1), (10, 2), (10, 3), (11, 3)");
+
+        new V4__DeduplicateRoles().migrate(context);
+
+        // Assertions
+        assertEquals(List.of("10:1", "11:1"), query("SELECT user_id, role_id FROM user_roles ORDER BY user_id"));
+        assertThrows(SQLException.class, () -> execute("INSERT INTO roles VALUES (4, 'USER')"));
+
+    }
+
+    /**
+     * Test that a user holding several duplicates of a role, but not its canonical row, keeps it once
+     */
+    @Test
+    void testCollisionsWithoutCanonicalRow() throws Exception {
+
+        execute("INSERT INTO roles VALUES (1, 'USER'), (2, 'USER'), (3, 'USER'), (4, 'USER')");
+        execute("INSERT INTO user_roles VALUES (10, 2), (10, 3), (10, 4), (11, 3), (12, 1)");
+
+        new V4__DeduplicateRoles().migrate(context);
+
+        // Assertions
+        assertEquals(List.of("1:USER"), query("SELECT id, name FROM roles ORDER BY id"));
+        assertEquals(
+                List.of("10:1", "11:1", "12:1"),
+                query("SELECT user_id, role_id FROM user_roles ORDER BY user_id")
+        );
+
+    }
+
+}
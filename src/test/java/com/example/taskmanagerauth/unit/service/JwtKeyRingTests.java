@@ -0,0 +1,155 @@
+package com.example.taskmanagerauth.unit.service;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.example.taskmanagerauth.service.JwtKeyRing;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+public class JwtKeyRingTests {
+
+    private String sign(JwtKeyRing keyRing) {
+        return keyRing.sign(JWT.create()
+                .withSubject("Test id")
+                .withExpiresAt(new Date(System.currentTimeMillis() + Duration.ofMinutes(10).toMillis())));
+    }
+
+    /**
+     * Test that minted tokens carry the primary key's id
+     */
+    @Test
+    void testSignStampsKeyId() {
+
+        JwtKeyRing keyRing = new JwtKeyRing("Test", List.of());
+
+        DecodedJWT jwt = JWT.decode(sign(keyRing));
+
+        // Assertions
+        assertEquals(keyRing.getPrimaryKeyId(), jwt.getKeyId());
+        assertNotNull(keyRing.getVerifier(jwt.getKeyId()).verify(jwt));
+
+    }
+
+    /**
+     * Test that the same secret always results in the same key id, so instances agree on it
+     */
+    @Test
+    void testKeyIdIsStable() {
+
+        assertEquals(
+                new JwtKeyRing("Test", List.of()).getPrimaryKeyId(),
+                new JwtKeyRing("Test", List.of()).getPrimaryKeyId()
+        );
+        assertNotEquals(
+                new JwtKeyRing("Test", List.of()).getPrimaryKeyId(),
+                new JwtKeyRing("Test2", List.of()).getPrimaryKeyId()
+        );
+
+    }
+
+    /**
+     * Test that tokens without a kid are checked against the primary key
+     */
+    @Test
+    void testTokenWithoutKeyIdUsesPrimary() {
+
+        JwtKeyRing keyRing = new JwtKeyRing("Test", List.of());
+
+        String jwt = JWT.create().withSubject("Test id").sign(Algorithm.HMAC512("Test"));
+
+        // Assertions
+        assertNotNull(keyRing.getVerifier(null).verify(jwt));
+
+    }
+
+    /**
+     * Test that the ring hands out the same verifier instance on every lookup
+     */
+    @Test
+    void testVerifierIsCached() {
+
+        JwtKeyRing keyRing = new JwtKeyRing("Test", List.of("Old"));
+
+        String kid = keyRing.getPrimaryKeyId();
+
+        // Assertions
+        assertSame(keyRing.getVerifier(kid), keyRing.getVerifier(kid));
+        assertSame(keyRing.getVerifier(null), keyRing.getVerifier(kid));
+
+    }
+
+    /**
+     * Test that tokens signed before a rotation still verify, and new tokens use the new key
+     */
+    @Test
+    void testRotateKeepsPreviousKey() {
+
+        JwtKeyRing keyRing = new JwtKeyRing("Test", List.of());
+
+        String oldKid = keyRing.getPrimaryKeyId();
+        String oldToken = sign(keyRing);
+
+        keyRing.rotate("Rotated");
+
+        DecodedJWT oldJwt = JWT.decode(oldToken);
+        DecodedJWT newJwt = JWT.decode(sign(keyRing));
+
+        // Assertions
+        assertNotEquals(oldKid, keyRing.getPrimaryKeyId());
+        assertEquals(keyRing.getPrimaryKeyId(), newJwt.getKeyId());
+        assertNotNull(keyRing.getVerifier(oldJwt.getKeyId()).verify(oldJwt));
+        assertNotNull(keyRing.getVerifier(newJwt.getKeyId()).verify(newJwt));
+
+    }
+
+    /**
+     * Test that retiring a key rejects its tokens, and that the primary key cannot be retired
+     */
+    @Test
+    void testRetire() {
+
+        JwtKeyRing keyRing = new JwtKeyRing("Test", List.of());
+
+        String oldKid = keyRing.getPrimaryKeyId();
+
+        keyRing.rotate("Rotated");
+        keyRing.retire(oldKid);
+
+        // Assertions
+        assertNull(keyRing.getVerifier(oldKid));
+        assertEquals(1, keyRing.getKeyIds().size());
+        assertThrows(IllegalArgumentException.class, () -> keyRing.retire(keyRing.getPrimaryKeyId()));
+
+    }
+
+    /**
+     * Test that reloading accepts the configured previous secrets
+     */
+    @Test
+    void testReloadWithPreviousSecrets() {
+
+        JwtKeyRing oldRing = new JwtKeyRing("Old", List.of());
+        String oldToken = sign(oldRing);
+
+        JwtKeyRing keyRing = new JwtKeyRing("Test", List.of());
+        assertNull(keyRing.getVerifier(JWT.decode(oldToken).getKeyId()));
+
+        keyRing.reload("Test", List.of("Old", ""));
+
+        DecodedJWT oldJwt = JWT.decode(oldToken);
+
+        // Assertions
+        assertEquals(2, keyRing.getKeyIds().size());
+        assertNotNull(keyRing.getVerifier(oldJwt.getKeyId()).verify(oldJwt));
+
+    }
+
+}
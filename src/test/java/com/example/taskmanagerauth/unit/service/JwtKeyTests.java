@@ -0,0 +1,134 @@
+package com.example.taskmanagerauth.unit.service;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.example.taskmanagerauth.service.JwtKey;
+import com.example.taskmanagerauth.service.JwtKeyRing;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+public class JwtKeyTests {
+
+    private static JwtKey generateEcKey() {
+        KeyPair keyPair = JwtKey.generateEcKeyPair();
+        return JwtKey.ec((ECPublicKey) keyPair.getPublic(), (ECPrivateKey) keyPair.getPrivate());
+    }
+
+    /**
+     * Rebuild a public key from a JWK the way a downstream service would
+     */
+    private static ECPublicKey fromJwk(Map<String, Object> jwk) throws Exception {
+
+        AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+        parameters.init(new ECGenParameterSpec("secp256r1"));
+
+        ECPoint point = new ECPoint(
+                new BigInteger(1, Base64.getUrlDecoder().decode((String) jwk.get("x"))),
+                new BigInteger(1, Base64.getUrlDecoder().decode((String) jwk.get("y")))
+        );
+
+        return (ECPublicKey) KeyFactory.getInstance("EC").generatePublic(
+                new ECPublicKeySpec(point, parameters.getParameterSpec(ECParameterSpec.class))
+        );
+
+    }
+
+    /**
+     * Test that HMAC keys are never published
+     */
+    @Test
+    void testHmacHasNoJwk() {
+
+        assertNull(JwtKey.hmac("Test").toJwk());
+        assertTrue(new JwtKeyRing("Test", List.of()).getPublicJwks().isEmpty());
+
+    }
+
+    /**
+     * Test that tokens signed by an EC key ring verify with nothing but the published JWK
+     */
+    @Test
+    void testEcTokenVerifiesWithJwk() throws Exception {
+
+        JwtKeyRing keyRing = new JwtKeyRing(generateEcKey(), List.of());
+
+        String token = keyRing.sign(JWT.create().withSubject("Test id"));
+        DecodedJWT jwt = JWT.decode(token);
+
+        Map<String, Object> jwk = keyRing.getPublicJwks().getFirst();
+
+        // Assertions
+        assertEquals("ES256", jwt.getAlgorithm());
+        assertEquals(jwk.get("kid"), jwt.getKeyId());
+        assertEquals("EC", jwk.get("kty"));
+        assertEquals("P-256", jwk.get("crv"));
+        assertEquals(43, ((String) jwk.get("x")).length());
+        assertEquals(43, ((String) jwk.get("y")).length());
+        assertFalse(jwk.containsKey("d"));
+        assertNotNull(JWT.require(Algorithm.ECDSA256(fromJwk(jwk), null)).build().verify(token));
+
+    }
+
+    /**
+     * Test that the kid of an EC key is its thumbprint, and survives a round trip through DER encoding
+     */
+    @Test
+    void testEcKeyIdIsStable() {
+
+        KeyPair keyPair = JwtKey.generateEcKeyPair();
+
+        JwtKey key = JwtKey.ec((ECPublicKey) keyPair.getPublic(), (ECPrivateKey) keyPair.getPrivate());
+        JwtKey decoded = JwtKey.ec(
+                Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()),
+                Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded())
+        );
+        JwtKey publicOnly = JwtKey.ec(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()), null);
+
+        // Assertions
+        assertEquals(key.kid(), decoded.kid());
+        assertEquals(key.kid(), publicOnly.kid());
+        assertNotEquals(key.kid(), generateEcKey().kid());
+        assertThrows(IllegalArgumentException.class, () -> JwtKey.ec("not a key", null));
+
+    }
+
+    /**
+     * Test that a rotated EC ring keeps publishing and accepting the previous public key
+     */
+    @Test
+    void testEcRotation() {
+
+        JwtKeyRing keyRing = new JwtKeyRing(generateEcKey(), List.of());
+
+        String oldToken = keyRing.sign(JWT.create().withSubject("Test id"));
+
+        keyRing.rotate(generateEcKey());
+
+        DecodedJWT oldJwt = JWT.decode(oldToken);
+
+        // Assertions
+        assertEquals(2, keyRing.getPublicJwks().size());
+        assertEquals(keyRing.getPrimaryKeyId(), keyRing.getPublicJwks().getFirst().get("kid"));
+        assertNotNull(keyRing.getVerifier(oldJwt.getKeyId()).verify(oldJwt));
+
+    }
+
+}
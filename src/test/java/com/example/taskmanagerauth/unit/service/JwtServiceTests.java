@@ -3,10 +3,13 @@ package com.example.taskmanagerauth.unit.service;
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.example.taskmanagerauth.dto.token.TokenType;
+import com.example.taskmanagerauth.dto.token.VerifiedToken;
 import com.example.taskmanagerauth.exception.server.InvalidJwtException;
 import com.example.taskmanagerauth.service.JwtService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -14,9 +17,12 @@ import org.springframework.test.context.ActiveProfiles;
 
 import java.time.Duration;
 import java.util.Date;
+import java.util.List;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
 
 @ActiveProfiles("test")
 public class JwtServiceTests {
@@ -127,4 +133,125 @@ public class JwtServiceTests {
 
     }
 
+    /**
+     * Test that verify returns every claim the filter needs from a single call
+     */
+    @Test
+    void testVerify() {
+
+        String testJWT = jwtService.generateToken(userDetails);
+
+        VerifiedToken verifiedToken = jwtService.verify(testJWT, TokenType.ACCESS);
+
+        // Assertions
+        assertEquals("Test id", verifiedToken.subject());
+        assertEquals(List.of("USER"), verifiedToken.authorities());
+        assertEquals(JWT.decode(testJWT).getExpiresAtAsInstant(), verifiedToken.expiresAt());
+        assertEquals(TokenType.ACCESS, verifiedToken.type());
+
+    }
+
+    /**
+     * Test that verify checks the token against the key ring of the expected type
+     */
+    @Test
+    void testVerifyWrongType() {
+
+        String testJWT = jwtService.generate2FAToken(userDetails);
+
+        // Assertions
+        assertEquals(TokenType.MFA, jwtService.verify(testJWT, TokenType.MFA).type());
+        assertThrows(InvalidJwtException.class, () -> jwtService.verify(testJWT, TokenType.ACCESS));
+
+    }
+
+    /**
+     * Test that verify rejects a correctly signed token that is missing the claims the filter needs
+     */
+    @Test
+    void testVerifyMissingClaims() {
+
+        String testJwt = JWT.create()
+                .withSubject("Test id")
+                .withExpiresAt(new Date(System.currentTimeMillis() + Duration.ofMinutes(10).toMillis()))
+                .sign(Algorithm.HMAC512("Test"));
+
+        assertThrows(InvalidJwtException.class, () -> jwtService.verify(testJwt, TokenType.ACCESS));
+
+    }
+
+    /**
+     * Test that access tokens minted before a key rotation are still accepted afterwards
+     */
+    @Test
+    void testValidateAfterRotation() {
+
+        String oldJWT = jwtService.generateToken(userDetails);
+
+        jwtService.getAccessKeys().rotate("Rotated");
+
+        String newJWT = jwtService.generateToken(userDetails);
+
+        // Assertions
+        assertNotEquals(JWT.decode(oldJWT).getKeyId(), JWT.decode(newJWT).getKeyId());
+        assertTrue(jwtService.validateToken(oldJWT));
+        assertTrue(jwtService.validateToken(newJWT));
+
+    }
+
+    /**
+     * Test that a token signed by a retired key is rejected
+     */
+    @Test
+    void testValidateRetiredKey() {
+
+        String oldJWT = jwtService.generateToken(userDetails);
+        String oldKid = jwtService.getAccessKeys().getPrimaryKeyId();
+
+        jwtService.getAccessKeys().rotate("Rotated");
+        jwtService.getAccessKeys().retire(oldKid);
+
+        assertThrows(InvalidJwtException.class, () -> jwtService.validateToken(oldJWT));
+
+    }
+
+    /**
+     * Test that access and 2FA tokens are not interchangeable
+     */
+    @Test
+    void testValidateWrongKeyRing() {
+
+        String mfaJWT = jwtService.generate2FAToken(userDetails);
+
+        // Assertions
+        assertTrue(jwtService.validate2faToken(mfaJWT));
+        assertThrows(InvalidJwtException.class, () -> jwtService.validateToken(mfaJWT));
+
+    }
+
+    /**
+     * Test that signing and validating reuse the algorithms and verifiers built at startup
+     */
+    @Test
+    void testNoPerRequestAlgorithmOrVerifier() {
+
+        try (
+                MockedStatic<Algorithm> algorithms = mockStatic(Algorithm.class, CALLS_REAL_METHODS);
+                MockedStatic<JWT> jwts = mockStatic(JWT.class, CALLS_REAL_METHODS)
+        ) {
+
+            for (int i = 0; i < 100; i++) {
+                assertTrue(jwtService.validateToken(jwtService.generateToken(userDetails)));
+                assertTrue(jwtService.validate2faToken(jwtService.generate2FAToken(userDetails)));
+            }
+
+            // Assertions
+            algorithms.verify(() -> Algorithm.HMAC512(anyString()), never());
+            algorithms.verify(() -> Algorithm.HMAC512(any(byte[].class)), never());
+            jwts.verify(() -> JWT.require(any()), never());
+
+        }
+
+    }
+
 }
@@ -0,0 +1,164 @@
+package com.example.taskmanagerauth.unit.service;
+
+import com.example.taskmanagerauth.config.JwtRequestFilter;
+import com.example.taskmanagerauth.exception.handler.FilterExceptionManager;
+import com.example.taskmanagerauth.service.JwtService;
+import com.example.taskmanagerauth.service.LastAccessTracker;
+import com.example.taskmanagerauth.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+public class LastAccessTrackerTests {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private FilterChain filterChain;
+
+    private SimpleMeterRegistry meterRegistry;
+    private LastAccessTracker lastAccessTracker;
+
+    @BeforeEach
+    void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.lastAccessTracker = new LastAccessTracker(true, 100, 2, jdbcTemplate, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<Object[]>> captureBatches(int times) {
+        ArgumentCaptor<List<Object[]>> batches = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(times)).batchUpdate(anyString(), batches.capture());
+        return batches.getAllValues();
+    }
+
+    /**
+     * Test that 10k validate calls of one user collapse into a single update per flush window
+     */
+    @Test
+    void testOneUpdatePerFlushWindow() throws Exception {
+
+        JwtService jwtService = new JwtService("Test", "Test2");
+        JwtRequestFilter filter = new JwtRequestFilter(userService, jwtService, lastAccessTracker, new FilterExceptionManager());
+
+        UserDetails userDetails = new User("1", "Test pass", List.of(new SimpleGrantedAuthority("USER")));
+        Cookie cookie = new Cookie("taskmanager_access_token", jwtService.generateToken(userDetails));
+
+        when(userService.loadUserByJWT(anyString(), anyList())).thenReturn(userDetails);
+
+        for (int window = 0; window < 2; window++) {
+
+            for (int i = 0; i < 10_000; i++) {
+                MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/auth/validate");
+                request.setServletPath("/auth/validate");
+                request.setCookies(cookie);
+                filter.doFilter(request, new MockHttpServletResponse(), filterChain);
+                SecurityContextHolder.clearContext();
+            }
+
+            lastAccessTracker.flush();
+
+        }
+
+        lastAccessTracker.flush();
+
+        List<List<Object[]>> batches = captureBatches(2);
+
+        // Assertions
+        verify(filterChain, times(20_000)).doFilter(any(), any());
+        assertEquals(1, batches.get(0).size());
+        assertEquals(1, batches.get(1).size());
+        assertEquals(1L, batches.get(0).getFirst()[1]);
+        assertEquals(0, lastAccessTracker.getPendingCount());
+        assertEquals(2, meterRegistry.get("last.access.flush").timer().count());
+
+    }
+
+    /**
+     * Test that a flush is split into batches of the configured size
+     */
+    @Test
+    void testBatches() {
+
+        for (long userId = 1; userId <= 5; userId++) {
+            lastAccessTracker.record(userId);
+        }
+
+        lastAccessTracker.flush();
+
+        // Assertions
+        assertEquals(List.of(2, 2, 1), captureBatches(3).stream().map(List::size).toList());
+        assertEquals(5, meterRegistry.get("last.access.flush.size").summary().totalAmount());
+
+    }
+
+    /**
+     * Test that pending users are bounded, and accesses beyond the bound are dropped and counted
+     */
+    @Test
+    void testBounded() {
+
+        LastAccessTracker bounded = new LastAccessTracker(true, 2, 500, jdbcTemplate, meterRegistry);
+
+        bounded.record(1L);
+        bounded.record(2L);
+        bounded.record(3L);
+        bounded.record(1L);
+
+        // Assertions
+        assertEquals(2, bounded.getPendingCount());
+        assertEquals(1, meterRegistry.get("last.access.dropped").counter().count());
+
+    }
+
+    /**
+     * Test that subjects which are not user ids, and a disabled tracker, record nothing
+     */
+    @Test
+    void testIgnored() {
+
+        lastAccessTracker.record("Test user");
+        LastAccessTracker.disabled().record(1L);
+
+        lastAccessTracker.flush();
+
+        // Assertions
+        assertEquals(0, lastAccessTracker.getPendingCount());
+        verifyNoInteractions(jdbcTemplate);
+
+    }
+
+}
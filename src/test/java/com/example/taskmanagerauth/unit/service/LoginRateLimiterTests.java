@@ -0,0 +1,91 @@
+package com.example.taskmanagerauth.unit.service;
+
+import com.example.taskmanagerauth.exception.server.LoginRateLimitedException;
+import com.example.taskmanagerauth.service.LoginRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+public class LoginRateLimiterTests {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private LoginRateLimiter limiter(boolean enabled) {
+        return new LoginRateLimiter(enabled, 1024, 3, Duration.ofHours(1), 2, Duration.ofHours(1), meterRegistry);
+    }
+
+    private double limited(String key) {
+        return meterRegistry.get("login.rate.limited").tag("key", key).counter().count();
+    }
+
+    /**
+     * Test that one username is limited across clients, and counted as such
+     */
+    @Test
+    void testUsernameLimited() {
+
+        LoginRateLimiter limiter = limiter(true);
+
+        limiter.acquire("10.0.0.1", "Test user");
+        limiter.acquire("10.0.0.2", "Test user");
+
+        LoginRateLimitedException exception = assertThrows(
+                LoginRateLimitedException.class,
+                () -> limiter.acquire("10.0.0.3", "Test user")
+        );
+
+        // Assertions
+        assertTrue(exception.getRetryAfter().compareTo(Duration.ofMinutes(59)) > 0);
+        assertTrue(exception.getRetryAfter().compareTo(Duration.ofHours(1)) <= 0);
+        assertEquals(1, limited("username"));
+        assertEquals(0, limited("ip"));
+        assertDoesNotThrow(() -> limiter.acquire("10.0.0.3", "Other user"));
+
+    }
+
+    /**
+     * Test that one client is limited across usernames, and counted as such
+     */
+    @Test
+    void testIpLimited() {
+
+        LoginRateLimiter limiter = limiter(true);
+
+        limiter.acquire("10.0.0.1", "user-1");
+        limiter.acquire("10.0.0.1", "user-2");
+        limiter.acquire("10.0.0.1", "user-3");
+
+        // Assertions
+        assertThrows(LoginRateLimitedException.class, () -> limiter.acquire("10.0.0.1", "user-4"));
+        assertEquals(1, limited("ip"));
+        assertEquals(0, limited("username"));
+
+    }
+
+    /**
+     * Test that a disabled limiter lets everything through
+     */
+    @Test
+    void testDisabled() {
+
+        LoginRateLimiter limiter = limiter(false);
+
+        // Assertions
+        for (int i = 0; i < 10; i++) {
+            assertDoesNotThrow(() -> limiter.acquire("10.0.0.1", "Test user"));
+        }
+
+    }
+
+}
@@ -0,0 +1,174 @@
+package com.example.taskmanagerauth.unit.service;
+
+import com.example.taskmanagerauth.dto.responses.TotpCheck;
+import com.example.taskmanagerauth.entity.Mfa;
+import com.example.taskmanagerauth.entity.User;
+import com.example.taskmanagerauth.exception.server.TotpInvalidException;
+import com.example.taskmanagerauth.service.MfaService;
+import com.example.taskmanagerauth.service.PasswordHashingExecutor;
+import com.warrenstrange.googleauth.GoogleAuthenticator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+public class MfaServiceTests {
+
+    private static final String KEYSET = "CMmRpMMOEmQKWAowdHlwZS5nb29nbGVhcGlzLmNvbS9nb29nbGUuY3J5cHRvLnRpbmsuQWVzR2NtS2V5EiIaILBjvpHue4z0MJuNMpRTZDsvpgvXT5jVNA/1Su8RwTB1GAEQARjJkaTDDiAB";
+
+    private final GoogleAuthenticator authenticator = new GoogleAuthenticator();
+    private MfaService mfaService;
+
+    @BeforeEach
+    void setUp() {
+        this.mfaService = new MfaService(KEYSET, true, 10, Duration.ofMinutes(1));
+    }
+
+    private User userWithMfa(Long id) {
+        User user = new User(id, "Test user", "Test pass");
+        mfaService.instantiateMfaForUser(user);
+        user.getMfa().setMfaEnabled(true);
+        return user;
+    }
+
+    private String currentTotp(User user) {
+        return String.valueOf(authenticator.getTotpPassword(mfaService.decrypt(user.getMfa().getMfaSecretKey())));
+    }
+
+    /**
+     * Test that encryption round-trips and produces a fresh ciphertext each time
+     */
+    @Test
+    void testEncryptDecrypt() {
+
+        String first = mfaService.encrypt("SECRET");
+        String second = mfaService.encrypt("SECRET");
+
+        // Assertions
+        assertNotEquals(first, second);
+        assertEquals("SECRET", mfaService.decrypt(first));
+        assertEquals("SECRET", mfaService.decrypt(second));
+
+    }
+
+    /**
+     * Test that a validated secret is cached per user
+     */
+    @Test
+    void testSecretCached() {
+
+        User user = userWithMfa(1L);
+
+        assertEquals(TotpCheck.PASSED, mfaService.validatePassword(currentTotp(user), user));
+        assertEquals(TotpCheck.PASSED, mfaService.validatePassword(currentTotp(user), user));
+
+        // Assertions
+        assertEquals(1, mfaService.getCachedSecretCount());
+
+    }
+
+    /**
+     * Test that a replaced secret is never validated against the cached one
+     */
+    @Test
+    void testReplacedSecretNotServedFromCache() {
+
+        User user = userWithMfa(1L);
+        String oldTotp = currentTotp(user);
+        mfaService.validatePassword(oldTotp, user);
+
+        // Replace the secret without invalidating, as another instance would
+        Mfa replaced = Mfa.of(user, true, mfaService.encrypt(authenticator.createCredentials().getKey()));
+        user.setMfa(replaced);
+
+        // Assertions
+        if (!oldTotp.equals(currentTotp(user))) {
+            assertThrows(TotpInvalidException.class, () -> mfaService.validatePassword(oldTotp, user));
+        }
+        assertEquals(TotpCheck.PASSED, mfaService.validatePassword(currentTotp(user), user));
+
+    }
+
+    /**
+     * Test that re-instantiating MFA drops the cached secret
+     */
+    @Test
+    void testInvalidatedOnNewSecret() {
+
+        User user = userWithMfa(1L);
+        mfaService.generateMfaCode(user);
+        assertEquals(1, mfaService.getCachedSecretCount());
+
+        mfaService.instantiateMfaForUser(user);
+
+        // Assertions
+        assertEquals(0, mfaService.getCachedSecretCount());
+
+    }
+
+    /**
+     * Test that users without MFA are still rejected before any decryption
+     */
+    @Test
+    void testMfaNotEnabled() {
+
+        User user = userWithMfa(1L);
+        user.getMfa().setMfaEnabled(false);
+
+        // Assertions
+        assertEquals(TotpCheck.MFA_NOT_ENABLED, mfaService.validatePassword("123456", user));
+        assertEquals(0, mfaService.getCachedSecretCount());
+
+    }
+
+    /**
+     * Test that a missing or malformed TOTP asks for one rather than failing, without any decryption
+     */
+    @Test
+    void testTotpNotProvided() {
+
+        User user = userWithMfa(1L);
+
+        // Assertions
+        assertEquals(TotpCheck.TOTP_NOT_PROVIDED, mfaService.validatePassword("", user));
+        assertEquals(TotpCheck.TOTP_NOT_PROVIDED, mfaService.validatePassword(null, user));
+        assertEquals(TotpCheck.TOTP_NOT_PROVIDED, mfaService.validatePassword("12a456", user));
+        assertEquals(0, mfaService.getCachedSecretCount());
+
+    }
+
+    /**
+     * Test that TOTP checks made on a virtual thread run on the crypto pool, and checks on platform threads do not
+     */
+    @Test
+    void testCryptoPoolFromVirtualThreads() throws Exception {
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PasswordHashingExecutor cryptoExecutor = new PasswordHashingExecutor(1, 4, Duration.ofSeconds(2), Duration.ofSeconds(1), meterRegistry);
+        MfaService pooled = new MfaService(KEYSET, false, 1, Duration.ZERO, cryptoExecutor);
+
+        User user = new User(1L, "Test user", "Test pass");
+        pooled.instantiateMfaForUser(user);
+        user.getMfa().setMfaEnabled(true);
+        String totp = String.valueOf(authenticator.getTotpPassword(pooled.decrypt(user.getMfa().getMfaSecretKey())));
+
+        pooled.validatePassword(totp, user);
+        long platformDispatches = meterRegistry.get("password.hashing.queue.wait").timer().count();
+
+        Thread virtual = Thread.ofVirtual().start(() -> pooled.validatePassword(totp, user));
+        virtual.join();
+
+        cryptoExecutor.shutdown();
+
+        // Assertions
+        assertEquals(0, platformDispatches);
+        assertEquals(1, meterRegistry.get("password.hashing.queue.wait").timer().count());
+
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.example.taskmanagerauth.unit.service;
+
+import com.example.taskmanagerauth.service.PasswordHashCalibrator;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+public class PasswordHashCalibratorTests {
+
+    /**
+     * Test that the minimum strength is kept even when it misses the target
+     */
+    @Test
+    void testNeverBelowMinimum() {
+
+        int strength = PasswordHashCalibrator.calibrateBcryptStrength(Duration.ofNanos(1), 4, 6, 1);
+
+        // Assertions
+        assertEquals(4, strength);
+
+    }
+
+    /**
+     * Test that a generous target picks the maximum strength
+     */
+    @Test
+    void testCappedAtMaximum() {
+
+        int strength = PasswordHashCalibrator.calibrateBcryptStrength(Duration.ofMinutes(1), 4, 6, 1);
+
+        // Assertions
+        assertEquals(6, strength);
+
+    }
+
+}
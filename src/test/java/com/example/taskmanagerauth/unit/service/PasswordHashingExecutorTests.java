@@ -0,0 +1,136 @@
+package com.example.taskmanagerauth.unit.service;
+
+import com.example.taskmanagerauth.exception.server.PasswordHashingUnavailableException;
+import com.example.taskmanagerauth.service.PasswordHashingExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+public class PasswordHashingExecutorTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PasswordHashingExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Test that tasks run off the calling thread and their result is returned
+     */
+    @Test
+    void testExecute() {
+
+        executor = new PasswordHashingExecutor(1, 4, Duration.ofSeconds(2), Duration.ofSeconds(1), meterRegistry);
+
+        String threadName = executor.execute(() -> Thread.currentThread().getName());
+
+        // Assertions
+        assertTrue(threadName.startsWith("password-hashing-"));
+        assertEquals(1, meterRegistry.get("password.hashing.queue.wait").timer().count());
+
+    }
+
+    /**
+     * Test that exceptions thrown by the task reach the caller unchanged
+     */
+    @Test
+    void testTaskException() {
+
+        executor = new PasswordHashingExecutor(1, 4, Duration.ofSeconds(2), Duration.ofSeconds(1), meterRegistry);
+
+        // Assertions
+        assertThrows(IllegalArgumentException.class, () -> executor.execute(() -> {
+            throw new IllegalArgumentException("Invalid hash");
+        }));
+
+    }
+
+    /**
+     * Test that work is refused right away once the queue is full
+     */
+    @Test
+    void testRejectedWhenQueueFull() throws Exception {
+
+        executor = new PasswordHashingExecutor(1, 1, Duration.ofSeconds(10), Duration.ofSeconds(3), meterRegistry);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> executor.execute(() -> {
+            started.countDown();
+            await(release);
+            return true;
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> executor.execute(() -> true));
+        while (executor.getQueueDepth() == 0) {
+            Thread.onSpinWait();
+        }
+
+        PasswordHashingUnavailableException exception = assertThrows(
+                PasswordHashingUnavailableException.class,
+                () -> executor.execute(() -> true)
+        );
+
+        release.countDown();
+
+        // Assertions
+        assertEquals(Duration.ofSeconds(3), exception.getRetryAfter());
+        assertEquals(1.0, meterRegistry.get("password.hashing.rejected").tag("reason", "queue_full").counter().count());
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+
+    }
+
+    /**
+     * Test that a task which waited past the queue timeout is dropped instead of run
+     */
+    @Test
+    void testRejectedAfterQueueTimeout() throws Exception {
+
+        executor = new PasswordHashingExecutor(1, 4, Duration.ofMillis(50), Duration.ofSeconds(1), meterRegistry);
+
+        CountDownLatch started = new CountDownLatch(1);
+
+        CompletableFuture.runAsync(() -> executor.execute(() -> {
+            started.countDown();
+            sleep(200);
+            return true;
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Assertions
+        assertThrows(PasswordHashingUnavailableException.class, () -> executor.execute(() -> true));
+        assertEquals(1.0, meterRegistry.get("password.hashing.rejected").tag("reason", "queue_timeout").counter().count());
+
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
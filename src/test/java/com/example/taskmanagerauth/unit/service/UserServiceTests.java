@@ -0,0 +1,240 @@
+package com.example.taskmanagerauth.unit.service;
+
+import com.example.taskmanagerauth.dto.credentials.UserCredentials;
+import com.example.taskmanagerauth.dto.impl.LoginRequest;
+import com.example.taskmanagerauth.dto.responses.TotpCheck;
+import com.example.taskmanagerauth.entity.User;
+import com.example.taskmanagerauth.exception.server.InvalidCredentialsException;
+import com.example.taskmanagerauth.exception.server.TotpInvalidException;
+import com.example.taskmanagerauth.exception.server.UsernameTakenException;
+import com.example.taskmanagerauth.repository.UserRepository;
+import com.example.taskmanagerauth.service.LastAccessTracker;
+import com.example.taskmanagerauth.service.MfaService;
+import com.example.taskmanagerauth.service.PasswordEncodingService;
+import com.example.taskmanagerauth.service.RoleRegistry;
+import com.example.taskmanagerauth.service.UserService;
+import com.example.taskmanagerauth.service.UsernameFilter;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+public class UserServiceTests {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PasswordEncodingService passwordEncodingService;
+
+    @Mock
+    private MfaService mfaService;
+
+    @Mock
+    private UsernameFilter usernameFilter;
+
+    @Mock
+    private RoleRegistry roleRegistry;
+
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        this.userService = new UserService(userRepository, passwordEncodingService, mfaService, usernameFilter, roleRegistry, LastAccessTracker.disabled());
+        lenient().when(usernameFilter.mightExist(anyString())).thenReturn(true);
+    }
+
+    private static UserCredentials credentials(String password) {
+        return new UserCredentials(1L, password, List.of("USER"), false, null);
+    }
+
+    /**
+     * Test that an outdated hash is replaced after the password was verified
+     */
+    @Test
+    void testRehashOnLogin() {
+
+        UserCredentials credentials = credentials("$2a$04$legacy");
+
+        when(userRepository.findCredentialsByUsername("Test user")).thenReturn(Optional.of(credentials));
+        when(passwordEncodingService.matches("Test pass", "$2a$04$legacy")).thenReturn(true);
+        when(passwordEncodingService.upgradeEncoding("$2a$04$legacy")).thenReturn(true);
+        when(passwordEncodingService.encode("Test pass")).thenReturn("{bcrypt}$2a$10$upgraded");
+
+        UserCredentials result = userService.getCredentialsByUsernameAndPassword("Test user", "Test pass");
+
+        // Assertions
+        verify(userRepository).updatePassword(1L, "{bcrypt}$2a$10$upgraded");
+        assertEquals("{bcrypt}$2a$10$upgraded", result.password());
+
+    }
+
+    /**
+     * Test that a current hash is left alone
+     */
+    @Test
+    void testNoRehashWhenCurrent() {
+
+        UserCredentials credentials = credentials("{bcrypt}$2a$10$current");
+
+        when(userRepository.findCredentialsByUsername("Test user")).thenReturn(Optional.of(credentials));
+        when(passwordEncodingService.matches("Test pass", "{bcrypt}$2a$10$current")).thenReturn(true);
+        when(passwordEncodingService.upgradeEncoding("{bcrypt}$2a$10$current")).thenReturn(false);
+
+        userService.getCredentialsByUsernameAndPassword("Test user", "Test pass");
+
+        // Assertions
+        verify(passwordEncodingService, never()).encode(anyString());
+        verify(userRepository, never()).updatePassword(anyLong(), anyString());
+
+    }
+
+    /**
+     * Test that a wrong password never triggers a rehash
+     */
+    @Test
+    void testNoRehashOnWrongPassword() {
+
+        UserCredentials credentials = credentials("$2a$04$legacy");
+
+        when(userRepository.findCredentialsByUsername("Test user")).thenReturn(Optional.of(credentials));
+        when(passwordEncodingService.matches("Wrong pass", "$2a$04$legacy")).thenReturn(false);
+
+        // Assertions
+        assertThrows(InvalidCredentialsException.class, () -> userService.getCredentialsByUsernameAndPassword("Test user", "Wrong pass"));
+        verify(passwordEncodingService, never()).upgradeEncoding(anyString());
+        verify(userRepository, never()).updatePassword(anyLong(), anyString());
+
+    }
+
+    /**
+     * Test that a definitely unknown user is rejected without a query, but still costs a password check
+     */
+    @Test
+    void testUnknownUserSkipsQuery() {
+
+        when(usernameFilter.mightExist("Unknown user")).thenReturn(false);
+        when(passwordEncodingService.encode(anyString())).thenReturn("{bcrypt}$2a$10$dummy");
+
+        // Assertions
+        assertThrows(UsernameNotFoundException.class, () -> userService.getCredentialsByUsernameAndPassword("Unknown user", "Test pass"));
+        verify(userRepository, never()).findCredentialsByUsername(anyString());
+        verify(passwordEncodingService).matches("Test pass", "{bcrypt}$2a$10$dummy");
+
+    }
+
+    /**
+     * Test that a user missing from the database also costs a password check, and the dummy hash is reused
+     */
+    @Test
+    void testMissingUserChecksDummyHash() {
+
+        when(userRepository.findCredentialsByUsername("Missing user")).thenReturn(Optional.empty());
+        when(passwordEncodingService.encode(anyString())).thenReturn("{bcrypt}$2a$10$dummy");
+
+        assertThrows(UsernameNotFoundException.class, () -> userService.getCredentialsByUsernameAndPassword("Missing user", "First pass"));
+        assertThrows(UsernameNotFoundException.class, () -> userService.getCredentialsByUsernameAndPassword("Missing user", "Second pass"));
+
+        // Assertions
+        verify(passwordEncodingService, times(1)).encode(anyString());
+        verify(passwordEncodingService).matches("First pass", "{bcrypt}$2a$10$dummy");
+        verify(passwordEncodingService).matches("Second pass", "{bcrypt}$2a$10$dummy");
+
+    }
+
+    private static DataIntegrityViolationException violation(String message, String constraintName) {
+        return new DataIntegrityViolationException(message, new ConstraintViolationException(
+                message, new SQLException(message), constraintName
+        ));
+    }
+
+    /**
+     * Test that a violation of the username index surfaces as a taken username, and other violations pass through
+     * even when their message happens to mention the index
+     */
+    @Test
+    void testSaveUserTranslatesUsernameConstraint() {
+
+        User user = new User(null, "ux_users_username", "hash");
+
+        when(userRepository.saveAndFlush(user))
+                .thenThrow(violation("Unique index or primary key violation", "PUBLIC.UX_USERS_USERNAME"))
+                .thenThrow(violation("Referential integrity violation: 'ux_users_username'", "FK_USER_ROLES_USER"))
+                .thenThrow(new DataIntegrityViolationException("Unique index or primary key violation: ux_users_username"));
+
+        // Assertions
+        assertThrows(UsernameTakenException.class, () -> userService.saveUser(user));
+        assertThrows(DataIntegrityViolationException.class, () -> userService.saveUser(user));
+        assertThrows(DataIntegrityViolationException.class, () -> userService.saveUser(user));
+        verify(usernameFilter, never()).addAfterCommit(anyString());
+
+    }
+
+    /**
+     * Test that a taken name is rejected before any hashing, and that names unknown to the filter, or every name
+     * while the filter is not ready, skip the query and are left to the unique index
+     */
+    @Test
+    void testCheckUsernameAvailable() {
+
+        when(usernameFilter.isReady()).thenReturn(true, true, false);
+        when(userRepository.existsByUsername("Taken user")).thenReturn(true);
+        when(usernameFilter.mightExist("New user")).thenReturn(false);
+
+        // Assertions
+        assertThrows(UsernameTakenException.class, () -> userService.checkUsernameAvailable("Taken user"));
+        assertDoesNotThrow(() -> userService.checkUsernameAvailable("New user"));
+        assertDoesNotThrow(() -> userService.checkUsernameAvailable("Taken user"));
+        verify(userRepository, times(1)).existsByUsername("Taken user");
+        verify(userRepository, never()).existsByUsername("New user");
+        verifyNoInteractions(passwordEncodingService);
+
+    }
+
+    /**
+     * Test that a login only counts as activity once its TOTP step is settled, never on the password alone
+     */
+    @Test
+    void testLoginRecordsAccessAfterTotpCheck() {
+
+        LastAccessTracker lastAccessTracker = mock(LastAccessTracker.class);
+        UserService tracked = new UserService(userRepository, passwordEncodingService, mfaService, usernameFilter, roleRegistry, lastAccessTracker);
+        UserCredentials credentials = credentials("{bcrypt}$2a$10$current");
+        LoginRequest loginRequest = new LoginRequest("Test user", "Test pass", "123456");
+
+        when(userRepository.findCredentialsByUsername("Test user")).thenReturn(Optional.of(credentials));
+        when(passwordEncodingService.matches("Test pass", "{bcrypt}$2a$10$current")).thenReturn(true);
+        when(mfaService.validatePassword("123456", credentials))
+                .thenReturn(TotpCheck.TOTP_NOT_PROVIDED)
+                .thenThrow(new TotpInvalidException("Incorrect TOTP provided."))
+                .thenReturn(TotpCheck.PASSED);
+
+        tracked.login(loginRequest);
+        assertThrows(TotpInvalidException.class, () -> tracked.login(loginRequest));
+
+        // Assertions
+        verify(lastAccessTracker, never()).record(anyLong());
+
+        tracked.login(loginRequest);
+
+        verify(lastAccessTracker).record(1L);
+
+    }
+
+}
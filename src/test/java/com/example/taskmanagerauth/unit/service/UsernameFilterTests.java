@@ -0,0 +1,121 @@
+package com.example.taskmanagerauth.unit.service;
+
+import com.example.taskmanagerauth.repository.UserRepository;
+import com.example.taskmanagerauth.service.UsernameFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+public class UsernameFilterTests {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private UsernameFilter usernameFilter;
+
+    @BeforeEach
+    void setUp() {
+        this.usernameFilter = new UsernameFilter(true, 1000, 0.01, userRepository, transactionManager);
+    }
+
+    /**
+     * Test that every name is a "maybe" until the first scan completed
+     */
+    @Test
+    void testMaybeBeforeFirstScan() {
+
+        // Assertions
+        assertFalse(usernameFilter.isReady());
+        assertTrue(usernameFilter.mightExist("anyone"));
+
+    }
+
+    /**
+     * Test that scanned and saved names are known, and other names are not
+     */
+    @Test
+    void testRebuildAndAdd() {
+
+        when(userRepository.count()).thenReturn(2L);
+        when(userRepository.streamAllUsernames()).thenReturn(Stream.of("first", "second"));
+
+        usernameFilter.rebuild();
+        usernameFilter.addAfterCommit("third");
+
+        // Assertions
+        assertTrue(usernameFilter.isReady());
+        assertTrue(usernameFilter.mightExist("first"));
+        assertTrue(usernameFilter.mightExist("second"));
+        assertTrue(usernameFilter.mightExist("third"));
+        assertFalse(usernameFilter.mightExist("unknown"));
+
+    }
+
+    /**
+     * Test that a name saved while a rebuild is scanning survives the swap to the new filter
+     */
+    @Test
+    void testAddDuringRebuild() {
+
+        when(userRepository.count()).thenReturn(1L);
+        when(userRepository.streamAllUsernames()).thenReturn(Stream.of("first"));
+        usernameFilter.rebuild();
+
+        when(userRepository.streamAllUsernames()).thenReturn(Stream.of("first").peek(name -> usernameFilter.addAfterCommit("during")));
+        usernameFilter.rebuild();
+
+        // Assertions
+        assertTrue(usernameFilter.mightExist("during"));
+
+    }
+
+    /**
+     * Test that a failed rebuild keeps the previous filter
+     */
+    @Test
+    void testFailedRebuild() {
+
+        when(userRepository.count()).thenReturn(1L);
+        when(userRepository.streamAllUsernames()).thenReturn(Stream.of("first"));
+        usernameFilter.rebuild();
+
+        when(userRepository.streamAllUsernames()).thenThrow(new IllegalStateException("Connection lost"));
+        usernameFilter.rebuild();
+
+        // Assertions
+        assertTrue(usernameFilter.mightExist("first"));
+        assertFalse(usernameFilter.mightExist("unknown"));
+
+    }
+
+    /**
+     * Test that a disabled filter never scans and answers "maybe"
+     */
+    @Test
+    void testDisabled() {
+
+        UsernameFilter disabled = new UsernameFilter(false, 1000, 0.01, userRepository, transactionManager);
+        disabled.rebuild();
+
+        // Assertions
+        verifyNoInteractions(userRepository);
+        assertTrue(disabled.mightExist("anyone"));
+
+    }
+
+}
@@ -0,0 +1,183 @@
+package com.example.taskmanagerauth.unit.service;
+
+import com.example.taskmanagerauth.dto.token.TokenType;
+import com.example.taskmanagerauth.dto.token.VerifiedToken;
+import com.example.taskmanagerauth.exception.server.InvalidJwtException;
+import com.example.taskmanagerauth.service.JwtKeyRing;
+import com.example.taskmanagerauth.service.JwtService;
+import com.example.taskmanagerauth.service.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+public class VerifiedTokenCacheTests {
+
+    @BeforeEach
+    void setUp() {
+
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.verifiedTokenCache = new VerifiedTokenCache(true, 100, Duration.ofMinutes(5), meterRegistry);
+        this.jwtService = new JwtService(
+                new JwtKeyRing("Test", List.of()),
+                new JwtKeyRing("Test2", List.of()),
+                verifiedTokenCache
+        );
+
+        this.userDetails = new User(
+                "Test id",
+                "Test pass",
+                List.of(new SimpleGrantedAuthority("USER"))
+        );
+
+    }
+
+    private SimpleMeterRegistry meterRegistry;
+    private VerifiedTokenCache verifiedTokenCache;
+    private JwtService jwtService;
+    private UserDetails userDetails;
+
+    /**
+     * Test that a token is only verified once while it stays cached
+     */
+    @Test
+    void testVerifiedOnce() {
+
+        AtomicInteger verifications = new AtomicInteger();
+        VerifiedToken token = new VerifiedToken("1", List.of("USER"), Instant.now().plusSeconds(60), TokenType.ACCESS);
+
+        Function<String, VerifiedToken> verifier = jwt -> {
+            verifications.incrementAndGet();
+            return token;
+        };
+
+        for (int i = 0; i < 10; i++) {
+            assertSame(token, verifiedTokenCache.getOrVerify("jwt", verifier));
+        }
+
+        // Assertions
+        assertEquals(1, verifications.get());
+        assertEquals(9, verifiedTokenCache.getHits());
+        assertEquals(1, verifiedTokenCache.getMisses());
+        assertEquals(9, meterRegistry.get("jwt.cache.hits").functionCounter().count());
+        assertEquals(1, meterRegistry.get("jwt.cache.misses").functionCounter().count());
+        assertEquals(1, meterRegistry.get("jwt.cache.size").gauge().value());
+
+    }
+
+    /**
+     * Test that an entry is dropped once the token itself expires
+     */
+    @Test
+    void testExpiresWithToken() throws InterruptedException {
+
+        AtomicInteger verifications = new AtomicInteger();
+        VerifiedToken token = new VerifiedToken("1", List.of("USER"), Instant.now().plusMillis(50), TokenType.ACCESS);
+
+        Function<String, VerifiedToken> verifier = jwt -> {
+            verifications.incrementAndGet();
+            return token;
+        };
+
+        verifiedTokenCache.getOrVerify("jwt", verifier);
+        Thread.sleep(100);
+        verifiedTokenCache.getOrVerify("jwt", verifier);
+
+        // Assertions
+        assertEquals(2, verifications.get());
+
+    }
+
+    /**
+     * Test that failed verifications are not cached
+     */
+    @Test
+    void testInvalidNotCached() {
+
+        assertThrows(InvalidJwtException.class, () -> jwtService.verify("invalid", TokenType.ACCESS));
+
+        // Assertions
+        assertEquals(0, verifiedTokenCache.size());
+
+    }
+
+    /**
+     * Test that JwtService serves repeated access tokens from the cache, but not 2FA tokens
+     */
+    @Test
+    void testJwtServiceUsesCache() {
+
+        String accessJWT = jwtService.generateToken(userDetails);
+        String mfaJWT = jwtService.generate2FAToken(userDetails);
+
+        jwtService.verify(accessJWT, TokenType.ACCESS);
+        jwtService.verify(accessJWT, TokenType.ACCESS);
+        jwtService.verify(mfaJWT, TokenType.MFA);
+
+        // Assertions
+        assertEquals(1, verifiedTokenCache.size());
+        assertEquals(1, verifiedTokenCache.getHits());
+
+    }
+
+    /**
+     * Test that a key change flushes the cache, so tokens of a retired key are rejected right away
+     */
+    @Test
+    void testFlushedOnRotation() {
+
+        String oldJWT = jwtService.generateToken(userDetails);
+        String oldKid = jwtService.getAccessKeys().getPrimaryKeyId();
+
+        jwtService.verify(oldJWT, TokenType.ACCESS);
+        assertEquals(1, verifiedTokenCache.size());
+
+        jwtService.getAccessKeys().rotate("Rotated");
+        assertEquals(0, verifiedTokenCache.size());
+
+        jwtService.verify(oldJWT, TokenType.ACCESS);
+        jwtService.getAccessKeys().retire(oldKid);
+
+        // Assertions
+        assertThrows(InvalidJwtException.class, () -> jwtService.verify(oldJWT, TokenType.ACCESS));
+
+    }
+
+    /**
+     * Test that the disabled cache always delegates to the verifier
+     */
+    @Test
+    void testDisabled() {
+
+        VerifiedTokenCache disabled = VerifiedTokenCache.disabled();
+        AtomicInteger verifications = new AtomicInteger();
+        VerifiedToken token = new VerifiedToken("1", List.of("USER"), Instant.now().plusSeconds(60), TokenType.ACCESS);
+
+        disabled.getOrVerify("jwt", jwt -> {
+            verifications.incrementAndGet();
+            return token;
+        });
+        disabled.getOrVerify("jwt", jwt -> {
+            verifications.incrementAndGet();
+            return token;
+        });
+
+        // Assertions
+        assertEquals(2, verifications.get());
+        assertEquals(0, disabled.size());
+
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.example.taskmanagerauth.unit.util;
+
+import com.example.taskmanagerauth.util.BloomFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+public class BloomFilterTests {
+
+    /**
+     * Test that every value that was put is reported as possibly present
+     */
+    @Test
+    void testNoFalseNegatives() {
+
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("user_" + i);
+        }
+
+        // Assertions
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("user_" + i));
+        }
+
+    }
+
+    /**
+     * Test that the false positive rate stays close to the configured one at the expected size
+     */
+    @Test
+    void testFalsePositiveRate() {
+
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("user_" + i);
+        }
+
+        int falsePositives = 0;
+
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("unknown_" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Assertions
+        assertTrue(falsePositives < 2_000, "False positive rate was " + falsePositives / 100_000.0);
+        assertEquals(7, filter.getHashCount());
+
+    }
+
+    /**
+     * Test that invalid sizes are rejected
+     */
+    @Test
+    void testInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1));
+    }
+
+}
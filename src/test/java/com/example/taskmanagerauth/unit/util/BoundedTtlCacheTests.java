@@ -0,0 +1,115 @@
+package com.example.taskmanagerauth.unit.util;
+
+import com.example.taskmanagerauth.util.BoundedTtlCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+public class BoundedTtlCacheTests {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final List<String> removed = new ArrayList<>();
+
+    private BoundedTtlCache<String, String> cache(int maxSize) {
+        return new BoundedTtlCache<>(maxSize, now::get, (key, value) -> removed.add(key));
+    }
+
+    /**
+     * Test that values are returned until their expiry, and counted as hits and misses
+     */
+    @Test
+    void testGetAndExpire() {
+
+        BoundedTtlCache<String, String> cache = cache(10);
+
+        cache.put("key", "value", 2_000);
+
+        assertEquals("value", cache.get("key"));
+        assertNull(cache.get("other"));
+
+        now.set(2_000);
+
+        // Assertions
+        assertNull(cache.get("key"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(List.of("key"), removed);
+
+    }
+
+    /**
+     * Test that entries which are already expired are never stored
+     */
+    @Test
+    void testPutExpired() {
+
+        BoundedTtlCache<String, String> cache = cache(10);
+
+        cache.put("key", "value", 1_000);
+
+        assertEquals(0, cache.size());
+
+    }
+
+    /**
+     * Test that the cache never grows past its bound, and prefers dropping expired entries
+     */
+    @Test
+    void testBounded() {
+
+        BoundedTtlCache<String, String> cache = cache(8);
+
+        cache.put("expiring", "value", 1_500);
+
+        for (int i = 0; i < 7; i++) {
+            cache.put("key" + i, "value", 5_000);
+        }
+
+        now.set(1_600);
+
+        cache.put("new", "value", 5_000);
+
+        // Assertions
+        assertEquals(8, cache.size());
+        assertTrue(removed.contains("expiring"));
+        assertEquals("value", cache.get("new"));
+
+        for (int i = 0; i < 100; i++) {
+            cache.put("more" + i, "value", 5_000);
+            assertTrue(cache.size() <= 8);
+        }
+
+    }
+
+    /**
+     * Test that invalidation removes entries and reports them
+     */
+    @Test
+    void testInvalidate() {
+
+        BoundedTtlCache<String, String> cache = cache(10);
+
+        cache.put("first", "value", 5_000);
+        cache.put("second", "value", 5_000);
+
+        cache.invalidate("first");
+        assertNull(cache.get("first"));
+        assertEquals("value", cache.get("second"));
+
+        cache.invalidateAll();
+
+        // Assertions
+        assertEquals(0, cache.size());
+        assertEquals(List.of("first", "second"), removed.stream().sorted().toList());
+
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.example.taskmanagerauth.unit.util;
+
+import com.example.taskmanagerauth.util.CachedTimestamp;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+public class CachedTimestampTests {
+
+    private final AtomicLong now = new AtomicLong(
+            LocalDateTime.of(2000, 12, 7, 12, 45, 15).toInstant(ZoneOffset.UTC).toEpochMilli()
+    );
+
+    private final CachedTimestamp timestamp = new CachedTimestamp(now::get, ZoneOffset.UTC);
+
+    /**
+     * Test that the timestamp is formatted as ApiResponse formats it, and as ASCII bytes
+     */
+    @Test
+    void testFormat() {
+
+        // Assertions
+        assertEquals("2000-12-07 12:45:15", timestamp.text());
+        assertArrayEquals("2000-12-07 12:45:15".getBytes(StandardCharsets.US_ASCII), timestamp.bytes());
+
+    }
+
+    /**
+     * Test that the timestamp is shared within a second and moves on with the clock
+     */
+    @Test
+    void testCachedPerSecond() {
+
+        String first = timestamp.text();
+
+        now.addAndGet(999);
+        String sameSecond = timestamp.text();
+
+        now.addAndGet(1);
+        String nextSecond = timestamp.text();
+
+        // Assertions
+        assertSame(first, sameSecond);
+        assertEquals("2000-12-07 12:45:16", nextSecond);
+
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.example.taskmanagerauth.unit.util;
+
+import com.example.taskmanagerauth.util.CookieHeader;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+public class CookieHeaderTests {
+
+    /**
+     * Test that a cookie is found wherever it sits in the header
+     */
+    @Test
+    void testValue() {
+
+        // Assertions
+        assertEquals("abc", CookieHeader.value("token=abc", "token"));
+        assertEquals("abc", CookieHeader.value("theme=dark; token=abc", "token"));
+        assertEquals("abc", CookieHeader.value("theme=dark;token=abc;lang=en", "token"));
+        assertEquals("a=b", CookieHeader.value("token=a=b", "token"));
+        assertEquals("", CookieHeader.value("token=; theme=dark", "token"));
+
+    }
+
+    /**
+     * Test that quotes and whitespace around the value are dropped
+     */
+    @Test
+    void testQuotedAndSpaced() {
+
+        // Assertions
+        assertEquals("abc", CookieHeader.value("theme=dark; token=\"abc\"", "token"));
+        assertEquals("abc", CookieHeader.value("token = abc ; theme=dark", "token"));
+        assertEquals("\"", CookieHeader.value("token=\"", "token"));
+
+    }
+
+    /**
+     * Test that only a cookie with exactly the name matches
+     */
+    @Test
+    void testMissing() {
+
+        // Assertions
+        assertNull(CookieHeader.value(null, "token"));
+        assertNull(CookieHeader.value("", "token"));
+        assertNull(CookieHeader.value("theme=dark", "token"));
+        assertNull(CookieHeader.value("access_token=abc; tokens=abc", "token"));
+        assertNull(CookieHeader.value("theme=token=abc", "token"));
+        assertNull(CookieHeader.value("token", "token"));
+        assertEquals("abc", CookieHeader.value("tokens=x; token=abc", "token"));
+
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.example.taskmanagerauth.unit.util;
+
+import com.example.taskmanagerauth.util.TokenBuckets;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+public class TokenBucketsTests {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private TokenBuckets buckets(int maxKeys, int capacity) {
+        return new TokenBuckets(maxKeys, capacity, Duration.ofSeconds(10), now::get);
+    }
+
+    /**
+     * Test that a key gets its burst, then waits for each refill, independently of other keys
+     */
+    @Test
+    void testBurstThenRefill() {
+
+        TokenBuckets buckets = buckets(1024, 3);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, buckets.tryAcquire("10.0.0.1"));
+        }
+
+        long wait = buckets.tryAcquire("10.0.0.1");
+        long otherKey = buckets.tryAcquire("10.0.0.2");
+
+        now.addAndGet(4_000);
+        long partlyRefilled = buckets.tryAcquire("10.0.0.1");
+
+        now.addAndGet(6_000);
+        long refilled = buckets.tryAcquire("10.0.0.1");
+
+        // Assertions
+        assertEquals(10_000, wait);
+        assertEquals(0, otherKey);
+        assertEquals(6_000, partlyRefilled);
+        assertEquals(0, refilled);
+        assertEquals(10_000, buckets.tryAcquire("10.0.0.1"));
+
+    }
+
+    /**
+     * Test that keys far beyond the table's size fit as long as earlier ones have gone idle
+     */
+    @Test
+    void testIdleKeysMakeRoom() {
+
+        TokenBuckets buckets = buckets(64, 1);
+
+        for (int round = 0; round < 100; round++) {
+            for (int i = 0; i < 16; i++) {
+                assertEquals(0, buckets.tryAcquire("user-" + round + "-" + i));
+            }
+            now.addAndGet(10_000);
+        }
+
+        // Assertions
+        assertEquals(0, buckets.getEvictions());
+
+    }
+
+    /**
+     * Test that once every bucket of a set is in use, a new key takes the one that will be full soonest
+     */
+    @Test
+    void testEvictsWhenFull() {
+
+        TokenBuckets buckets = buckets(8, 1);
+        List<String> keys = new ArrayList<>();
+
+        for (int i = 0; i < 8; i++) {
+            keys.add("user-" + i);
+            assertEquals(0, buckets.tryAcquire(keys.get(i)));
+            now.addAndGet(1);
+        }
+
+        assertEquals(0, buckets.tryAcquire("user-8"));
+
+        // Assertions
+        assertEquals(1, buckets.getEvictions());
+        assertEquals(0, buckets.tryAcquire(keys.get(0)));
+        assertTrue(buckets.tryAcquire(keys.get(7)) > 0);
+
+    }
+
+    /**
+     * Test that concurrent takes from one key never hand out more tokens than the bucket holds
+     */
+    @Test
+    void testConcurrentTakes() throws InterruptedException {
+
+        TokenBuckets buckets = buckets(1024, 500);
+        AtomicInteger taken = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int t = 0; t < 8; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException exception) {
+                    return;
+                }
+                for (int i = 0; i < 1_000; i++) {
+                    if (buckets.tryAcquire("10.0.0.1") == 0) {
+                        taken.incrementAndGet();
+                    }
+                }
+            }));
+        }
+
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Assertions
+        assertEquals(500, taken.get());
+
+    }
+
+}
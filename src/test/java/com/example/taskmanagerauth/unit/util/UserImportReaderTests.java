@@ -0,0 +1,98 @@
+package com.example.taskmanagerauth.unit.util;
+
+import com.example.taskmanagerauth.dto.imports.UserImportFormat;
+import com.example.taskmanagerauth.dto.imports.UserImportRow;
+import com.example.taskmanagerauth.util.UserImportReader;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+public class UserImportReaderTests {
+
+    /**
+     * Test that CSV lines are split into username and password, with the header skipped and quotes removed
+     */
+    @Test
+    void testCsv() {
+
+        String csv = """
+                username,password
+                alice,secret
+                "bob","pa,ss""word"
+
+                carol
+                """;
+
+        List<UserImportRow> rows = new UserImportReader(new StringReader(csv), UserImportFormat.CSV).read(10);
+
+        // Assertions
+        assertEquals(3, rows.size());
+        assertEquals(UserImportRow.of(2, "alice", "secret"), rows.get(0));
+        assertEquals(UserImportRow.of(3, "bob", "pa,ss\"word"), rows.get(1));
+        assertEquals(5, rows.get(2).line());
+        assertNotNull(rows.get(2).error());
+
+    }
+
+    /**
+     * Test that NDJSON lines are parsed, and malformed lines are returned as invalid rows
+     */
+    @Test
+    void testNdjson() {
+
+        String ndjson = """
+                {"username":"alice","password":"secret"}
+                {"username":"bob"
+                []
+                """;
+
+        List<UserImportRow> rows = new UserImportReader(new StringReader(ndjson), UserImportFormat.NDJSON).read(10);
+
+        // Assertions
+        assertEquals(UserImportRow.of(1, "alice", "secret"), rows.get(0));
+        assertEquals(UserImportRow.invalid(2, "Malformed JSON."), rows.get(1));
+        assertEquals(UserImportRow.invalid(3, "Expected a JSON object."), rows.get(2));
+
+    }
+
+    /**
+     * Test that rows are read in chunks of at most the requested size, until the file is exhausted
+     */
+    @Test
+    void testChunks() {
+
+        StringBuilder csv = new StringBuilder();
+
+        for (int i = 0; i < 25; i++) {
+            csv.append("user_").append(i).append(",secret\n");
+        }
+
+        UserImportReader reader = new UserImportReader(new StringReader(csv.toString()), UserImportFormat.CSV);
+
+        // Assertions
+        assertEquals(10, reader.read(10).size());
+        assertEquals(10, reader.read(10).size());
+        assertEquals(5, reader.read(10).size());
+        assertTrue(reader.read(10).isEmpty());
+
+    }
+
+    /**
+     * Test that formats are matched by content type, ignoring parameters such as the charset
+     */
+    @Test
+    void testFormatFromContentType() {
+
+        // Assertions
+        assertEquals(UserImportFormat.CSV, UserImportFormat.fromContentType("text/csv; charset=UTF-8"));
+        assertEquals(UserImportFormat.NDJSON, UserImportFormat.fromContentType("application/x-ndjson"));
+        assertThrows(IllegalArgumentException.class, () -> UserImportFormat.fromContentType("application/json"));
+
+    }
+
+}